@@ -0,0 +1,284 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.WordNetUtil;
+
+/**
+ * Asynchronous counterpart of {@link JAWJAW}. Lookups run on an 
+ * {@link Executor} and return {@link Future}s, so that request handlers
+ * need not block on the database. Each lookup is one task; lookups that 
+ * combine several link types (e.g. meronyms) resolve the word once, see 
+ * {@link JAWJAW#findRelated(String, POS, EnumSet)}.
+ * <p>
+ * If the executor rejects a task, the {@link RejectedExecutionException} 
+ * is thrown by the find method.
+ * 
+ * <pre>
+ * AsyncJAWJAW async = new AsyncJAWJAW();
+ * Future&lt;Set&lt;String&gt;&gt; hypernyms = async.findHypernymsAsync( "dog", POS.n );
+ * </pre>
+ */
+public class AsyncJAWJAW {
+
+	private final Executor executor;
+
+	/**
+	 * Runs lookups on a pool of daemon threads, one per DB connection 
+	 * (see poolSize), with a bounded queue. When the queue is full, the 
+	 * calling thread runs the lookup itself.
+	 */
+	public AsyncJAWJAW() {
+		this( newExecutor( defaultThreads(), 1000 ) );
+	}
+
+	/**
+	 * @param executor runs the lookups; its queue and rejection policy apply
+	 */
+	public AsyncJAWJAW( Executor executor ) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates a pool of daemon threads with a bounded queue. When the queue 
+	 * is full, the submitting thread runs the task, which slows down callers
+	 * instead of failing. For a different policy, create the 
+	 * ThreadPoolExecutor directly.
+	 * 
+	 * @param threads number of threads
+	 * @param queueSize number of waiting lookups
+	 * @return executor
+	 */
+	public static ThreadPoolExecutor newExecutor( int threads, int queueSize ) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor( threads, threads, 
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( queueSize ), 
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+					public Thread newThread( Runnable r ) {
+						Thread t = new Thread( r, "jawjaw-async-"+count.incrementAndGet() );
+						t.setDaemon( true );
+						return t;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy() );
+		executor.allowCoreThreadTimeOut( true );
+		return executor;
+	}
+
+	private static int defaultThreads() {
+		int size = Configuration.getInstance().getPoolSize();
+		return size > 0 ? size : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @see JAWJAW#findHypernyms(String, POS)
+	 */
+	public Future<Set<String>> findHypernymsAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.hype );
+	}
+
+	/**
+	 * @see JAWJAW#findAllHypernyms(String, POS, int)
+	 */
+	public Future<Set<String>> findAllHypernymsAsync( final String word, final POS pos, final int maxDepth ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findAllHypernyms( word, pos, maxDepth );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findHyponyms(String, POS)
+	 */
+	public Future<Set<String>> findHyponymsAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.hypo );
+	}
+
+	/**
+	 * @see JAWJAW#findMeronyms(String, POS)
+	 */
+	public Future<Set<String>> findMeronymsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findMeronyms( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findHolonyms(String, POS)
+	 */
+	public Future<Set<String>> findHolonymsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findHolonyms( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findInstances(String, POS)
+	 */
+	public Future<Set<String>> findInstancesAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.inst );
+	}
+
+	/**
+	 * @see JAWJAW#findHasInstances(String, POS)
+	 */
+	public Future<Set<String>> findHasInstancesAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.hasi );
+	}
+
+	/**
+	 * @see JAWJAW#findAttributes(String, POS)
+	 */
+	public Future<Set<String>> findAttributesAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.attr );
+	}
+
+	/**
+	 * @see JAWJAW#findSimilarTo(String, POS)
+	 */
+	public Future<Set<String>> findSimilarToAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.sim );
+	}
+
+	/**
+	 * @see JAWJAW#findEntailments(String, POS)
+	 */
+	public Future<Set<String>> findEntailmentsAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.enta );
+	}
+
+	/**
+	 * @see JAWJAW#findCauses(String, POS)
+	 */
+	public Future<Set<String>> findCausesAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.caus );
+	}
+
+	/**
+	 * @see JAWJAW#findSeeAlso(String, POS)
+	 */
+	public Future<Set<String>> findSeeAlsoAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.also );
+	}
+
+	/**
+	 * @see JAWJAW#findSynonyms(String, POS)
+	 */
+	public Future<Set<String>> findSynonymsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findSynonyms( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findAntonyms(String, POS)
+	 */
+	public Future<Set<String>> findAntonymsAsync( String word, POS pos ) {
+		return findLinksAsync( word, pos, Link.ants );
+	}
+
+	/**
+	 * @see JAWJAW#findDomains(String, POS)
+	 */
+	public Future<Set<String>> findDomainsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findDomains( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findInDomains(String, POS)
+	 */
+	public Future<Set<String>> findInDomainsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findInDomains( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findRelated(String, POS, EnumSet)
+	 */
+	public Future<Map<Link, Set<String>>> findRelatedAsync( final String word, final POS pos, final EnumSet<Link> links ) {
+		return submit( new Callable<Map<Link, Set<String>>>() {
+			public Map<Link, Set<String>> call() {
+				return JAWJAW.findRelated( word, pos, links );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findTranslations(String, POS)
+	 */
+	public Future<Set<String>> findTranslationsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findTranslations( word, pos );
+			}
+		} );
+	}
+
+	/**
+	 * @see JAWJAW#findDefinitions(String, POS)
+	 */
+	public Future<Set<String>> findDefinitionsAsync( final String word, final POS pos ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return JAWJAW.findDefinitions( word, pos );
+			}
+		} );
+	}
+
+	private Future<Set<String>> findLinksAsync( final String word, final POS pos, final Link link ) {
+		return submit( new Callable<Set<String>>() {
+			public Set<String> call() {
+				return WordNetUtil.findLinks( word, pos, link );
+			}
+		} );
+	}
+
+	private <T> Future<T> submit( Callable<T> callable ) {
+		FutureTask<T> task = new FutureTask<T>( callable );
+		executor.execute( task );
+		return task;
+	}
+}
@@ -15,8 +15,11 @@
  */
 package edu.cmu.lti.jawjaw;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import edu.cmu.lti.jawjaw.db.SynsetDefDAO;
@@ -32,6 +35,9 @@ import edu.cmu.lti.jawjaw.util.WordNetUtil;
  * 
  * This is a facade class that provides simple APIs for end users.
  * For doing more complicated stuff, use DAO classes under the package edu.cmu.lti.jawjaw.dao
+ * <p>
+ * To see how many SQL queries a call costs, use {@link edu.cmu.lti.jawjaw.db.QueryStats}.
+ * For lookups that must not block the calling thread, use {@link AsyncJAWJAW}.
  * 
  * @author Hideki Shima
  *
@@ -52,6 +58,19 @@ public class JAWJAW {
 	public static Set<String> findHypernyms( String word, POS pos ) {
 		return WordNetUtil.findLinks(word, pos, Link.hype);
 	}
+	/**
+	 * Finds hypernyms of a word, their hypernyms and so on, up to a distance.
+	 * 
+	 * @param word word in English or Japanese
+	 * @param pos part of speech
+	 * @param maxDepth largest number of hops, 1 for direct hypernyms (including 
+	 * classes of instances); Integer.MAX_VALUE for all
+	 * @return hypernyms, nearer ones first
+	 */
+	public static Set<String> findAllHypernyms( String word, POS pos, int maxDepth ) {
+		return WordNetUtil.findAllHypernyms( word, pos, maxDepth );
+	}
+	
 	/**
 	 * Finds hyponyms of a word. According to <a href="http://en.wikipedia.org/wiki/WordNet">wikipedia</a>, 
 	 * <ul>
@@ -76,11 +95,7 @@ public class JAWJAW {
 	 * @return meronyms
 	 */
 	public static Set<String> findMeronyms( String word, POS pos ) {
-		Set<String> results = new LinkedHashSet<String>();
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.mmem) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.msub) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.mprt) );
-		return results;
+		return findRelated( word, pos, Link.mmem, Link.msub, Link.mprt );
 	}
 	/**
 	 * Finds holonyms of a word. According to <a href="http://en.wikipedia.org/wiki/WordNet">wikipedia</a>, 
@@ -93,11 +108,7 @@ public class JAWJAW {
 	 * @return holonyms
 	 */
 	public static Set<String> findHolonyms( String word, POS pos ) {
-		Set<String> results = new LinkedHashSet<String>();
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.hmem) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.hsub) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.hprt) );
-		return results;
+		return findRelated( word, pos, Link.hmem, Link.hsub, Link.hprt );
 	}
 	/**
 	 * Finds instances of a word. 
@@ -202,11 +213,7 @@ public class JAWJAW {
 	 * @return domains
 	 */
 	public static Set<String> findDomains( String word, POS pos ) {
-		Set<String> results = new LinkedHashSet<String>();
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmnc) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmnr) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmnu) );
-		return results;
+		return findRelated( word, pos, Link.dmnc, Link.dmnr, Link.dmnu );
 	}
 	/**
 	 * Get in-domain relations of a word. 
@@ -216,10 +223,28 @@ public class JAWJAW {
 	 * @return in-domain relations
 	 */
 	public static Set<String> findInDomains( String word, POS pos ) {
-		Set<String> results = new LinkedHashSet<String>();
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmtc) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmtr) );
-		results.addAll( WordNetUtil.findLinks(word, pos, Link.dmtu) );
+		return findRelated( word, pos, Link.dmtc, Link.dmtr, Link.dmtu );
+	}
+	
+	/**
+	 * Finds words in any of the given relationships with a word, looking the word up only once.
+	 * 
+	 * @param word word in English or Japanese
+	 * @param pos part of speech
+	 * @param links link types
+	 * @return related words by link type
+	 */
+	public static Map<Link, Set<String>> findRelated( String word, POS pos, EnumSet<Link> links ) {
+		return WordNetUtil.findRelated( word, pos, links );
+	}
+	
+	private static Set<String> findRelated( String word, POS pos, Link first, Link... rest ) {
+		Map<Link, Set<String>> related = WordNetUtil.findRelated( word, pos, EnumSet.of( first, rest ) );
+		// keep the order of the given links
+		Set<String> results = new LinkedHashSet<String>( related.get( first ) );
+		for ( Link link : rest ) {
+			results.addAll( related.get( link ) );
+		}
 		return results;
 	}
 	
@@ -248,8 +273,11 @@ public class JAWJAW {
 		// Currently, only English is available.
 		Lang lang = Lang.eng; 
 		
+		List<String> ids = new ArrayList<String>( synsets.size() );
 		for ( Synset synset : synsets ) {
-			SynsetDef def = SynsetDefDAO.findSynsetDefBySynsetAndLang( synset.getSynset(), lang );
+			ids.add( synset.getSynset() );
+		}
+		for ( SynsetDef def : SynsetDefDAO.findSynsetDefsBySynsets( ids, lang ).values() ) {
 			results.add( def.getDef() );
 		}
 		return results;
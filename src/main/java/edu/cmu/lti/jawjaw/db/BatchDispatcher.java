@@ -0,0 +1,197 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.cmu.lti.jawjaw.util.Configuration;
+
+/**
+ * Coalesces single-key lookups of concurrent threads into batched queries.
+ * The first key of a batch waits for the batch window, during which other
+ * threads add their keys; the batch is then loaded with one call of the 
+ * {@link Loader}. A batch that reaches the maximum size is loaded at once 
+ * by the thread that filled it. No extra threads are involved.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+final class BatchDispatcher<K, V> {
+
+	/**
+	 * Loads a batch of keys.
+	 */
+	interface Loader<K, V> {
+		/**
+		 * @param keys distinct keys
+		 * @return values by key; keys without a value may be absent
+		 */
+		Map<K, V> loadAll( Collection<K> keys );
+	}
+
+	private final Loader<K, V> loader;
+	private final long windowNanos;
+	private final int maxKeys;
+
+	private Batch current;
+
+	/**
+	 * @param loader loads the batches
+	 * @param windowMicros time the first key of a batch waits for others
+	 * @param maxKeys batch size that triggers loading before the window ends
+	 */
+	BatchDispatcher( Loader<K, V> loader, long windowMicros, int maxKeys ) {
+		this.loader = loader;
+		this.windowNanos = TimeUnit.MICROSECONDS.toNanos( windowMicros );
+		this.maxKeys = Math.max( 1, maxKeys );
+	}
+
+	/**
+	 * @param loader loads the batches
+	 * @return a dispatcher with the configured window and size, or null if 
+	 * batching is disabled (batchWindowMicros = 0)
+	 */
+	static <K, V> BatchDispatcher<K, V> create( Loader<K, V> loader ) {
+		Configuration config = Configuration.getInstance();
+		if ( config.getBatchWindowMicros() <= 0 ) return null;
+		return new BatchDispatcher<K, V>( loader, config.getBatchWindowMicros(), config.getBatchMaxKeys() );
+	}
+
+	/**
+	 * Adds the key to the open batch. Blocks for at most the batch window
+	 * when the key opens a new batch.
+	 * @param key key
+	 * @return future value of the key; null if the key has no value
+	 */
+	Future<V> submit( K key ) {
+		Batch batch;
+		boolean first = false;
+		boolean full = false;
+		synchronized ( this ) {
+			if ( current == null ) {
+				current = new Batch();
+				first = true;
+			}
+			batch = current;
+			batch.keys.add( key );
+			if ( batch.keys.size() >= maxKeys ) {
+				current = null;
+				full = true;
+			}
+		}
+		if ( first && !full ) {
+			long deadline = System.nanoTime() + windowNanos;
+			for ( long left = windowNanos; left > 0 && !batch.task.isDone(); left = deadline - System.nanoTime() ) {
+				LockSupport.parkNanos( left );
+			}
+			synchronized ( this ) {
+				if ( current == batch ) current = null;
+			}
+			full = true;
+		}
+		if ( full ) {
+			// FutureTask runs once, no matter how many threads get here
+			batch.task.run();
+			if ( batch.first != Thread.currentThread() ) LockSupport.unpark( batch.first );
+		}
+		return new KeyFuture( batch.task, key );
+	}
+
+	/**
+	 * Looks up a key through the next batch, waiting uninterruptibly.
+	 * @param key key
+	 * @return value or null
+	 */
+	V get( K key ) {
+		Future<V> future = submit( key );
+		boolean interrupted = false;
+		try {
+			while ( true ) {
+				try {
+					return future.get();
+				} catch ( InterruptedException e ) {
+					interrupted = true;
+				} catch ( ExecutionException e ) {
+					Throwable cause = e.getCause();
+					if ( cause instanceof RuntimeException ) throw (RuntimeException)cause;
+					if ( cause instanceof Error ) throw (Error)cause;
+					throw new RuntimeException( cause );
+				}
+			}
+		} finally {
+			if ( interrupted ) Thread.currentThread().interrupt();
+		}
+	}
+
+	private final class Batch {
+		// waits for the window, woken up early if another thread loads the batch
+		final Thread first = Thread.currentThread();
+		// written under the dispatcher lock, read once the batch is closed
+		final Set<K> keys = new LinkedHashSet<K>();
+		final FutureTask<Map<K, V>> task = new FutureTask<Map<K, V>>( new Callable<Map<K, V>>() {
+			public Map<K, V> call() {
+				synchronized ( BatchDispatcher.this ) {
+					if ( current == Batch.this ) current = null;
+				}
+				return loader.loadAll( keys );
+			}
+		} );
+	}
+
+	/**
+	 * Result of one key within a batch.
+	 */
+	private final class KeyFuture implements Future<V> {
+		private final Future<Map<K, V>> batch;
+		private final K key;
+
+		KeyFuture( Future<Map<K, V>> batch, K key ) {
+			this.batch = batch;
+			this.key = key;
+		}
+
+		public boolean cancel( boolean mayInterruptIfRunning ) {
+			// the batch is shared with other callers
+			return false;
+		}
+
+		public boolean isCancelled() {
+			return false;
+		}
+
+		public boolean isDone() {
+			return batch.isDone();
+		}
+
+		public V get() throws InterruptedException, ExecutionException {
+			return batch.get().get( key );
+		}
+
+		public V get( long timeout, TimeUnit unit ) throws InterruptedException, ExecutionException, TimeoutException {
+			return batch.get( timeout, unit ).get( key );
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.Freezable;
+import edu.cmu.lti.jawjaw.util.Configuration;
+
+/**
+ * Helpers for the records kept in the DAO caches. Cached records are 
+ * frozen and held in unmodifiable lists, so a cache hit can hand out 
+ * the cached list itself. With "copyOnRead" enabled, callers get mutable
+ * copies instead, as in earlier versions.
+ */
+final class CachedRecords {
+
+	private CachedRecords() {
+	}
+
+	/**
+	 * Prepares freshly loaded records for the cache.
+	 * @param records records; frozen in place
+	 * @return unmodifiable view of the records
+	 */
+	static <T extends Freezable<T>> List<T> freeze( List<T> records ) {
+		for ( T record : records ) {
+			record.freeze();
+		}
+		return Collections.unmodifiableList( records );
+	}
+
+	/**
+	 * Prepares a freshly loaded record for the cache.
+	 * @param record record or null
+	 * @return the frozen record
+	 */
+	static <T extends Freezable<T>> T freeze( T record ) {
+		return record != null ? record.freeze() : null;
+	}
+
+	/**
+	 * @param records cached records or null
+	 * @return the cached list, or a mutable deep copy with copyOnRead
+	 */
+	static <T extends Freezable<T>> List<T> share( List<T> records ) {
+		if ( records == null || !Configuration.getInstance().copyOnRead() ) return records;
+		return copy( records );
+	}
+
+	/**
+	 * @param records records
+	 * @return mutable deep copy
+	 */
+	static <T extends Freezable<T>> List<T> copy( List<T> records ) {
+		List<T> copy = new ArrayList<T>( records.size() );
+		for ( T record : records ) {
+			copy.add( record.clone() );
+		}
+		return copy;
+	}
+
+	/**
+	 * @param record cached record or null
+	 * @return the cached record, or a mutable copy with copyOnRead
+	 */
+	static <T extends Freezable<T>> T share( T record ) {
+		if ( record == null || !Configuration.getInstance().copyOnRead() ) return record;
+		return record.clone();
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed-size pool of read-only connections. Lookups borrow a connection,
+ * run their statements on it, and release it, so up to "poolSize" 
+ * queries of the same kind run in parallel.
+ */
+public class ConnectionPool {
+
+	private final List<PooledConnection> all;
+	private final BlockingQueue<PooledConnection> idle;
+
+	ConnectionPool( List<PooledConnection> connections ) {
+		this.all = new ArrayList<PooledConnection>( connections );
+		this.idle = new ArrayBlockingQueue<PooledConnection>( connections.size(), false, connections );
+	}
+
+	/**
+	 * Takes an idle connection, waiting until one is released if necessary.
+	 * @return connection to be given back with {@link #release(PooledConnection)}
+	 */
+	public PooledConnection borrow() {
+		PooledConnection connection = idle.poll();
+		if ( connection != null ) return connection;
+		boolean interrupted = false;
+		try {
+			while ( true ) {
+				try {
+					return idle.take();
+				} catch ( InterruptedException e ) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if ( interrupted ) Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @param connection borrowed connection; null is ignored
+	 */
+	public void release( PooledConnection connection ) {
+		if ( connection != null ) idle.offer( connection );
+	}
+
+	/**
+	 * @return number of connections
+	 */
+	public int size() {
+		return all.size();
+	}
+
+	void close() {
+		for ( PooledConnection connection : all ) {
+			connection.close();
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a copy of the WordNet DB tuned for the queries in {@link SQLQuery}:
+ * <ul>
+ * <li>only the tables jawjaw reads are kept (all of their columns are read)</li>
+ * <li>tables are clustered on their lookup keys as WITHOUT ROWID tables, 
+ * or written in key order if the key is not unique</li>
+ * <li>the remaining lookups get covering indexes</li>
+ * <li>finally ANALYZE and VACUUM</li>
+ * </ul>
+ * The schema fingerprint is recorded in the jawjaw_meta table, so that 
+ * {@link SQL} skips its index DDL on startup.
+ * <pre>
+ * java edu.cmu.lti.jawjaw.db.DatabaseOptimizer wnjpn.db wnjpn-optimized.db
+ * </pre>
+ */
+public class DatabaseOptimizer {
+
+	/** table name, clustering key */
+	private static final String[][] TABLES = {
+		{ "word",       "wordid" },
+		{ "sense",      "synset, wordid" },
+		{ "synset",     "synset" },
+		{ "synset_def", "synset, lang, sid" },
+		{ "synlink",    "synset1, link, synset2" },
+	};
+
+	/** covering indexes for the lookups not served by the clustering keys */
+	private static final String[] INDEXES = {
+		"CREATE INDEX word_lemma_idx ON word (lemma, pos, lang, pron)",
+		"CREATE INDEX sense_wordid_idx ON sense (wordid, lang, rank, lexid, freq, src)",
+		"CREATE INDEX synset_name_idx ON synset (name, pos, src)",
+		"CREATE INDEX synlink_target_idx ON synlink (synset2, link, synset1, src)",
+	};
+
+	static final String META_TABLE = "jawjaw_meta";
+	static final String SCHEMA_FINGERPRINT = fingerprint();
+
+	public static void main( String[] args ) throws Exception {
+		if ( args.length < 2 ) {
+			System.err.println( "Usage: DatabaseOptimizer <source.db> <target.db>" );
+			System.exit(1);
+		}
+		File source = new File( args[0] );
+		File target = new File( args[1] );
+		if ( !source.isFile() ) {
+			System.err.println( "ERROR: "+source+" not found" );
+			System.exit(1);
+		}
+		if ( target.exists() ) {
+			System.err.println( "ERROR: "+target+" already exists" );
+			System.exit(1);
+		}
+		Class.forName( "org.sqlite.JDBC" );
+		long t0 = System.currentTimeMillis();
+		Connection connection = DriverManager.getConnection( "jdbc:sqlite:"+target.getPath() );
+		try {
+			optimize( connection, source, true );
+		} finally {
+			connection.close();
+		}
+		long t1 = System.currentTimeMillis();
+		System.out.println( "Wrote "+target+" ("+source.length()+" -> "+target.length()
+				+" bytes) in "+((double)(t1-t0)/1000D)+" sec." );
+	}
+
+	/**
+	 * Fills the empty database of the connection from the source file, quietly.
+	 * @param connection empty target database
+	 * @param source WordNet DB file
+	 * @throws SQLException
+	 */
+	public static void optimize( Connection connection, File source ) throws SQLException {
+		optimize( connection, source, false );
+	}
+
+	/**
+	 * Fills the empty database of the connection from the source file.
+	 * @param connection empty target database
+	 * @param source WordNet DB file
+	 * @param verbose print the time taken for each table
+	 * @throws SQLException
+	 */
+	public static void optimize( Connection connection, File source, boolean verbose ) throws SQLException {
+		Statement s = connection.createStatement();
+		try {
+			s.execute( "ATTACH DATABASE '"+source.getAbsolutePath().replace("'", "''")+"' AS src" );
+			connection.setAutoCommit(false);
+			for ( String[] table : TABLES ) {
+				copyTable( s, table[0], table[1], verbose );
+			}
+			for ( String index : INDEXES ) {
+				s.execute( index );
+			}
+			s.execute( "CREATE TABLE "+META_TABLE+" (key TEXT PRIMARY KEY, value TEXT) WITHOUT ROWID" );
+			s.execute( "INSERT INTO "+META_TABLE+" VALUES ('schema', '"+SCHEMA_FINGERPRINT+"')" );
+			s.execute( "INSERT INTO "+META_TABLE+" VALUES ('source', '"+source.getName().replace("'", "''")+"')" );
+			connection.commit();
+			connection.setAutoCommit(true);
+			s.execute( "DETACH DATABASE src" );
+			s.execute( "ANALYZE" );
+			s.execute( "VACUUM" );
+		} finally {
+			s.close();
+		}
+	}
+
+	private static void copyTable( Statement s, String table, String key, boolean verbose ) throws SQLException {
+		long t0 = System.currentTimeMillis();
+		List<String> columns = new ArrayList<String>();
+		StringBuilder definition = new StringBuilder();
+		ResultSet rs = s.executeQuery( "PRAGMA src.table_info("+table+")" );
+		while ( rs.next() ) {
+			if ( definition.length() > 0 ) definition.append( ", " );
+			definition.append( rs.getString("name") ).append(' ').append( rs.getString("type") );
+			columns.add( rs.getString("name") );
+		}
+		rs.close();
+		if ( columns.isEmpty() ) throw new SQLException( "Table "+table+" not found in source" );
+		
+		boolean unique = isUnique( s, table, key );
+		// columns keep the source order since the DAOs read them by position
+		if ( unique ) {
+			s.execute( "CREATE TABLE "+table+" ("+definition+", PRIMARY KEY ("+key+")) WITHOUT ROWID" );
+		} else {
+			s.execute( "CREATE TABLE "+table+" ("+definition+")" );
+			s.execute( "CREATE INDEX "+table+"_key_idx ON "+table+" ("+key+")" );
+		}
+		s.execute( "INSERT INTO main."+table+" SELECT * FROM src."+table+" ORDER BY "+key );
+		long t1 = System.currentTimeMillis();
+		if ( verbose ) {
+			System.out.println( "  "+table+( unique ? " clustered on (" : " sorted by (" )+key+") in "
+					+((double)(t1-t0)/1000D)+" sec." );
+		}
+	}
+
+	private static boolean isUnique( Statement s, String table, String key ) throws SQLException {
+		ResultSet rs = s.executeQuery( "SELECT count(*) FROM (SELECT 1 FROM src."+table
+				+" GROUP BY "+key+" HAVING count(*) > 1)" );
+		try {
+			return rs.next() && rs.getInt(1) == 0;
+		} finally {
+			rs.close();
+		}
+	}
+
+	/**
+	 * @return whether the database was written by this version of the optimizer
+	 */
+	static boolean isOptimized( Connection connection ) {
+		Statement s = null;
+		ResultSet rs = null;
+		try {
+			s = connection.createStatement();
+			rs = s.executeQuery( "SELECT value FROM "+META_TABLE+" WHERE key = 'schema'" );
+			return rs.next() && SCHEMA_FINGERPRINT.equals( rs.getString(1) );
+		} catch ( SQLException e ) {
+			return false; // no meta table
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+				if ( s != null ) s.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static String fingerprint() {
+		CRC32 crc = new CRC32();
+		for ( String[] table : TABLES ) {
+			crc.update( (table[0]+"("+table[1]+");").getBytes() );
+		}
+		for ( String index : INDEXES ) {
+			crc.update( (index+";").getBytes() );
+		}
+		return "v1-"+Long.toHexString( crc.getValue() );
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compressed row index: the rows of group g are 
+ * rows[offsets[g]] .. rows[offsets[g+1]-1], in their original order.
+ * Groups are either dense ints or strings mapped by a {@link StringIntIndex}.
+ */
+final class GroupIndex {
+
+	private final StringIntIndex keys;
+	private final int[] offsets;
+	private final int[] rows;
+
+	private GroupIndex( StringIntIndex keys, int[] offsets, int[] rows ) {
+		this.keys = keys;
+		this.offsets = offsets;
+		this.rows = rows;
+	}
+
+	/**
+	 * Counting sort of the rows by group (stable).
+	 * @param groupOfRow group of each row, or -1 to leave a row out
+	 * @param groups number of groups
+	 */
+	static GroupIndex byInt( int[] groupOfRow, int groups ) {
+		return byInt( null, groupOfRow, groups );
+	}
+
+	/**
+	 * @param keyOfRow key of each row, or null to leave a row out
+	 */
+	static GroupIndex byString( String[] keyOfRow ) {
+		StringIntIndex keys = new StringIntIndex( keyOfRow.length );
+		int[] groupOfRow = new int[keyOfRow.length];
+		for ( int row = 0; row < keyOfRow.length; row++ ) {
+			groupOfRow[row] = keyOfRow[row] == null ? -1 
+					: keys.putIfAbsent( keyOfRow[row], keys.size() );
+		}
+		return byInt( keys, groupOfRow, keys.size() );
+	}
+
+	private static GroupIndex byInt( StringIntIndex keys, int[] groupOfRow, int groups ) {
+		int[] offsets = new int[groups + 1];
+		for ( int g : groupOfRow ) {
+			if ( g >= 0 ) offsets[g + 1]++;
+		}
+		for ( int g = 0; g < groups; g++ ) {
+			offsets[g + 1] += offsets[g];
+		}
+		int[] next = new int[groups];
+		System.arraycopy( offsets, 0, next, 0, groups );
+		int[] rows = new int[offsets[groups]];
+		for ( int row = 0; row < groupOfRow.length; row++ ) {
+			int g = groupOfRow[row];
+			if ( g >= 0 ) rows[next[g]++] = row;
+		}
+		return new GroupIndex( keys, offsets, rows );
+	}
+
+	/**
+	 * @return group of the key, or -1 if absent
+	 */
+	int group( String key ) {
+		return key == null ? -1 : keys.get( key );
+	}
+
+	int start( int group ) {
+		return offsets[group];
+	}
+
+	int end( int group ) {
+		return offsets[group + 1];
+	}
+
+	int row( int position ) {
+		return rows[position];
+	}
+
+	int groups() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Sorts the rows within each group by the given rank (stable).
+	 */
+	void sortGroups( int[] rankOfRow ) {
+		for ( int g = 0; g < groups(); g++ ) {
+			for ( int i = offsets[g] + 1; i < offsets[g + 1]; i++ ) {
+				int row = rows[i];
+				int j = i - 1;
+				while ( j >= offsets[g] && rankOfRow[rows[j]] > rankOfRow[row] ) {
+					rows[j + 1] = rows[j];
+					j--;
+				}
+				rows[j + 1] = row;
+			}
+		}
+	}
+
+	/**
+	 * @return read-only view of table rows at positions [from, to)
+	 */
+	<T> List<T> list( T[] table, int from, int to ) {
+		if ( from >= to ) return Collections.emptyList();
+		return new RowList<T>( table, rows, from, to );
+	}
+
+	/**
+	 * @return read-only view of the rows of the group, empty if group is -1
+	 */
+	<T> List<T> list( T[] table, int group ) {
+		if ( group < 0 ) return Collections.emptyList();
+		return list( table, offsets[group], offsets[group + 1] );
+	}
+
+	private static final class RowList<T> extends AbstractList<T> implements RandomAccess {
+		private final T[] table;
+		private final int[] rows;
+		private final int from;
+		private final int size;
+
+		RowList( T[] table, int[] rows, int from, int to ) {
+			this.table = table;
+			this.rows = rows;
+			this.from = from;
+			this.size = to - from;
+		}
+
+		@Override
+		public T get( int index ) {
+			if ( index < 0 || index >= size ) {
+				throw new IndexOutOfBoundsException( "Index: "+index+", Size: "+size );
+			}
+			return table[rows[from + index]];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
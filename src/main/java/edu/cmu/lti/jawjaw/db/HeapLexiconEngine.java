@@ -0,0 +1,347 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * Lexicon engine that loads the word, sense, synset, synset_def and synlink
+ * tables once into arrays of frozen records, indexed by int arrays:
+ * lemma to words, wordid to senses, synset to senses, definitions and 
+ * links (grouped by link type). Lookups involve no JDBC, no SQL parsing 
+ * and no object mapping.
+ * <p>
+ * Synsets are indexed by their packed ids (see {@link SynsetId}), and all
+ * records of a synset share a single instance of the synset id string.
+ * <p>
+ * The tables are read on first use of {@link #getInstance()}.
+ */
+public final class HeapLexiconEngine implements LexiconEngine {
+
+	private static final boolean BENCHMARK = false;
+
+	private static class Holder {
+		static final HeapLexiconEngine instance = new HeapLexiconEngine();
+	}
+
+	// word table sorted by wordid
+	private final Word[] words;
+	private final int[] wordids;
+	private final GroupIndex wordsByLemma;
+	private final GroupIndex wordsByLemmaAndPos;
+
+	// sorted packed ids of all synsets; the group number of a synset in the 
+	// synset-keyed indexes is its position here
+	private final int[] synsetKeys;
+
+	private final Sense[] senses;
+	private final GroupIndex sensesBySynset;
+	private final GroupIndex sensesByWord;
+
+	private final Synset[] synsets;
+	private final GroupIndex synsetsBySynset;
+	private final GroupIndex synsetsByName;
+	private final GroupIndex synsetsByNameAndPos;
+
+	private final SynsetDef[] synsetDefs;
+	private final GroupIndex synsetDefsBySynset;
+
+	// synlinks of a synset are sorted by link type
+	private final Synlink[] synlinks;
+	private final GroupIndex synlinksBySynset;
+	private final GroupIndex synlinksByTargetSynset;
+
+	/**
+	 * Singleton pattern
+	 * @return singleton object, loaded on first call
+	 */
+	public static HeapLexiconEngine getInstance() {
+		return Holder.instance;
+	}
+
+	private HeapLexiconEngine() {
+		long t0 = System.currentTimeMillis();
+		List<Word> wordList = new ArrayList<Word>();
+		List<Sense> senseList = new ArrayList<Sense>();
+		List<Synset> synsetList = new ArrayList<Synset>();
+		// read from the rows, since Synset.getName() may query the DAO 
+		List<String> nameAndPosList = new ArrayList<String>();
+		List<SynsetDef> synsetDefList = new ArrayList<SynsetDef>();
+		List<Synlink> synlinkList = new ArrayList<Synlink>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_WORDS ).executeQuery();
+			while ( rs.next() ) wordList.add( WordDAO.rsToObject(rs).freeze() );
+			rs.close();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_SENSES ).executeQuery();
+			// frozen once the synset ids are shared
+			while ( rs.next() ) senseList.add( SenseDAO.rsToObject(rs) );
+			rs.close();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_SYNSETS ).executeQuery();
+			while ( rs.next() ) {
+				synsetList.add( SynsetDAO.rsToObject(rs) );
+				String name = rs.getString(3);
+				nameAndPosList.add( name );
+				nameAndPosList.add( name == null ? null : name+" "+rs.getString(2) );
+			}
+			rs.close();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_SYNSET_DEFS ).executeQuery();
+			while ( rs.next() ) synsetDefList.add( SynsetDefDAO.rsToObject(rs) );
+			rs.close();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_SYNLINKS ).executeQuery();
+			while ( rs.next() ) synlinkList.add( SynlinkDAO.rsToObject(rs) );
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		
+		words = wordList.toArray( new Word[wordList.size()] );
+		wordids = new int[words.length];
+		String[] lemmas = new String[words.length];
+		String[] lemmasAndPos = new String[words.length];
+		for ( int i = 0; i < words.length; i++ ) {
+			wordids[i] = words[i].getWordid();
+			lemmas[i] = words[i].getLemma();
+			lemmasAndPos[i] = words[i].getLemma()+" "+words[i].getPos();
+		}
+		wordsByLemma = GroupIndex.byString( lemmas );
+		wordsByLemmaAndPos = GroupIndex.byString( lemmasAndPos );
+		
+		synsets = synsetList.toArray( new Synset[synsetList.size()] );
+		senses = senseList.toArray( new Sense[senseList.size()] );
+		synsetDefs = synsetDefList.toArray( new SynsetDef[synsetDefList.size()] );
+		synlinks = synlinkList.toArray( new Synlink[synlinkList.size()] );
+		
+		synsetKeys = collectSynsetKeys();
+		String[] synsetStrings = new String[synsetKeys.length];
+		
+		int[] senseSynsets = new int[senses.length];
+		int[] senseWords = new int[senses.length];
+		for ( int i = 0; i < senses.length; i++ ) {
+			senseSynsets[i] = synsetGroup( senses[i].getSynset() );
+			senses[i].setSynset( share( synsetStrings, senseSynsets[i], senses[i].getSynset() ) );
+			senses[i].freeze();
+			senseWords[i] = Math.max( -1, Arrays.binarySearch( wordids, senses[i].getWordid() ) );
+		}
+		sensesBySynset = GroupIndex.byInt( senseSynsets, synsetKeys.length );
+		sensesByWord = GroupIndex.byInt( senseWords, words.length );
+		
+		int[] synsetIds = new int[synsets.length];
+		String[] names = new String[synsets.length];
+		String[] namesAndPos = new String[synsets.length];
+		for ( int i = 0; i < synsets.length; i++ ) {
+			synsetIds[i] = synsetGroup( synsets[i].getSynset() );
+			synsets[i].setSynset( share( synsetStrings, synsetIds[i], synsets[i].getSynset() ) );
+			synsets[i].freeze();
+			names[i] = nameAndPosList.get( 2*i );
+			namesAndPos[i] = nameAndPosList.get( 2*i+1 );
+		}
+		synsetsBySynset = GroupIndex.byInt( synsetIds, synsetKeys.length );
+		synsetsByName = GroupIndex.byString( names );
+		synsetsByNameAndPos = GroupIndex.byString( namesAndPos );
+		
+		int[] defSynsets = new int[synsetDefs.length];
+		for ( int i = 0; i < synsetDefs.length; i++ ) {
+			defSynsets[i] = synsetGroup( synsetDefs[i].getSynset() );
+			synsetDefs[i].setSynset( share( synsetStrings, defSynsets[i], synsetDefs[i].getSynset() ) );
+			synsetDefs[i].freeze();
+		}
+		synsetDefsBySynset = GroupIndex.byInt( defSynsets, synsetKeys.length );
+		
+		int[] linkSynsets = new int[synlinks.length];
+		int[] linkTargets = new int[synlinks.length];
+		int[] linkTypes = new int[synlinks.length];
+		for ( int i = 0; i < synlinks.length; i++ ) {
+			linkSynsets[i] = synsetGroup( synlinks[i].getSynset1() );
+			linkTargets[i] = synsetGroup( synlinks[i].getSynset2() );
+			synlinks[i].setSynset1( share( synsetStrings, linkSynsets[i], synlinks[i].getSynset1() ) );
+			synlinks[i].setSynset2( share( synsetStrings, linkTargets[i], synlinks[i].getSynset2() ) );
+			synlinks[i].freeze();
+			linkTypes[i] = synlinks[i].getLink().ordinal();
+		}
+		synlinksBySynset = GroupIndex.byInt( linkSynsets, synsetKeys.length );
+		synlinksBySynset.sortGroups( linkTypes );
+		synlinksByTargetSynset = GroupIndex.byInt( linkTargets, synsetKeys.length );
+		synlinksByTargetSynset.sortGroups( linkTypes );
+		
+		long t1 = System.currentTimeMillis();
+		if (BENCHMARK) System.out.println( "Heap lexicon: "+words.length+" words, "
+				+senses.length+" senses, "+synsets.length+" synsets, "+synlinks.length
+				+" synlinks loaded in "+((double)(t1-t0)/1000D)+" sec." );
+	}
+
+	/**
+	 * @return sorted packed ids of all synsets referred to by the tables
+	 */
+	private int[] collectSynsetKeys() {
+		int[] keys = new int[synsets.length + senses.length + synsetDefs.length + 2*synlinks.length];
+		int n = 0;
+		for ( Synset synset : synsets ) keys[n++] = SynsetId.pack( synset.getSynset() );
+		for ( Sense sense : senses ) keys[n++] = SynsetId.pack( sense.getSynset() );
+		for ( SynsetDef def : synsetDefs ) keys[n++] = SynsetId.pack( def.getSynset() );
+		for ( Synlink link : synlinks ) {
+			keys[n++] = SynsetId.pack( link.getSynset1() );
+			keys[n++] = SynsetId.pack( link.getSynset2() );
+		}
+		Arrays.sort( keys );
+		int distinct = 0;
+		for ( int i = 0; i < n; i++ ) {
+			if ( keys[i] == SynsetId.NONE ) continue;
+			if ( distinct == 0 || keys[distinct-1] != keys[i] ) keys[distinct++] = keys[i];
+		}
+		return Arrays.copyOf( keys, distinct );
+	}
+
+	/**
+	 * @return group of the synset in the synset-keyed indexes, or -1
+	 */
+	private int synsetGroup( String synset ) {
+		int id = SynsetId.pack( synset );
+		if ( id == SynsetId.NONE ) return -1;
+		return Math.max( -1, Arrays.binarySearch( synsetKeys, id ) );
+	}
+
+	/**
+	 * @return the first string seen for the group, so that records share it
+	 */
+	private static String share( String[] strings, int group, String s ) {
+		if ( group < 0 ) return s;
+		if ( strings[group] == null ) strings[group] = s;
+		return strings[group];
+	}
+
+	public List<Word> findWordsByLemma( String lemma ) {
+		return wordsByLemma.list( words, wordsByLemma.group( lemma ) );
+	}
+
+	public List<Word> findWordsByLemmaAndPos( String lemma, POS pos ) {
+		if ( lemma == null ) return Collections.emptyList();
+		return wordsByLemmaAndPos.list( words, wordsByLemmaAndPos.group( lemma+" "+pos ) );
+	}
+
+	public Word findWordByWordid( int wordid ) {
+		int row = Arrays.binarySearch( wordids, wordid );
+		return row >= 0 ? words[row] : null;
+	}
+
+	public List<Sense> findSensesBySynset( String synset ) {
+		return sensesBySynset.list( senses, synsetGroup( synset ) );
+	}
+
+	public List<Sense> findSensesByWordid( int wordid ) {
+		int row = Arrays.binarySearch( wordids, wordid );
+		return sensesByWord.list( senses, row >= 0 ? row : -1 );
+	}
+
+	public List<Sense> findSensesBySynsetAndLang( String synset, Lang lang ) {
+		List<Sense> all = findSensesBySynset( synset );
+		List<Sense> results = null;
+		for ( int i = 0; i < all.size(); i++ ) {
+			Sense sense = all.get(i);
+			if ( sense.getLang() == lang ) {
+				if ( results == null ) results = new ArrayList<Sense>( all.size() - i );
+				results.add( sense );
+			}
+		}
+		if ( results == null ) return Collections.emptyList();
+		return Collections.unmodifiableList( results );
+	}
+
+	public Synset findSynsetBySynset( String synset ) {
+		int group = synsetGroup( synset );
+		if ( group < 0 || synsetsBySynset.start( group ) == synsetsBySynset.end( group ) ) return null;
+		return synsets[synsetsBySynset.row( synsetsBySynset.start( group ) )];
+	}
+
+	public List<Synset> findSynsetsByName( String name ) {
+		return synsetsByName.list( synsets, synsetsByName.group( name ) );
+	}
+
+	public List<Synset> findSynsetsByNameAndPos( String name, POS pos ) {
+		if ( name == null ) return Collections.emptyList();
+		return synsetsByNameAndPos.list( synsets, synsetsByNameAndPos.group( name+" "+pos ) );
+	}
+
+	public SynsetDef findSynsetDefBySynsetAndLang( String synset, Lang lang ) {
+		int group = synsetGroup( synset );
+		if ( group < 0 ) return null;
+		for ( int i = synsetDefsBySynset.start( group ); i < synsetDefsBySynset.end( group ); i++ ) {
+			SynsetDef def = synsetDefs[synsetDefsBySynset.row( i )];
+			if ( def.getLang() == lang ) return def;
+		}
+		return null;
+	}
+
+	public List<Synlink> findSynlinksBySynset( String synset ) {
+		return synlinksBySynset.list( synlinks, synsetGroup( synset ) );
+	}
+
+	public List<Synlink> findSynlinksBySynsetAndLink( String synset, Link link ) {
+		return synlinksByLink( synlinksBySynset, synset, link );
+	}
+
+	public List<Synlink> findSynlinksByTargetSynset( String synset ) {
+		return synlinksByTargetSynset.list( synlinks, synsetGroup( synset ) );
+	}
+
+	public List<Synlink> findSynlinksByTargetSynsetAndLink( String synset, Link link ) {
+		return synlinksByLink( synlinksByTargetSynset, synset, link );
+	}
+
+	private List<Synlink> synlinksByLink( GroupIndex index, String synset, Link link ) {
+		int group = synsetGroup( synset );
+		if ( group < 0 || link == null ) return Collections.emptyList();
+		int from = index.start( group );
+		int to = index.end( group );
+		while ( from < to && synlinks[index.row( from )].getLink() != link ) from++;
+		int end = from;
+		while ( end < to && synlinks[index.row( end )].getLink() == link ) end++;
+		return index.list( synlinks, from, end );
+	}
+
+	/**
+	 * @return number of words loaded
+	 */
+	public int getWordCount() {
+		return words.length;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Fixed-size "IN (?,...)" lists for the batch queries of the DAOs. 
+ * Every batch query has exactly {@link #SIZE} placeholders, so that it 
+ * is prepared once per connection; short chunks repeat their last key.
+ */
+final class InClause {
+
+	static final int SIZE = 100;
+
+	private InClause() {}
+
+	/**
+	 * @return "(?,?,...,?)" with SIZE placeholders
+	 */
+	static String placeholders() {
+		return placeholders( SIZE );
+	}
+
+	/**
+	 * @param size number of placeholders
+	 * @return "(?,?,...,?)"
+	 */
+	static String placeholders( int size ) {
+		StringBuilder sb = new StringBuilder( size*2+1 );
+		sb.append( '(' );
+		for ( int i = 0; i < size; i++ ) {
+			sb.append( i == 0 ? "?" : ",?" );
+		}
+		return sb.append( ')' ).toString();
+	}
+
+	/**
+	 * Binds the next chunk of keys.
+	 * @param ps batch query
+	 * @param first parameter index of the first placeholder
+	 * @param keys keys; at least one must remain
+	 * @throws SQLException
+	 */
+	static void bind( PreparedStatement ps, int first, Iterator<?> keys ) throws SQLException {
+		bind( ps, first, keys, SIZE );
+	}
+
+	/**
+	 * Binds the next chunk of keys to a list of the given size.
+	 * @param ps query
+	 * @param first parameter index of the first placeholder
+	 * @param keys keys; at least one must remain
+	 * @param size number of placeholders
+	 * @throws SQLException
+	 */
+	static void bind( PreparedStatement ps, int first, Iterator<?> keys, int size ) throws SQLException {
+		Object key = null;
+		for ( int i = 0; i < size; i++ ) {
+			if ( keys.hasNext() ) key = keys.next();
+			ps.setObject( first + i, key );
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.util.BloomFilter;
+import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.TextUtil;
+
+/**
+ * In-memory membership filter over all lemmas and (lemma, pos) pairs of 
+ * the word table. Most tokens of running text are not in WordNet; this 
+ * lets the DAOs answer such lookups without touching the database.
+ * <p>
+ * The filter is built from the word table on first use. It is disabled 
+ * (i.e. everything might be contained) when the "lemmaFilter" 
+ * configuration is not 1, when building fails, or when a 
+ * {@link LexiconEngine} answers the lookups from its own exact index.
+ */
+public class LemmaFilter {
+
+	private static final boolean BENCHMARK = false;
+
+	/**
+	 * Lazy holder: the word table is only scanned when the filter is first used.
+	 */
+	private static class Holder {
+		static final BloomFilter filter = build();
+	}
+
+	/**
+	 * @param lemma lemma as passed to {@link WordDAO#findWordsByLemma(String)}
+	 * @return false if there is definitely no word with this lemma
+	 */
+	public static boolean mightContainLemma( String lemma ) {
+		if ( !isEnabled() || lemma == null ) return true;
+		BloomFilter filter = Holder.filter;
+		return filter == null || filter.mightContain( TextUtil.canonicalize( lemma ) );
+	}
+
+	/**
+	 * @param lemma lemma as passed to {@link WordDAO#findWordsByLemmaAndPos(String, POS)}
+	 * @param pos part of speech
+	 * @return false if there is definitely no word with this lemma and POS
+	 */
+	public static boolean mightContainLemmaAndPos( String lemma, POS pos ) {
+		if ( !isEnabled() || lemma == null || pos == null ) return true;
+		BloomFilter filter = Holder.filter;
+		return filter == null || filter.mightContain( lemma.toLowerCase()+" "+pos );
+	}
+
+	/**
+	 * @return the filter, or null if it is disabled or could not be built
+	 */
+	public static BloomFilter getFilter() {
+		if ( !isEnabled() ) return null;
+		return Holder.filter;
+	}
+
+	private static boolean isEnabled() {
+		return Configuration.getInstance().useLemmaFilter() 
+				&& LexiconEngineFactory.getEngine() == null;
+	}
+
+	private static BloomFilter build() {
+		long t0 = System.currentTimeMillis();
+		List<String> keys = new ArrayList<String>();
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_ALL_LEMMAS );
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				String lemma = rs.getString(1);
+				keys.add( lemma );
+				keys.add( lemma+" "+rs.getString(2) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+			return null;
+		} catch ( RuntimeException e ) {
+			// e.g. the connection pool could not be opened; failing here 
+			// would leave Holder unusable for the rest of the run
+			e.printStackTrace();
+			return null;
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		
+		Configuration config = Configuration.getInstance();
+		BloomFilter filter = new BloomFilter( keys.size(), 
+				config.getLemmaFilterFpp(), config.getLemmaFilterMaxBytes() );
+		for ( String key : keys ) {
+			filter.add( key );
+		}
+		long t1 = System.currentTimeMillis();
+		if (BENCHMARK) System.out.println( "Lemma filter: "+filter.getCount()+" keys, "
+				+filter.getSizeInBytes()+" bytes, fpp "+filter.getExpectedFpp()
+				+", built in "+((double)(t1-t0)/1000D)+" sec." );
+		return filter;
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * In-memory prefix index over the lemmas of the word table, for 
+ * {@link WordDAO#findWordsByPrefix(String, POS, int)}. 
+ * <p>
+ * Words are kept sorted by lemma, so the words starting with a prefix 
+ * form a range that two binary searches find, as a trie would. A segment 
+ * tree over the word frequencies gives the most frequent word of any 
+ * range in O(log n); the top k of a range are taken from a heap of at 
+ * most k+1 subranges, so the cost of a lookup does not depend on how 
+ * many words match the prefix. There is one such index for all words 
+ * and one per POS.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+final class LemmaPrefixIndex {
+
+	private static final boolean BENCHMARK = false;
+
+	private static class Holder {
+		static final LemmaPrefixIndex instance = load();
+	}
+
+	private final Ranking all;
+	private final Map<POS, Ranking> byPos = new EnumMap<POS, Ranking>( POS.class );
+
+	/**
+	 * Singleton pattern
+	 * @return index of the word table, built on first call
+	 */
+	static LemmaPrefixIndex getInstance() {
+		return Holder.instance;
+	}
+
+	/**
+	 * @param words words; frozen in place
+	 * @param freqs frequency of each word, in the same order
+	 */
+	LemmaPrefixIndex( List<Word> words, int[] freqs ) {
+		Integer[] order = new Integer[words.size()];
+		for ( int i = 0; i < order.length; i++ ) {
+			order[i] = i;
+			words.get(i).freeze();
+		}
+		final List<Word> w = words;
+		Arrays.sort( order, new Comparator<Integer>() {
+			public int compare( Integer a, Integer b ) {
+				return w.get(a).getLemma().compareTo( w.get(b).getLemma() );
+			}
+		});
+		all = new Ranking( words, freqs, order, null );
+		for ( POS pos : POS.values() ) {
+			byPos.put( pos, new Ranking( words, freqs, order, pos ) );
+		}
+	}
+
+	/**
+	 * @param prefix canonicalized prefix of a lemma
+	 * @param pos part of speech, or null for all
+	 * @param limit largest number of words to return
+	 * @return words ranked by frequency, then by lemma
+	 */
+	List<Word> findWordsByPrefix( String prefix, POS pos, int limit ) {
+		Ranking ranking = pos == null ? all : byPos.get( pos );
+		return ranking.top( prefix, limit );
+	}
+
+	private static LemmaPrefixIndex load() {
+		long t0 = System.currentTimeMillis();
+		List<Word> words = new ArrayList<Word>();
+		Map<Integer, Integer> freqByWordid = new HashMap<Integer, Integer>();
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_ALL_WORDS ).executeQuery();
+			while ( rs.next() ) {
+				words.add( WordDAO.rsToObject(rs) );
+			}
+			rs.close();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_WORD_FREQS ).executeQuery();
+			while ( rs.next() ) {
+				freqByWordid.put( rs.getInt(1), rs.getInt(2) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		int[] freqs = new int[words.size()];
+		for ( int i = 0; i < freqs.length; i++ ) {
+			Integer freq = freqByWordid.get( words.get(i).getWordid() );
+			freqs[i] = freq != null ? freq : 0;
+		}
+		LemmaPrefixIndex index = new LemmaPrefixIndex( words, freqs );
+		long t1 = System.currentTimeMillis();
+		if (BENCHMARK) System.out.println( "LemmaPrefixIndex: "+words.size()
+				+" words indexed in "+((double)(t1-t0)/1000D)+" sec." );
+		return index;
+	}
+
+	/**
+	 * Words of one POS (or all) sorted by lemma, with a segment tree that 
+	 * holds the position of the best word of each subtree. Better means 
+	 * more frequent, then earlier in lemma order.
+	 */
+	private static final class Ranking {
+		private final Word[] words;
+		private final String[] lemmas;
+		private final int[] freqs;
+		/** tree[size + i] is leaf i, tree[j] the best of tree[2j] and tree[2j+1] */
+		private final int[] tree;
+		private final int size;
+
+		Ranking( List<Word> all, int[] allFreqs, Integer[] order, POS pos ) {
+			int n = 0;
+			for ( Integer i : order ) {
+				if ( pos == null || all.get(i).getPos() == pos ) n++;
+			}
+			size = n;
+			words = new Word[n];
+			lemmas = new String[n];
+			freqs = new int[n];
+			n = 0;
+			for ( Integer i : order ) {
+				Word word = all.get(i);
+				if ( pos != null && word.getPos() != pos ) continue;
+				words[n] = word;
+				lemmas[n] = word.getLemma();
+				freqs[n] = allFreqs[i];
+				n++;
+			}
+			tree = new int[2*size];
+			for ( int i = 0; i < size; i++ ) {
+				tree[size+i] = i;
+			}
+			for ( int j = size-1; j > 0; j-- ) {
+				tree[j] = better( tree[2*j], tree[2*j+1] );
+			}
+		}
+
+		private int better( int i, int j ) {
+			if ( i < 0 ) return j;
+			if ( j < 0 ) return i;
+			if ( freqs[i] != freqs[j] ) return freqs[i] > freqs[j] ? i : j;
+			return i < j ? i : j;
+		}
+
+		/**
+		 * @return position of the best word in [from, to), or -1 if the range is empty
+		 */
+		private int best( int from, int to ) {
+			int result = -1;
+			for ( from += size, to += size; from < to; from >>= 1, to >>= 1 ) {
+				if ( (from & 1) == 1 ) result = better( result, tree[from++] );
+				if ( (to & 1) == 1 ) result = better( result, tree[--to] );
+			}
+			return result;
+		}
+
+		List<Word> top( String prefix, int limit ) {
+			if ( prefix == null || limit <= 0 ) return Collections.emptyList();
+			int from = lowerBound( prefix );
+			int to = from;
+			for ( int hi = size; to < hi; ) {
+				int mid = (to + hi) >>> 1;
+				if ( lemmas[mid].startsWith( prefix ) ) to = mid+1;
+				else hi = mid;
+			}
+			limit = Math.min( limit, to - from );
+			List<Word> results = new ArrayList<Word>( limit );
+			// bounded heap of subranges (best, from, to), best on top
+			int[] heap = new int[3*(limit+1)];
+			int heapSize = push( heap, 0, best( from, to ), from, to );
+			while ( heapSize > 0 && results.size() < limit ) {
+				int top = heap[0];
+				int topFrom = heap[1];
+				int topTo = heap[2];
+				heapSize = pop( heap, heapSize );
+				results.add( words[top] );
+				heapSize = push( heap, heapSize, best( topFrom, top ), topFrom, top );
+				heapSize = push( heap, heapSize, best( top+1, topTo ), top+1, topTo );
+			}
+			return Collections.unmodifiableList( results );
+		}
+
+		private int lowerBound( String prefix ) {
+			int lo = 0;
+			int hi = size;
+			while ( lo < hi ) {
+				int mid = (lo + hi) >>> 1;
+				if ( lemmas[mid].compareTo( prefix ) < 0 ) lo = mid+1;
+				else hi = mid;
+			}
+			return lo;
+		}
+
+		/**
+		 * Adds a subrange unless it is empty; the heap holds at most limit+1 of them.
+		 * @return new heap size
+		 */
+		private int push( int[] heap, int heapSize, int best, int from, int to ) {
+			if ( best < 0 || 3*heapSize == heap.length ) return heapSize;
+			int k = heapSize;
+			while ( k > 0 ) {
+				int parent = (k-1) >>> 1;
+				if ( better( heap[3*parent], best ) == heap[3*parent] ) break;
+				set( heap, k, heap[3*parent], heap[3*parent+1], heap[3*parent+2] );
+				k = parent;
+			}
+			set( heap, k, best, from, to );
+			return heapSize+1;
+		}
+
+		/**
+		 * Removes the top subrange.
+		 * @return new heap size
+		 */
+		private int pop( int[] heap, int heapSize ) {
+			heapSize--;
+			int best = heap[3*heapSize];
+			int from = heap[3*heapSize+1];
+			int to = heap[3*heapSize+2];
+			int k = 0;
+			while ( 2*k+1 < heapSize ) {
+				int child = 2*k+1;
+				if ( child+1 < heapSize && better( heap[3*child], heap[3*child+3] ) != heap[3*child] ) child++;
+				if ( better( best, heap[3*child] ) == best ) break;
+				set( heap, k, heap[3*child], heap[3*child+1], heap[3*child+2] );
+				k = child;
+			}
+			set( heap, k, best, from, to );
+			return heapSize;
+		}
+
+		private static void set( int[] heap, int k, int best, int from, int to ) {
+			heap[3*k] = best;
+			heap[3*k+1] = from;
+			heap[3*k+2] = to;
+		}
+	}
+}
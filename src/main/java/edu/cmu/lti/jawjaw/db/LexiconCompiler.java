@@ -0,0 +1,435 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * Compiles the WordNet DB into the binary lexicon file used by
+ * {@link MappedLexiconEngine} (see {@link LexiconFormat} for the layout).
+ * <pre>
+ * java edu.cmu.lti.jawjaw.db.LexiconCompiler wnjpn.lex [path/to/wnjpn.db]
+ * </pre>
+ * Without a DB path, the DB configured in jawjaw.conf is compiled.
+ */
+public class LexiconCompiler {
+
+	private final List<Word> words = new ArrayList<Word>();
+	private final List<Sense> senses = new ArrayList<Sense>();
+	// synset, pos, name, src (read raw; Synset may query the DAO lazily)
+	private final List<String[]> synsets = new ArrayList<String[]>();
+	private final List<SynsetDef> synsetDefs = new ArrayList<SynsetDef>();
+	private final List<Synlink> synlinks = new ArrayList<Synlink>();
+
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream( poolBytes );
+	private final Map<String,Integer> refs = new HashMap<String,Integer>();
+
+	public static void main( String[] args ) throws Exception {
+		if ( args.length < 1 ) {
+			System.err.println( "Usage: LexiconCompiler <output.lex> [path/to/wnjpn.db]" );
+			System.exit(1);
+		}
+		Connection connection;
+		if ( args.length > 1 ) {
+			Class.forName( "org.sqlite.JDBC" );
+			connection = DriverManager.getConnection( "jdbc:sqlite:"+args[1] );
+		} else {
+			connection = SQL.getInstance().getConnection();
+		}
+		long t0 = System.currentTimeMillis();
+		LexiconCompiler compiler = new LexiconCompiler();
+		compiler.read( connection );
+		File output = new File( args[0] );
+		compiler.write( output );
+		long t1 = System.currentTimeMillis();
+		System.out.println( "Compiled "+compiler.words.size()+" words, "+compiler.senses.size()
+				+" senses, "+compiler.synsets.size()+" synsets into "+output+" ("
+				+output.length()+" bytes) in "+((double)(t1-t0)/1000D)+" sec." );
+	}
+
+	/**
+	 * Reads all tables.
+	 * @param connection connection to the WordNet DB
+	 * @throws SQLException
+	 */
+	public void read( Connection connection ) throws SQLException {
+		ResultSet rs = query( connection, SQLQuery.FIND_ALL_WORDS );
+		while ( rs.next() ) addWord( WordDAO.rsToObject(rs) );
+		close( rs );
+		rs = query( connection, SQLQuery.FIND_ALL_SENSES );
+		while ( rs.next() ) addSense( SenseDAO.rsToObject(rs) );
+		close( rs );
+		rs = query( connection, SQLQuery.FIND_ALL_SYNSETS );
+		while ( rs.next() ) {
+			addSynset( rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4) );
+		}
+		close( rs );
+		rs = query( connection, SQLQuery.FIND_ALL_SYNSET_DEFS );
+		while ( rs.next() ) addSynsetDef( SynsetDefDAO.rsToObject(rs) );
+		close( rs );
+		rs = query( connection, SQLQuery.FIND_ALL_SYNLINKS );
+		while ( rs.next() ) addSynlink( SynlinkDAO.rsToObject(rs) );
+		close( rs );
+	}
+
+	void addWord( Word word ) {
+		words.add( word );
+	}
+
+	void addSense( Sense sense ) {
+		senses.add( sense );
+	}
+
+	void addSynset( String synset, String pos, String name, String src ) {
+		synsets.add( new String[]{ synset, pos, name, src } );
+	}
+
+	void addSynsetDef( SynsetDef synsetDef ) {
+		synsetDefs.add( synsetDef );
+	}
+
+	void addSynlink( Synlink synlink ) {
+		synlinks.add( synlink );
+	}
+
+	private ResultSet query( Connection connection, SQLQuery query ) throws SQLException {
+		PreparedStatement ps = connection.prepareStatement( query.getQueryText() );
+		return ps.executeQuery();
+	}
+
+	private void close( ResultSet rs ) throws SQLException {
+		Statement s = rs.getStatement();
+		rs.close();
+		s.close();
+	}
+
+	/**
+	 * Writes the lexicon file.
+	 * @param file output
+	 * @throws IOException
+	 */
+	public void write( File file ) throws IOException {
+		Section[] sections = new Section[LexiconFormat.SECTIONS];
+		for ( int i = 0; i < sections.length; i++ ) sections[i] = new Section();
+		
+		Collections.sort( words, new Comparator<Word>() {
+			public int compare( Word a, Word b ) {
+				return a.getWordid() < b.getWordid() ? -1 : (a.getWordid() == b.getWordid() ? 0 : 1);
+			}
+		});
+		int[] wordids = new int[words.size()];
+		for ( int row = 0; row < words.size(); row++ ) {
+			Word w = words.get(row);
+			wordids[row] = w.getWordid();
+			DataOutputStream out = sections[LexiconFormat.WORDS].out;
+			out.writeInt( w.getWordid() );
+			out.writeInt( ref( w.getLemma() ) );
+			out.writeInt( ref( w.getPron() ) );
+			out.writeByte( LexiconFormat.code( w.getLang() ) );
+			out.writeByte( LexiconFormat.code( w.getPos() ) );
+			out.writeShort( 0 );
+		}
+		
+		// synset keys: every synset id appearing in any table
+		final Map<String,Integer> synsetKeys = sortedKeys( synsetIds() );
+		int keyCount = synsetKeys.size();
+		
+		List<Integer> senseOrder = order( senses.size(), new Comparator<Integer>() {
+			public int compare( Integer a, Integer b ) {
+				return synsetKeys.get( senses.get(a).getSynset() ) - synsetKeys.get( senses.get(b).getSynset() );
+			}
+		});
+		int[] senseStarts = new int[keyCount + 1];
+		int[] senseRowOf = new int[senses.size()];
+		for ( int row = 0; row < senseOrder.size(); row++ ) {
+			Sense s = senses.get( senseOrder.get(row) );
+			senseRowOf[senseOrder.get(row)] = row;
+			senseStarts[synsetKeys.get( s.getSynset() ) + 1]++;
+			DataOutputStream out = sections[LexiconFormat.SENSES].out;
+			out.writeInt( ref( s.getSynset() ) );
+			out.writeInt( s.getWordid() );
+			out.writeInt( s.getRank() );
+			out.writeInt( s.getLexid() );
+			out.writeInt( s.getFreq() );
+			out.writeInt( ref( s.getSrc() ) );
+			out.writeByte( LexiconFormat.code( s.getLang() ) );
+			out.writeByte( 0 );
+			out.writeShort( 0 );
+		}
+		
+		List<Integer> synsetOrder = order( synsets.size(), new Comparator<Integer>() {
+			public int compare( Integer a, Integer b ) {
+				return synsetKeys.get( synsets.get(a)[0] ) - synsetKeys.get( synsets.get(b)[0] );
+			}
+		});
+		int[] synsetRowOfKey = new int[keyCount];
+		Arrays.fill( synsetRowOfKey, -1 );
+		int[] synsetRowOf = new int[synsets.size()];
+		for ( int row = 0; row < synsetOrder.size(); row++ ) {
+			String[] s = synsets.get( synsetOrder.get(row) );
+			synsetRowOf[synsetOrder.get(row)] = row;
+			int key = synsetKeys.get( s[0] );
+			if ( synsetRowOfKey[key] < 0 ) synsetRowOfKey[key] = row;
+			DataOutputStream out = sections[LexiconFormat.SYNSETS].out;
+			out.writeInt( ref( s[0] ) );
+			out.writeInt( ref( s[2] ) );
+			out.writeInt( ref( s[3] ) );
+			out.writeByte( s[1] == null ? 0 : LexiconFormat.code( POS.valueOf( s[1] ) ) );
+			out.writeByte( 0 );
+			out.writeShort( 0 );
+		}
+		
+		List<Integer> defOrder = order( synsetDefs.size(), new Comparator<Integer>() {
+			public int compare( Integer a, Integer b ) {
+				return synsetKeys.get( synsetDefs.get(a).getSynset() ) - synsetKeys.get( synsetDefs.get(b).getSynset() );
+			}
+		});
+		int[] defStarts = new int[keyCount + 1];
+		for ( int i : defOrder ) {
+			SynsetDef d = synsetDefs.get(i);
+			defStarts[synsetKeys.get( d.getSynset() ) + 1]++;
+			DataOutputStream out = sections[LexiconFormat.SYNSET_DEFS].out;
+			out.writeInt( ref( d.getSynset() ) );
+			out.writeInt( ref( d.getDef() ) );
+			out.writeInt( d.getSid() );
+			out.writeByte( LexiconFormat.code( d.getLang() ) );
+			out.writeByte( 0 );
+			out.writeShort( 0 );
+		}
+		
+		List<Integer> linkOrder = order( synlinks.size(), new Comparator<Integer>() {
+			public int compare( Integer a, Integer b ) {
+				Synlink x = synlinks.get(a);
+				Synlink y = synlinks.get(b);
+				int d = synsetKeys.get( x.getSynset1() ) - synsetKeys.get( y.getSynset1() );
+				return d != 0 ? d : LexiconFormat.code( x.getLink() ) - LexiconFormat.code( y.getLink() );
+			}
+		});
+		int[] linkStarts = new int[keyCount + 1];
+		for ( int i : linkOrder ) {
+			Synlink l = synlinks.get(i);
+			linkStarts[synsetKeys.get( l.getSynset1() ) + 1]++;
+			DataOutputStream out = sections[LexiconFormat.SYNLINKS].out;
+			out.writeInt( ref( l.getSynset1() ) );
+			out.writeInt( ref( l.getSynset2() ) );
+			out.writeInt( ref( l.getSrc() ) );
+			out.writeByte( LexiconFormat.code( l.getLink() ) );
+			out.writeByte( 0 );
+			out.writeShort( 0 );
+		}
+		
+		for ( int k = 0; k < keyCount; k++ ) {
+			senseStarts[k + 1] += senseStarts[k];
+			defStarts[k + 1] += defStarts[k];
+			linkStarts[k + 1] += linkStarts[k];
+		}
+		int k = 0;
+		for ( String key : synsetKeys.keySet() ) {
+			DataOutputStream out = sections[LexiconFormat.SYNSET_KEYS].out;
+			out.writeInt( ref( key ) );
+			out.writeInt( synsetRowOfKey[k] );
+			out.writeInt( senseStarts[k] );
+			out.writeInt( defStarts[k] );
+			out.writeInt( linkStarts[k] );
+			k++;
+		}
+		DataOutputStream keysOut = sections[LexiconFormat.SYNSET_KEYS].out;
+		keysOut.writeInt( -1 );
+		keysOut.writeInt( -1 );
+		keysOut.writeInt( senseStarts[keyCount] );
+		keysOut.writeInt( defStarts[keyCount] );
+		keysOut.writeInt( linkStarts[keyCount] );
+		
+		// lemma -> word rows
+		Map<String,List<Integer>> lemmaRows = new HashMap<String,List<Integer>>();
+		for ( int row = 0; row < words.size(); row++ ) {
+			add( lemmaRows, words.get(row).getLemma(), row );
+		}
+		writePostings( lemmaRows, sections[LexiconFormat.LEMMA_KEYS].out, 
+				sections[LexiconFormat.LEMMA_POSTINGS].out );
+		
+		// word row -> sense rows
+		List<List<Integer>> wordSenses = new ArrayList<List<Integer>>( words.size() );
+		for ( int row = 0; row < words.size(); row++ ) wordSenses.add( new ArrayList<Integer>(2) );
+		for ( int i : senseOrder ) {
+			int row = Arrays.binarySearch( wordids, senses.get(i).getWordid() );
+			if ( row >= 0 ) wordSenses.get(row).add( senseRowOf[i] );
+		}
+		int start = 0;
+		for ( List<Integer> rows : wordSenses ) {
+			sections[LexiconFormat.WORD_SENSES].out.writeInt( start );
+			for ( int row : rows ) sections[LexiconFormat.SENSE_POSTINGS].out.writeInt( row );
+			start += rows.size();
+		}
+		sections[LexiconFormat.WORD_SENSES].out.writeInt( start );
+		
+		// synset name -> synset rows
+		Map<String,List<Integer>> nameRows = new HashMap<String,List<Integer>>();
+		for ( int i : synsetOrder ) {
+			add( nameRows, synsets.get(i)[2], synsetRowOf[i] );
+		}
+		writePostings( nameRows, sections[LexiconFormat.NAME_KEYS].out, 
+				sections[LexiconFormat.NAME_POSTINGS].out );
+		
+		pool.flush();
+		sections[LexiconFormat.POOL].bytes = poolBytes;
+		writeFile( file, sections );
+	}
+
+	private void writeFile( File file, Section[] sections ) throws IOException {
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream( bodyBytes );
+		int offset = LexiconFormat.HEADER_SIZE + sections.length * 8;
+		for ( Section section : sections ) {
+			section.out.flush();
+			body.writeInt( offset );
+			body.writeInt( section.bytes.size() );
+			offset += align( section.bytes.size() );
+		}
+		for ( Section section : sections ) {
+			section.bytes.writeTo( body );
+			for ( int i = section.bytes.size(); i < align( section.bytes.size() ); i++ ) body.writeByte( 0 );
+		}
+		body.flush();
+		byte[] data = bodyBytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update( data );
+		
+		OutputStream os = new FileOutputStream( file );
+		try {
+			DataOutputStream out = new DataOutputStream( os );
+			out.writeInt( LexiconFormat.MAGIC );
+			out.writeInt( LexiconFormat.VERSION );
+			out.writeInt( sections.length );
+			out.writeInt( data.length );
+			out.writeInt( (int)crc.getValue() );
+			for ( int i = 20; i < LexiconFormat.HEADER_SIZE; i++ ) out.writeByte( 0 );
+			out.write( data );
+			out.flush();
+		} finally {
+			os.close();
+		}
+	}
+
+	private static int align( int size ) {
+		return (size + 3) & ~3;
+	}
+
+	private void writePostings( Map<String,List<Integer>> rowsByKey, 
+			DataOutputStream keys, DataOutputStream postings ) throws IOException {
+		Map<String,Integer> sorted = sortedKeys( rowsByKey.keySet() );
+		int start = 0;
+		for ( String key : sorted.keySet() ) {
+			keys.writeInt( ref( key ) );
+			keys.writeInt( start );
+			for ( int row : rowsByKey.get( key ) ) postings.writeInt( row );
+			start += rowsByKey.get( key ).size();
+		}
+		keys.writeInt( -1 );
+		keys.writeInt( start );
+	}
+
+	private List<String> synsetIds() {
+		List<String> ids = new ArrayList<String>();
+		for ( String[] s : synsets ) ids.add( s[0] );
+		for ( Sense s : senses ) ids.add( s.getSynset() );
+		for ( SynsetDef d : synsetDefs ) ids.add( d.getSynset() );
+		for ( Synlink l : synlinks ) ids.add( l.getSynset1() );
+		return ids;
+	}
+
+	/**
+	 * @return distinct non-null keys in file order, mapped to their rank
+	 */
+	private static Map<String,Integer> sortedKeys( Collection<String> keys ) {
+		final Map<String,byte[]> bytes = new HashMap<String,byte[]>();
+		for ( String key : keys ) {
+			if ( key != null && !bytes.containsKey( key ) ) bytes.put( key, key.getBytes( LexiconFormat.UTF8 ) );
+		}
+		List<String> distinct = new ArrayList<String>( bytes.keySet() );
+		Collections.sort( distinct, new Comparator<String>() {
+			public int compare( String a, String b ) {
+				return LexiconFormat.compare( bytes.get(a), bytes.get(b) );
+			}
+		});
+		Map<String,Integer> sorted = new LinkedHashMap<String,Integer>( distinct.size() * 2 );
+		for ( String key : distinct ) sorted.put( key, sorted.size() );
+		return sorted;
+	}
+
+	private static List<Integer> order( int size, Comparator<Integer> comparator ) {
+		List<Integer> order = new ArrayList<Integer>( size );
+		for ( int i = 0; i < size; i++ ) order.add( i );
+		Collections.sort( order, comparator ); // stable
+		return order;
+	}
+
+	private static void add( Map<String,List<Integer>> map, String key, int row ) {
+		if ( key == null ) return;
+		List<Integer> rows = map.get( key );
+		if ( rows == null ) {
+			rows = new ArrayList<Integer>(1);
+			map.put( key, rows );
+		}
+		rows.add( row );
+	}
+
+	private int ref( String s ) throws IOException {
+		if ( s == null ) return -1;
+		Integer ref = refs.get( s );
+		if ( ref == null ) {
+			ref = pool.size();
+			byte[] bytes = s.getBytes( LexiconFormat.UTF8 );
+			pool.writeInt( bytes.length );
+			pool.write( bytes );
+			refs.put( s, ref );
+		}
+		return ref;
+	}
+
+	private static final class Section {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream( bytes );
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * A backend that answers the DAO lookups without going through JDBC.
+ * Arguments are already normalized by the DAOs (e.g. canonicalized lemmas).
+ * Returned records are frozen and returned lists are unmodifiable.
+ * 
+ * @see LexiconEngineFactory
+ */
+public interface LexiconEngine {
+
+	List<Word> findWordsByLemma( String lemma );
+	
+	List<Word> findWordsByLemmaAndPos( String lemma, POS pos );
+	
+	/**
+	 * @return the word, or null if not found
+	 */
+	Word findWordByWordid( int wordid );
+	
+	List<Sense> findSensesBySynset( String synset );
+	
+	List<Sense> findSensesByWordid( int wordid );
+	
+	List<Sense> findSensesBySynsetAndLang( String synset, Lang lang );
+	
+	/**
+	 * @return the synset, or null if not found
+	 */
+	Synset findSynsetBySynset( String synset );
+	
+	List<Synset> findSynsetsByName( String name );
+	
+	List<Synset> findSynsetsByNameAndPos( String name, POS pos );
+	
+	/**
+	 * @return the definition, or null if not found
+	 */
+	SynsetDef findSynsetDefBySynsetAndLang( String synset, Lang lang );
+	
+	List<Synlink> findSynlinksBySynset( String synset );
+	
+	List<Synlink> findSynlinksBySynsetAndLink( String synset, Link link );
+	
+	List<Synlink> findSynlinksByTargetSynset( String synset );
+	
+	List<Synlink> findSynlinksByTargetSynsetAndLink( String synset, Link link );
+}
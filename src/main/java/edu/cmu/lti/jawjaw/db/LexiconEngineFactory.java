@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.cmu.lti.jawjaw.util.Configuration;
+
+/**
+ * Selects the lexicon backend from the "engine" configuration:
+ * <ul>
+ * <li>sqlite: the DAOs query the database (default)</li>
+ * <li>heap: {@link HeapLexiconEngine}</li>
+ * <li>mmap: {@link MappedLexiconEngine} over the "lexiconFile"</li>
+ * </ul>
+ */
+public class LexiconEngineFactory {
+
+	private static volatile LexiconEngine engine;
+	private static volatile boolean resolved;
+
+	/**
+	 * @return the configured engine, or null when the DAOs query SQLite themselves
+	 */
+	public static LexiconEngine getEngine() {
+		if ( !resolved ) {
+			synchronized ( LexiconEngineFactory.class ) {
+				if ( !resolved ) {
+					engine = newEngine( Configuration.getInstance().getEngine() );
+					resolved = true;
+				}
+			}
+		}
+		return engine;
+	}
+
+	private static LexiconEngine newEngine( String name ) {
+		if ( name == null || name.equalsIgnoreCase("sqlite") ) {
+			return null;
+		} else if ( name.equalsIgnoreCase("heap") ) {
+			return HeapLexiconEngine.getInstance();
+		} else if ( name.equalsIgnoreCase("mmap") ) {
+			File file = new File( Configuration.getInstance().getLexiconFile() );
+			try {
+				return MappedLexiconEngine.open( file );
+			} catch ( IOException e ) {
+				e.printStackTrace();
+				System.err.println( "ERROR: Could not open "+file.getAbsolutePath()
+						+", using sqlite. Create it with LexiconCompiler." );
+				return null;
+			}
+		}
+		System.err.println( "Unknown engine \""+name+"\", using sqlite" );
+		return null;
+	}
+}
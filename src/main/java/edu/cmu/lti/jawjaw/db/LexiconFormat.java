@@ -0,0 +1,113 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.nio.charset.Charset;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+
+/**
+ * Layout of the compiled lexicon file written by {@link LexiconCompiler} 
+ * and mapped by {@link MappedLexiconEngine}. All numbers are big-endian.
+ * <pre>
+ * header (32 bytes): magic, version, section count, body length, CRC32 of body
+ * body: section table (offset, length per section), then the sections
+ * </pre>
+ * Strings live in the POOL section as (byte length, UTF-8 bytes) and are 
+ * referenced by their offset, -1 for null. Enums are stored as ordinal+1, 
+ * 0 for null. Key blocks are sorted by the unsigned UTF-8 bytes of the 
+ * key and end with a sentinel entry, so that the range of entry i is 
+ * [start(i), start(i+1)).
+ */
+final class LexiconFormat {
+
+	static final int MAGIC = 0x4A574C58; // "JWLX"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// sections, in file order
+	static final int POOL = 0;
+	/** wordid, lemma, pron, lang, pos; sorted by wordid */
+	static final int WORDS = 1;
+	/** synset, wordid, rank, lexid, freq, src, lang; grouped by synset key */
+	static final int SENSES = 2;
+	/** synset, name, src, pos; sorted by synset */
+	static final int SYNSETS = 3;
+	/** synset, def, sid, lang; grouped by synset key */
+	static final int SYNSET_DEFS = 4;
+	/** synset1, synset2, src, link; grouped by synset key, then by link */
+	static final int SYNLINKS = 5;
+	/** synset, synset row or -1, first sense, first def, first synlink */
+	static final int SYNSET_KEYS = 6;
+	/** lemma, first posting */
+	static final int LEMMA_KEYS = 7;
+	/** word rows */
+	static final int LEMMA_POSTINGS = 8;
+	/** first posting per word row, plus a sentinel */
+	static final int WORD_SENSES = 9;
+	/** sense rows */
+	static final int SENSE_POSTINGS = 10;
+	/** synset name, first posting */
+	static final int NAME_KEYS = 11;
+	/** synset rows */
+	static final int NAME_POSTINGS = 12;
+	static final int SECTIONS = 13;
+
+	static final int WORD_SIZE = 16;
+	static final int SENSE_SIZE = 28;
+	static final int SYNSET_SIZE = 16;
+	static final int SYNSET_DEF_SIZE = 16;
+	static final int SYNLINK_SIZE = 16;
+	static final int SYNSET_KEY_SIZE = 20;
+	static final int KEY_SIZE = 8;
+
+	private static final Lang[] LANGS = Lang.values();
+	private static final POS[] POSES = POS.values();
+	private static final Link[] LINKS = Link.values();
+
+	private LexiconFormat() {}
+
+	static byte code( Enum<?> e ) {
+		return (byte)( e == null ? 0 : e.ordinal() + 1 );
+	}
+
+	static Lang lang( byte code ) {
+		return code == 0 ? null : LANGS[code - 1];
+	}
+
+	static POS pos( byte code ) {
+		return code == 0 ? null : POSES[code - 1];
+	}
+
+	static Link link( byte code ) {
+		return code == 0 ? null : LINKS[code - 1];
+	}
+
+	/**
+	 * Key order of the file: unsigned lexicographic order of UTF-8 bytes.
+	 */
+	static int compare( byte[] a, byte[] b ) {
+		int n = Math.min( a.length, b.length );
+		for ( int i = 0; i < n; i++ ) {
+			int d = (a[i] & 0xff) - (b[i] & 0xff);
+			if ( d != 0 ) return d;
+		}
+		return a.length - b.length;
+	}
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * Lexicon engine over a file compiled by {@link LexiconCompiler}. The file 
+ * is memory-mapped read-only and lookups binary-search the sorted key 
+ * blocks in place; only the returned records are decoded. Opening takes 
+ * a checksum pass over the file, and processes mapping the same file 
+ * share one copy in the OS page cache.
+ */
+public final class MappedLexiconEngine implements LexiconEngine {
+
+	private final ByteBuffer pool;
+	private final ByteBuffer words;
+	private final ByteBuffer senses;
+	private final ByteBuffer synsets;
+	private final ByteBuffer synsetDefs;
+	private final ByteBuffer synlinks;
+	private final ByteBuffer synsetKeys;
+	private final ByteBuffer lemmaKeys;
+	private final ByteBuffer lemmaPostings;
+	private final ByteBuffer wordSenses;
+	private final ByteBuffer sensePostings;
+	private final ByteBuffer nameKeys;
+	private final ByteBuffer namePostings;
+	private final int wordCount;
+	private final int synsetKeyCount;
+	private final int lemmaKeyCount;
+	private final int nameKeyCount;
+	/** rows take the low 24 bits of a reverse index entry */
+	private static final int ROW_MASK = 0xffffff;
+	/** built on the first reverse lookup, see {@link #reverseIndex()} */
+	private volatile ReverseIndex reverse;
+
+	private MappedLexiconEngine( ByteBuffer buffer ) {
+		ByteBuffer[] sections = new ByteBuffer[LexiconFormat.SECTIONS];
+		for ( int i = 0; i < sections.length; i++ ) {
+			int offset = buffer.getInt( LexiconFormat.HEADER_SIZE + i*8 );
+			int length = buffer.getInt( LexiconFormat.HEADER_SIZE + i*8 + 4 );
+			ByteBuffer section = buffer.duplicate();
+			section.position( offset );
+			section.limit( offset + length );
+			sections[i] = section.slice();
+		}
+		pool = sections[LexiconFormat.POOL];
+		words = sections[LexiconFormat.WORDS];
+		senses = sections[LexiconFormat.SENSES];
+		synsets = sections[LexiconFormat.SYNSETS];
+		synsetDefs = sections[LexiconFormat.SYNSET_DEFS];
+		synlinks = sections[LexiconFormat.SYNLINKS];
+		synsetKeys = sections[LexiconFormat.SYNSET_KEYS];
+		lemmaKeys = sections[LexiconFormat.LEMMA_KEYS];
+		lemmaPostings = sections[LexiconFormat.LEMMA_POSTINGS];
+		wordSenses = sections[LexiconFormat.WORD_SENSES];
+		sensePostings = sections[LexiconFormat.SENSE_POSTINGS];
+		nameKeys = sections[LexiconFormat.NAME_KEYS];
+		namePostings = sections[LexiconFormat.NAME_POSTINGS];
+		wordCount = words.capacity() / LexiconFormat.WORD_SIZE;
+		synsetKeyCount = synsetKeys.capacity() / LexiconFormat.SYNSET_KEY_SIZE - 1;
+		lemmaKeyCount = lemmaKeys.capacity() / LexiconFormat.KEY_SIZE - 1;
+		nameKeyCount = nameKeys.capacity() / LexiconFormat.KEY_SIZE - 1;
+	}
+
+	/**
+	 * Maps and validates a compiled lexicon.
+	 * @param file lexicon file
+	 * @return engine
+	 * @throws IOException if the file can't be read, or is not a lexicon 
+	 *  of the supported version, or is corrupted
+	 */
+	public static MappedLexiconEngine open( File file ) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile( file, "r" );
+		MappedByteBuffer buffer;
+		try {
+			FileChannel channel = raf.getChannel();
+			if ( channel.size() < LexiconFormat.HEADER_SIZE ) {
+				throw new IOException( "Not a jawjaw lexicon: "+file );
+			}
+			buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+		} finally {
+			raf.close(); // the mapping stays valid
+		}
+		if ( buffer.getInt(0) != LexiconFormat.MAGIC ) {
+			throw new IOException( "Not a jawjaw lexicon: "+file );
+		}
+		if ( buffer.getInt(4) != LexiconFormat.VERSION ) {
+			throw new IOException( "Unsupported lexicon version "+buffer.getInt(4)
+					+" (expected "+LexiconFormat.VERSION+"), recompile "+file );
+		}
+		int bodyLength = buffer.getInt(12);
+		if ( buffer.getInt(8) != LexiconFormat.SECTIONS 
+				|| (long)LexiconFormat.HEADER_SIZE + bodyLength != buffer.capacity() ) {
+			throw new IOException( "Truncated or corrupted lexicon: "+file );
+		}
+		if ( checksum( buffer, LexiconFormat.HEADER_SIZE, bodyLength ) != buffer.getInt(16) ) {
+			throw new IOException( "Checksum mismatch in lexicon: "+file );
+		}
+		return new MappedLexiconEngine( buffer );
+	}
+
+	private static int checksum( ByteBuffer buffer, int offset, int length ) {
+		CRC32 crc = new CRC32();
+		ByteBuffer b = buffer.duplicate();
+		b.position( offset );
+		byte[] chunk = new byte[64*1024];
+		for ( int remaining = length; remaining > 0; ) {
+			int n = Math.min( remaining, chunk.length );
+			b.get( chunk, 0, n );
+			crc.update( chunk, 0, n );
+			remaining -= n;
+		}
+		return (int)crc.getValue();
+	}
+
+	public List<Word> findWordsByLemma( String lemma ) {
+		int key = find( lemmaKeys, LexiconFormat.KEY_SIZE, lemmaKeyCount, lemma );
+		if ( key < 0 ) return Collections.emptyList();
+		int from = lemmaKeys.getInt( key * LexiconFormat.KEY_SIZE + 4 );
+		int to = lemmaKeys.getInt( (key+1) * LexiconFormat.KEY_SIZE + 4 );
+		List<Word> results = new ArrayList<Word>( to - from );
+		for ( int i = from; i < to; i++ ) {
+			results.add( word( lemmaPostings.getInt( i*4 ) ) );
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	public List<Word> findWordsByLemmaAndPos( String lemma, POS pos ) {
+		int key = find( lemmaKeys, LexiconFormat.KEY_SIZE, lemmaKeyCount, lemma );
+		if ( key < 0 ) return Collections.emptyList();
+		int from = lemmaKeys.getInt( key * LexiconFormat.KEY_SIZE + 4 );
+		int to = lemmaKeys.getInt( (key+1) * LexiconFormat.KEY_SIZE + 4 );
+		byte code = LexiconFormat.code( pos );
+		List<Word> results = new ArrayList<Word>( to - from );
+		for ( int i = from; i < to; i++ ) {
+			int row = lemmaPostings.getInt( i*4 );
+			if ( words.get( row * LexiconFormat.WORD_SIZE + 13 ) == code ) {
+				results.add( word( row ) );
+			}
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	public Word findWordByWordid( int wordid ) {
+		int row = findWordRow( wordid );
+		return row >= 0 ? word( row ) : null;
+	}
+
+	public List<Sense> findSensesBySynset( String synset ) {
+		return senses( synset, null );
+	}
+
+	public List<Sense> findSensesByWordid( int wordid ) {
+		int row = findWordRow( wordid );
+		if ( row < 0 ) return Collections.emptyList();
+		int from = wordSenses.getInt( row*4 );
+		int to = wordSenses.getInt( (row+1)*4 );
+		List<Sense> results = new ArrayList<Sense>( to - from );
+		for ( int i = from; i < to; i++ ) {
+			results.add( sense( sensePostings.getInt( i*4 ) ) );
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	public List<Sense> findSensesBySynsetAndLang( String synset, Lang lang ) {
+		if ( lang == null ) return Collections.emptyList();
+		return senses( synset, lang );
+	}
+
+	/**
+	 * @param lang language, or null for all
+	 */
+	private List<Sense> senses( String synset, Lang lang ) {
+		int key = find( synsetKeys, LexiconFormat.SYNSET_KEY_SIZE, synsetKeyCount, synset );
+		if ( key < 0 ) return Collections.emptyList();
+		int from = synsetKeys.getInt( key * LexiconFormat.SYNSET_KEY_SIZE + 8 );
+		int to = synsetKeys.getInt( (key+1) * LexiconFormat.SYNSET_KEY_SIZE + 8 );
+		byte code = LexiconFormat.code( lang );
+		List<Sense> results = new ArrayList<Sense>( to - from );
+		for ( int row = from; row < to; row++ ) {
+			if ( lang == null || senses.get( row * LexiconFormat.SENSE_SIZE + 24 ) == code ) {
+				results.add( sense( row ) );
+			}
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	public Synset findSynsetBySynset( String synset ) {
+		int key = find( synsetKeys, LexiconFormat.SYNSET_KEY_SIZE, synsetKeyCount, synset );
+		if ( key < 0 ) return null;
+		int row = synsetKeys.getInt( key * LexiconFormat.SYNSET_KEY_SIZE + 4 );
+		return row >= 0 ? synset( row ) : null;
+	}
+
+	public List<Synset> findSynsetsByName( String name ) {
+		return synsets( name, null );
+	}
+
+	public List<Synset> findSynsetsByNameAndPos( String name, POS pos ) {
+		if ( pos == null ) return Collections.emptyList();
+		return synsets( name, pos );
+	}
+
+	/**
+	 * @param pos part of speech, or null for all
+	 */
+	private List<Synset> synsets( String name, POS pos ) {
+		int key = find( nameKeys, LexiconFormat.KEY_SIZE, nameKeyCount, name );
+		if ( key < 0 ) return Collections.emptyList();
+		int from = nameKeys.getInt( key * LexiconFormat.KEY_SIZE + 4 );
+		int to = nameKeys.getInt( (key+1) * LexiconFormat.KEY_SIZE + 4 );
+		byte code = LexiconFormat.code( pos );
+		List<Synset> results = new ArrayList<Synset>( to - from );
+		for ( int i = from; i < to; i++ ) {
+			int row = namePostings.getInt( i*4 );
+			if ( pos == null || synsets.get( row * LexiconFormat.SYNSET_SIZE + 12 ) == code ) {
+				results.add( synset( row ) );
+			}
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	public SynsetDef findSynsetDefBySynsetAndLang( String synset, Lang lang ) {
+		int key = find( synsetKeys, LexiconFormat.SYNSET_KEY_SIZE, synsetKeyCount, synset );
+		if ( key < 0 ) return null;
+		int from = synsetKeys.getInt( key * LexiconFormat.SYNSET_KEY_SIZE + 12 );
+		int to = synsetKeys.getInt( (key+1) * LexiconFormat.SYNSET_KEY_SIZE + 12 );
+		byte code = LexiconFormat.code( lang );
+		for ( int row = from; row < to; row++ ) {
+			int base = row * LexiconFormat.SYNSET_DEF_SIZE;
+			if ( synsetDefs.get( base + 12 ) == code ) {
+				return new SynsetDef( string( synsetDefs.getInt( base ) ), lang, 
+						string( synsetDefs.getInt( base + 4 ) ), synsetDefs.getInt( base + 8 ) ).freeze();
+			}
+		}
+		return null;
+	}
+
+	public List<Synlink> findSynlinksBySynset( String synset ) {
+		return synlinks( synset, null );
+	}
+
+	public List<Synlink> findSynlinksBySynsetAndLink( String synset, Link link ) {
+		if ( link == null ) return Collections.emptyList();
+		return synlinks( synset, link );
+	}
+
+	public List<Synlink> findSynlinksByTargetSynset( String synset ) {
+		return synlinksByTarget( synset, null );
+	}
+
+	public List<Synlink> findSynlinksByTargetSynsetAndLink( String synset, Link link ) {
+		if ( link == null ) return Collections.emptyList();
+		return synlinksByTarget( synset, link );
+	}
+
+	/**
+	 * The file has no reverse index; this one is built in memory from the 
+	 * synlink rows on first use and costs 12 bytes per synlink.
+	 */
+	private static final class ReverseIndex {
+		/** target synsets by key order, as pool refs */
+		final int[] targets;
+		/** (target ref, link code, row), sorted */
+		final long[] rows;
+
+		ReverseIndex( int[] targets, long[] rows ) {
+			this.targets = targets;
+			this.rows = rows;
+		}
+	}
+
+	private ReverseIndex reverseIndex() {
+		ReverseIndex index = reverse;
+		if ( index == null ) {
+			// racing threads build equal indexes
+			int total = synlinks.capacity() / LexiconFormat.SYNLINK_SIZE;
+			if ( total > ROW_MASK + 1 ) {
+				throw new IllegalStateException( "Too many synlinks for the reverse index: "+total );
+			}
+			long[] rows = new long[total];
+			int count = 0;
+			for ( int row = 0; row < total; row++ ) {
+				int base = row * LexiconFormat.SYNLINK_SIZE;
+				int target = synlinks.getInt( base + 4 );
+				if ( target < 0 ) continue; // no synset2
+				rows[count++] = (long)target << 32 
+						| ( synlinks.get( base + 12 ) & 0xffL ) << 24 | row;
+			}
+			rows = Arrays.copyOf( rows, count );
+			Arrays.sort( rows );
+			List<Integer> refs = new ArrayList<Integer>();
+			for ( int i = 0; i < count; i++ ) {
+				int ref = (int)( rows[i] >>> 32 );
+				if ( i == 0 || ref != (int)( rows[i-1] >>> 32 ) ) refs.add( ref );
+			}
+			Integer[] sorted = refs.toArray( new Integer[refs.size()] );
+			Arrays.sort( sorted, new Comparator<Integer>() {
+				public int compare( Integer a, Integer b ) {
+					return compareRefs( a, b );
+				}
+			});
+			int[] targets = new int[sorted.length];
+			for ( int i = 0; i < targets.length; i++ ) {
+				targets[i] = sorted[i];
+			}
+			index = new ReverseIndex( targets, rows );
+			reverse = index;
+		}
+		return index;
+	}
+
+	/**
+	 * @param link link type, or null for all
+	 */
+	private List<Synlink> synlinksByTarget( String synset, Link link ) {
+		ReverseIndex index = reverseIndex();
+		if ( synset == null ) return Collections.emptyList();
+		byte[] bytes = synset.getBytes( LexiconFormat.UTF8 );
+		int lo = 0;
+		int hi = index.targets.length - 1;
+		int ref = -1;
+		while ( lo <= hi ) {
+			int mid = (lo + hi) >>> 1;
+			int c = compare( index.targets[mid], bytes );
+			if ( c < 0 ) lo = mid + 1;
+			else if ( c > 0 ) hi = mid - 1;
+			else {
+				ref = index.targets[mid];
+				break;
+			}
+		}
+		if ( ref < 0 ) return Collections.emptyList();
+		long prefix = (long)ref << 32;
+		long from = link == null ? prefix : prefix | ( LexiconFormat.code( link ) & 0xffL ) << 24;
+		long to = link == null ? prefix + ( 1L << 32 ) : from + ( 1L << 24 );
+		List<Synlink> results = new ArrayList<Synlink>();
+		for ( int i = lowerBound( index.rows, from ); i < index.rows.length && index.rows[i] < to; i++ ) {
+			int base = (int)( index.rows[i] & ROW_MASK ) * LexiconFormat.SYNLINK_SIZE;
+			results.add( new Synlink( string( synlinks.getInt( base ) ), string( synlinks.getInt( base + 4 ) ), 
+					LexiconFormat.link( synlinks.get( base + 12 ) ), string( synlinks.getInt( base + 8 ) ) ).freeze() );
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	private static int lowerBound( long[] a, long key ) {
+		int lo = 0;
+		int hi = a.length;
+		while ( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			if ( a[mid] < key ) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * @param link link type, or null for all
+	 */
+	private List<Synlink> synlinks( String synset, Link link ) {
+		int key = find( synsetKeys, LexiconFormat.SYNSET_KEY_SIZE, synsetKeyCount, synset );
+		if ( key < 0 ) return Collections.emptyList();
+		int from = synsetKeys.getInt( key * LexiconFormat.SYNSET_KEY_SIZE + 16 );
+		int to = synsetKeys.getInt( (key+1) * LexiconFormat.SYNSET_KEY_SIZE + 16 );
+		byte code = LexiconFormat.code( link );
+		List<Synlink> results = new ArrayList<Synlink>();
+		for ( int row = from; row < to; row++ ) {
+			int base = row * LexiconFormat.SYNLINK_SIZE;
+			byte c = synlinks.get( base + 12 );
+			if ( link != null && c != code ) {
+				if ( c > code ) break; // sorted by link
+				continue;
+			}
+			results.add( new Synlink( string( synlinks.getInt( base ) ), string( synlinks.getInt( base + 4 ) ), 
+					LexiconFormat.link( c ), string( synlinks.getInt( base + 8 ) ) ).freeze() );
+		}
+		return Collections.unmodifiableList( results );
+	}
+
+	private Word word( int row ) {
+		int base = row * LexiconFormat.WORD_SIZE;
+		return new Word( words.getInt( base ), LexiconFormat.lang( words.get( base + 12 ) ), 
+				string( words.getInt( base + 4 ) ), string( words.getInt( base + 8 ) ), 
+				LexiconFormat.pos( words.get( base + 13 ) ) ).freeze();
+	}
+
+	private Sense sense( int row ) {
+		int base = row * LexiconFormat.SENSE_SIZE;
+		return new Sense( string( senses.getInt( base ) ), senses.getInt( base + 4 ), 
+				LexiconFormat.lang( senses.get( base + 24 ) ), senses.getInt( base + 8 ), 
+				senses.getInt( base + 12 ), senses.getInt( base + 16 ), 
+				string( senses.getInt( base + 20 ) ) ).freeze();
+	}
+
+	private Synset synset( int row ) {
+		int base = row * LexiconFormat.SYNSET_SIZE;
+		return new Synset( string( synsets.getInt( base ) ), LexiconFormat.pos( synsets.get( base + 12 ) ), 
+				string( synsets.getInt( base + 4 ) ), string( synsets.getInt( base + 8 ) ) ).freeze();
+	}
+
+	private int findWordRow( int wordid ) {
+		int lo = 0;
+		int hi = wordCount - 1;
+		while ( lo <= hi ) {
+			int mid = (lo + hi) >>> 1;
+			int v = words.getInt( mid * LexiconFormat.WORD_SIZE );
+			if ( v < wordid ) lo = mid + 1;
+			else if ( v > wordid ) hi = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Binary search in a key block whose entries start with a string reference.
+	 * @return entry index, or -1
+	 */
+	private int find( ByteBuffer keys, int entrySize, int count, String key ) {
+		if ( key == null ) return -1;
+		byte[] bytes = key.getBytes( LexiconFormat.UTF8 );
+		int lo = 0;
+		int hi = count - 1;
+		while ( lo <= hi ) {
+			int mid = (lo + hi) >>> 1;
+			int c = compare( keys.getInt( mid * entrySize ), bytes );
+			if ( c < 0 ) lo = mid + 1;
+			else if ( c > 0 ) hi = mid - 1;
+			else return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares two pooled strings in {@link LexiconFormat#compare(byte[], byte[])} order.
+	 */
+	private int compareRefs( int ref1, int ref2 ) {
+		int length1 = pool.getInt( ref1 );
+		int length2 = pool.getInt( ref2 );
+		int n = Math.min( length1, length2 );
+		for ( int i = 0; i < n; i++ ) {
+			int d = (pool.get( ref1 + 4 + i ) & 0xff) - (pool.get( ref2 + 4 + i ) & 0xff);
+			if ( d != 0 ) return d;
+		}
+		return length1 - length2;
+	}
+
+	/**
+	 * Compares a pooled string with the key in {@link LexiconFormat#compare(byte[], byte[])} order.
+	 */
+	private int compare( int ref, byte[] key ) {
+		int length = pool.getInt( ref );
+		int n = Math.min( length, key.length );
+		for ( int i = 0; i < n; i++ ) {
+			int d = (pool.get( ref + 4 + i ) & 0xff) - (key[i] & 0xff);
+			if ( d != 0 ) return d;
+		}
+		return length - key.length;
+	}
+
+	private String string( int ref ) {
+		if ( ref < 0 ) return null;
+		byte[] bytes = new byte[pool.getInt( ref )];
+		for ( int i = 0; i < bytes.length; i++ ) {
+			bytes[i] = pool.get( ref + 4 + i );
+		}
+		return new String( bytes, LexiconFormat.UTF8 );
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A read-only database connection of the {@link ConnectionPool}, together
+ * with its own prepared statements. A pooled connection is used by one 
+ * thread at a time (between borrowing and releasing it), so its statements 
+ * need no further synchronization.
+ */
+public class PooledConnection {
+
+	private final Connection connection;
+	private final Map<SQLQuery, PreparedStatement> statements = 
+		new EnumMap<SQLQuery, PreparedStatement>( SQLQuery.class );
+
+	PooledConnection( Connection connection ) {
+		this.connection = connection;
+	}
+
+	/**
+	 * Returns the statement for the query, preparing it on first use.
+	 * Each call is counted as one query in {@link QueryStats}.
+	 * @param query query
+	 * @return prepared statement owned by this connection
+	 * @throws SQLException
+	 */
+	public PreparedStatement getPreparedStatement( SQLQuery query ) throws SQLException {
+		QueryStats.increment();
+		PreparedStatement ps = statements.get( query );
+		if ( ps == null ) {
+			ps = connection.prepareStatement( query.getQueryText() );
+			statements.put( query, ps );
+		}
+		return ps;
+	}
+
+	/**
+	 * @return the underlying connection
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+
+	void close() {
+		try {
+			for ( PreparedStatement ps : statements.values() ) {
+				ps.close();
+			}
+			statements.clear();
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				connection.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+/**
+ * Counts the SQL statements executed by the current thread, e.g. to 
+ * check how many queries a facade call costs:
+ * <pre>
+ * QueryStats.reset();
+ * JAWJAW.findHypernyms( "dog", POS.n );
+ * int queries = QueryStats.getQueryCount();
+ * </pre>
+ * Cache hits and lookups answered by a {@link LexiconEngine} cost no query.
+ */
+public final class QueryStats {
+
+	private static final ThreadLocal<int[]> count = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	private QueryStats() {}
+
+	static void increment() {
+		count.get()[0]++;
+	}
+
+	/**
+	 * @return number of statements executed by this thread since the last reset
+	 */
+	public static int getQueryCount() {
+		return count.get()[0];
+	}
+
+	/**
+	 * Sets the count of this thread to zero.
+	 */
+	public static void reset() {
+		count.get()[0] = 0;
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.TextUtil;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
+
+/**
+ * Data Access Object for lemma-to-lemma relations. Each lookup is a 
+ * single indexed join over word, sense and synlink, instead of one query
+ * per word, sense, link and target word.
+ * <p>
+ * The target language is the language of the first word with the given 
+ * lemma (Japanese if none), as in {@link edu.cmu.lti.jawjaw.util.WordNetUtil#findLang(String)}.
+ */
+public class RelationDAO {
+
+	private static LoadingCache<String, List<String>> cache;
+
+	static {
+		if (Configuration.getInstance().useCache()) {
+			cache = CacheFactory.newLoadingCache();
+		}
+	}
+	
+	private static final CacheLoader<String, List<String>> LINKED = new CacheLoader<String, List<String>>() {
+		public List<String> load( String key ) {
+			int sep2 = key.lastIndexOf(' ');
+			int sep1 = key.lastIndexOf(' ', sep2-1);
+			return loadLinkedLemmas( key.substring(0, sep1), 
+					POS.valueOf( key.substring(sep1+1, sep2) ), Link.valueOf( key.substring(sep2+1) ) );
+		}
+	};
+	
+	private static final CacheLoader<String, List<String>> SYNONYMS = new CacheLoader<String, List<String>>() {
+		public List<String> load( String key ) {
+			int sep2 = key.lastIndexOf(' ');
+			int sep1 = key.lastIndexOf(' ', sep2-1);
+			return loadSynonymLemmas( key.substring(0, sep1), 
+					POS.valueOf( key.substring(sep1+1, sep2) ), Boolean.parseBoolean( key.substring(sep2+1) ) );
+		}
+	};
+	
+	/**
+	 * Finds the lemmas of the words in synsets linked from the synsets of the given word.
+	 * @param lemma lemma either in Japanese or English
+	 * @param pos POS of the lemma
+	 * @param link link type
+	 * @return lemmas in the language of the given lemma, possibly with duplicates
+	 */
+	public static List<String> findLinkedLemmas( String lemma, POS pos, Link link ) {
+		if ( lemma == null || pos == null || link == null ) return Collections.emptyList();
+		if ( Configuration.getInstance().useCache() ) {
+			return cache.get( lemma+" "+pos+" "+link, LINKED );
+		}
+		return loadLinkedLemmas( lemma, pos, link );
+	}
+	
+	/**
+	 * Finds the lemmas linked by several link types at once. Link types 
+	 * missing from the cache are fetched with a single join.
+	 * @param lemma lemma either in Japanese or English
+	 * @param pos POS of the lemma
+	 * @param links link types
+	 * @return lemmas in the language of the given lemma by link type, possibly 
+	 * with duplicates. Every given link type is present.
+	 */
+	public static Map<Link, List<String>> findRelatedLemmas( String lemma, POS pos, Set<Link> links ) {
+		Map<Link, List<String>> results = new EnumMap<Link, List<String>>( Link.class );
+		List<Link> misses = new ArrayList<Link>( links.size() );
+		for ( Link link : links ) {
+			List<String> cached = null;
+			if ( lemma != null && pos != null && Configuration.getInstance().useCache() ) {
+				cached = cache.getIfPresent( lemma+" "+pos+" "+link );
+			}
+			if ( cached != null ) {
+				results.put( link, cached );
+			} else {
+				misses.add( link );
+			}
+		}
+		if ( misses.isEmpty() ) return results;
+		if ( lemma == null || pos == null ) {
+			for ( Link link : misses ) {
+				results.put( link, Collections.<String>emptyList() );
+			}
+			return results;
+		}
+		
+		Map<Link, List<String>> loaded = loadRelatedLemmas( lemma, pos, misses );
+		for ( Link link : misses ) {
+			List<String> lemmas = Collections.unmodifiableList( loaded.get( link ) );
+			if ( Configuration.getInstance().useCache() ) {
+				cache.put( lemma+" "+pos+" "+link, lemmas );
+			}
+			results.put( link, lemmas );
+		}
+		return results;
+	}
+	
+	/**
+	 * Finds the lemmas of the words sharing a synset with the given word.
+	 * @param lemma lemma either in Japanese or English
+	 * @param pos POS of the lemma
+	 * @param translate whether to find words in the other language
+	 * @return lemmas, possibly with duplicates and the given lemma itself
+	 */
+	public static List<String> findSynonymLemmas( String lemma, POS pos, boolean translate ) {
+		if ( lemma == null || pos == null ) return Collections.emptyList();
+		if ( Configuration.getInstance().useCache() ) {
+			return cache.get( lemma+" "+pos+" "+translate, SYNONYMS );
+		}
+		return loadSynonymLemmas( lemma, pos, translate );
+	}
+	
+	private static List<String> loadLinkedLemmas( String lemma, POS pos, Link link ) {
+		List<String> lemmas = new ArrayList<String>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_LINKED_LEMMAS );
+			ps.setString(1, link.toString());
+			ps.setString(2, TextUtil.canonicalize( lemma ));
+			ps.setString(3, lemma.toLowerCase());
+			ps.setString(4, pos.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				lemmas.add( rs.getString(1) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return Collections.unmodifiableList( lemmas );
+	}
+	
+	private static Map<Link, List<String>> loadRelatedLemmas( String lemma, POS pos, List<Link> links ) {
+		Map<Link, List<String>> lemmas = new EnumMap<Link, List<String>>( Link.class );
+		for ( Link link : links ) {
+			lemmas.put( link, new ArrayList<String>() );
+		}
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_RELATED_LEMMAS );
+			int size = Link.values().length;
+			Iterator<String> names = toNames( links ).iterator();
+			InClause.bind( ps, 1, names, size );
+			ps.setString(size+1, TextUtil.canonicalize( lemma ));
+			ps.setString(size+2, lemma.toLowerCase());
+			ps.setString(size+3, pos.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				lemmas.get( Link.valueOf( rs.getString(1) ) ).add( rs.getString(2) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return lemmas;
+	}
+	
+	private static List<String> toNames( List<Link> links ) {
+		List<String> names = new ArrayList<String>( links.size() );
+		for ( Link link : links ) {
+			names.add( link.toString() );
+		}
+		return names;
+	}
+	
+	private static List<String> loadSynonymLemmas( String lemma, POS pos, boolean translate ) {
+		List<String> lemmas = new ArrayList<String>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNONYM_LEMMAS );
+			ps.setInt(1, translate ? 1 : 0);
+			ps.setString(2, TextUtil.canonicalize( lemma ));
+			ps.setString(3, lemma.toLowerCase());
+			ps.setString(4, pos.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				lemmas.add( rs.getString(1) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return Collections.unmodifiableList( lemmas );
+	}
+}
@@ -26,7 +26,11 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -44,8 +48,15 @@ final public class SQL {
 	private static final String DRIVER = "org.sqlite.JDBC";
 	private static final SQL instance = new SQL(); // this is last. order matters!!
 	private static final boolean BENCHMARK = false;
+	// In memory DB mode, all connections open the same shared-cache database
+	private static final String MEMORY_URL = "jdbc:sqlite:file:jawjaw?mode=memory&cache=shared";
+	// SQLITE_OPEN_READWRITE | SQLITE_OPEN_CREATE | SQLITE_OPEN_URI
+	private static final int URI_OPEN_MODE = 0x02 | 0x04 | 0x40;
 	
 	private ConcurrentMap<SQLQuery,PreparedStatement> preparedStatements = null;
+	private ConnectionPool pool;
+	// why the pool could not be opened, if so
+	private Exception initFailure;
 	
 	/**
 	 * Private constructor 
@@ -55,6 +66,7 @@ final public class SQL {
 			createSQLConnection();
 			prepareStatements();
 		} catch (Exception e) {
+			initFailure = e;
 			e.printStackTrace();
 		}
 	}
@@ -90,7 +102,8 @@ final public class SQL {
 		
 		// Memory DB mode is super fast after the initialization. 
 		if ( Configuration.getInstance().useMemoryDB() ) {
-			connection = DataMoverUtility.getMemoryDBConnection( DRIVER, sqlUrl );
+			connection = DataMoverUtility.getMemoryDBConnection( DRIVER, sqlUrl, 
+					MEMORY_URL, getMemoryDBProperties() );
 		} else {
 			connection = DriverManager.getConnection( sqlUrl );
 		}
@@ -98,9 +111,83 @@ final public class SQL {
 			createIndexIfNotExists( connection );
 			setPragmaCacheSize( connection );
 		//}
+		pool = createConnectionPool( sqlUrl );
 	}
 	
-	private void createIndexIfNotExists( Connection connection ) {
+	private Properties getMemoryDBProperties() {
+		Properties info = new Properties();
+		info.setProperty( "open_mode", String.valueOf(URI_OPEN_MODE) );
+		return info;
+	}
+	
+	/**
+	 * Opens the read-only connections used by the DAOs. The primary 
+	 * connection above is kept for DDL and for legacy callers.
+	 */
+	private ConnectionPool createConnectionPool( String sqlUrl ) throws SQLException {
+		int size = Configuration.getInstance().getPoolSize();
+		if ( size <= 0 ) size = Runtime.getRuntime().availableProcessors();
+		List<PooledConnection> connections = new ArrayList<PooledConnection>( size );
+		for ( int i = 0; i < size; i++ ) {
+			connections.add( new PooledConnection( openReadOnlyConnection( sqlUrl ) ) );
+		}
+		return new ConnectionPool( connections );
+	}
+	
+	private Connection openReadOnlyConnection( String sqlUrl ) throws SQLException {
+		Connection c;
+		if ( Configuration.getInstance().useMemoryDB() ) {
+			c = DriverManager.getConnection( MEMORY_URL, getMemoryDBProperties() );
+			if ( countTables( c ) == 0 ) {
+				// The driver didn't open the shared database; fall back to a private copy
+				c.close();
+				c = DataMoverUtility.getMemoryDBConnection( DRIVER, sqlUrl );
+				createIndexIfNotExists( c );
+			} else {
+				// Readers of a shared-cache database would otherwise take table locks
+				executePragma( c, "PRAGMA read_uncommitted = 1;" );
+			}
+		} else {
+			c = DriverManager.getConnection( sqlUrl );
+			setPragmaCacheSize( c );
+		}
+		executePragma( c, "PRAGMA query_only = 1;" );
+		return c;
+	}
+	
+	private int countTables( Connection connection ) throws SQLException {
+		Statement s = null;
+		ResultSet rs = null;
+		try {
+			s = connection.createStatement();
+			rs = s.executeQuery( "SELECT count(*) FROM sqlite_master WHERE type = 'table';" );
+			return rs.next() ? rs.getInt(1) : 0;
+		} finally {
+			if ( rs != null ) rs.close();
+			if ( s != null ) s.close();
+		}
+	}
+	
+	private void executePragma( Connection connection, String pragma ) {
+		Statement s = null;
+		try {
+			s = connection.createStatement();
+			s.execute( pragma );
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( s != null ) s.close(); 
+			} catch ( SQLException e2 ) { e2.printStackTrace(); }
+		}
+	}
+	
+	/**
+	 * @return false if the DB was written by {@link DatabaseOptimizer} and no DDL was run
+	 */
+	static boolean createIndexIfNotExists( Connection connection ) {
+		// DBs written by DatabaseOptimizer already have their indexes
+		if ( DatabaseOptimizer.isOptimized( connection ) ) return false;
 		long t0 = System.currentTimeMillis();
 		if (BENCHMARK) System.out.print( "Building index on DB ... " );
 		Statement s = null;
@@ -115,6 +202,7 @@ final public class SQL {
 			s.addBatch( "CREATE INDEX IF NOT EXISTS synset_name_idx ON synset (name);" );
 			s.addBatch( "CREATE INDEX IF NOT EXISTS synset_def_id_idx ON synset_def (synset);" );
 			s.addBatch( "CREATE INDEX IF NOT EXISTS synlink_idx ON synlink (synset1,link);" );
+			s.addBatch( "CREATE INDEX IF NOT EXISTS synlink_target_idx ON synlink (synset2,link);" );
 			s.executeBatch();
 			connection.setAutoCommit(true);
 		} catch ( SQLException e ) {
@@ -126,6 +214,7 @@ final public class SQL {
 		}
 		long t1 = System.currentTimeMillis();
 		if (BENCHMARK) System.out.println( "done in "+((double)(t1-t0)/1000D)+" sec." );
+		return true;
 	}
 	
 	private void setPragmaCacheSize( Connection connection ) {
@@ -213,9 +302,40 @@ final public class SQL {
 		return uncompressedDb.getAbsolutePath();
 	}
 	
+	/**
+	 * Returns a statement of the primary connection, shared by all threads.
+	 * Callers have to synchronize on it. 
+	 * 
+	 * @deprecated use {@link #borrowConnection()} and 
+	 *  {@link PooledConnection#getPreparedStatement(SQLQuery)}
+	 */
+	@Deprecated
 	public PreparedStatement getPreparedStatement( SQLQuery query ) {
 		return preparedStatements.get( query );
 	}
+	
+	/**
+	 * Borrows a read-only connection from the pool. It must be given back
+	 * with {@link #releaseConnection(PooledConnection)}, in a finally block.
+	 * 
+	 * @return connection for exclusive use by the calling thread
+	 * @throws IllegalStateException if the database could not be opened
+	 */
+	public PooledConnection borrowConnection() {
+		if ( pool == null ) {
+			throw new IllegalStateException( "Connection pool of "
+					+Configuration.getInstance().getWordnet()+" was not initialized", initFailure );
+		}
+		return pool.borrow();
+	}
+	
+	/**
+	 * @param connection connection obtained from {@link #borrowConnection()}; null is ignored
+	 */
+	public void releaseConnection( PooledConnection connection ) {
+		if ( connection == null || pool == null ) return;
+		pool.release( connection );
+	}
 		
 	@Override
 	protected void finalize() throws Throwable {
@@ -223,6 +343,7 @@ final public class SQL {
 			for ( PreparedStatement ps : preparedStatements.values() ) {
 				if ( ps != null ) ps.close();
 			}
+			if ( pool != null ) pool.close();
 		} finally {
 			if ( connection != null ) connection.close();
 		}
@@ -18,11 +18,14 @@ package edu.cmu.lti.jawjaw.db;
 import java.util.HashMap;
 import java.util.Map;
 
+import edu.cmu.lti.jawjaw.pobj.Link;
+
 public enum SQLQuery {
 	
 	FIND_WORD_BY_LEMMA, 
 	FIND_WORD_BY_LEMMA_AND_POS,
 	FIND_WORD_BY_WORDID,
+	FIND_ALL_LEMMAS,
 	
 	FIND_SENSES_BY_SYNSET,
 	FIND_SENSES_BY_WORDID,
@@ -32,16 +35,40 @@ public enum SQLQuery {
 	
 	FIND_SYNLINK_BY_SYNSET,
 	FIND_SYNLINK_BY_SYNSET_AND_LINK,
+	FIND_SYNLINKS_BY_TARGET_SYNSET,
+	FIND_SYNLINKS_BY_TARGET_SYNSET_AND_LINK,
 	
 	FIND_SYNSET_BY_SYNSET,
 	FIND_SYNSETS_BY_NAME,
-	FIND_SYNSETS_BY_NAME_AND_POS;
+	FIND_SYNSETS_BY_NAME_AND_POS,
+	
+	FIND_ALL_WORDS,
+	FIND_ALL_SENSES,
+	FIND_ALL_SYNSETS,
+	FIND_ALL_SYNSET_DEFS,
+	FIND_ALL_SYNLINKS,
+	FIND_HYPERNYM_LINKS,
+	FIND_SYNSET_FREQS,
+	FIND_WORD_FREQS,
+	FIND_SYNLINK_EDGES,
+	
+	FIND_LINKED_LEMMAS,
+	FIND_SYNONYM_LEMMAS,
+	FIND_RELATED_LEMMAS,
+	
+	FIND_WORDS_BY_WORDIDS,
+	FIND_SENSES_BY_SYNSETS,
+	FIND_SENSES_BY_WORDIDS,
+	FIND_SYNSETS_BY_SYNSETS,
+	FIND_SYNSETDEFS_BY_SYNSETS_AND_LANG,
+	FIND_SYNLINKS_BY_SYNSETS;
 	
 	private static final Map<SQLQuery,String> queryTexts = new HashMap<SQLQuery, String>( SQLQuery.values().length );
 	static {
 		queryTexts.put( FIND_WORD_BY_LEMMA,         "SELECT * FROM word WHERE lemma=?" );
 		queryTexts.put( FIND_WORD_BY_LEMMA_AND_POS, "SELECT * FROM word WHERE lemma=? AND pos=?" );
 		queryTexts.put( FIND_WORD_BY_WORDID,        "SELECT * FROM word WHERE wordid=?" );
+		queryTexts.put( FIND_ALL_LEMMAS,            "SELECT lemma, pos FROM word" );
 		
 		queryTexts.put( FIND_SENSES_BY_SYNSET,          "SELECT * FROM sense WHERE synset=?" );
 		queryTexts.put( FIND_SENSES_BY_WORDID,          "SELECT * FROM sense WHERE wordid=?" );
@@ -51,10 +78,55 @@ public enum SQLQuery {
 		
 		queryTexts.put( FIND_SYNLINK_BY_SYNSET,          "SELECT * FROM synlink WHERE synset1=?" );
 		queryTexts.put( FIND_SYNLINK_BY_SYNSET_AND_LINK, "SELECT * FROM synlink WHERE synset1=? AND link=?" );
+		queryTexts.put( FIND_SYNLINKS_BY_TARGET_SYNSET,          "SELECT * FROM synlink WHERE synset2=?" );
+		queryTexts.put( FIND_SYNLINKS_BY_TARGET_SYNSET_AND_LINK, "SELECT * FROM synlink WHERE synset2=? AND link=?" );
 		
 		queryTexts.put( FIND_SYNSET_BY_SYNSET,        "SELECT * FROM synset WHERE synset=?" );
 		queryTexts.put( FIND_SYNSETS_BY_NAME,         "SELECT * FROM synset WHERE name=?" );
 		queryTexts.put( FIND_SYNSETS_BY_NAME_AND_POS, "SELECT * FROM synset WHERE name=? AND pos=?" );
+		
+		queryTexts.put( FIND_ALL_WORDS,       "SELECT * FROM word ORDER BY wordid" );
+		queryTexts.put( FIND_ALL_SENSES,      "SELECT * FROM sense" );
+		queryTexts.put( FIND_ALL_SYNSETS,     "SELECT * FROM synset" );
+		queryTexts.put( FIND_ALL_SYNSET_DEFS, "SELECT * FROM synset_def" );
+		queryTexts.put( FIND_ALL_SYNLINKS,    "SELECT * FROM synlink" );
+		queryTexts.put( FIND_HYPERNYM_LINKS,  "SELECT synset1, synset2 FROM synlink WHERE link IN ('hype','inst')" );
+		queryTexts.put( FIND_SYNSET_FREQS,    "SELECT synset, SUM(freq) FROM sense GROUP BY synset" );
+		queryTexts.put( FIND_WORD_FREQS,      "SELECT wordid, SUM(freq) FROM sense GROUP BY wordid" );
+		queryTexts.put( FIND_SYNLINK_EDGES,   "SELECT synset1, synset2, link FROM synlink" );
+		
+		// lemma of the source word (for its language), lemma, pos -> lemmas in one indexed join
+		queryTexts.put( FIND_LINKED_LEMMAS, "SELECT w2.lemma FROM word w1"
+				+" JOIN sense s1 ON s1.wordid=w1.wordid"
+				+" JOIN synlink l ON l.synset1=s1.synset AND l.link=?"
+				+" JOIN sense s2 ON s2.synset=l.synset2"
+				+" AND s2.lang=IFNULL((SELECT lang FROM word WHERE lemma=? LIMIT 1),'jpn')"
+				+" JOIN word w2 ON w2.wordid=s2.wordid"
+				+" WHERE w1.lemma=? AND w1.pos=?" );
+		// one placeholder per link type; unused ones repeat the last link
+		queryTexts.put( FIND_RELATED_LEMMAS, "SELECT l.link, w2.lemma FROM word w1"
+				+" JOIN sense s1 ON s1.wordid=w1.wordid"
+				+" JOIN synlink l ON l.synset1=s1.synset AND l.link IN "+InClause.placeholders( Link.values().length )
+				+" JOIN sense s2 ON s2.synset=l.synset2"
+				+" AND s2.lang=IFNULL((SELECT lang FROM word WHERE lemma=? LIMIT 1),'jpn')"
+				+" JOIN word w2 ON w2.wordid=s2.wordid"
+				+" WHERE w1.lemma=? AND w1.pos=?" );
+		queryTexts.put( FIND_SYNONYM_LEMMAS, "SELECT w2.lemma FROM word w1"
+				+" JOIN sense s1 ON s1.wordid=w1.wordid"
+				+" JOIN sense s2 ON s2.synset=s1.synset"
+				+" AND s2.lang=(SELECT CASE WHEN ?=1 THEN (CASE lang WHEN 'jpn' THEN 'eng' ELSE 'jpn' END) ELSE lang END"
+				+" FROM (SELECT IFNULL((SELECT lang FROM word WHERE lemma=? LIMIT 1),'jpn') AS lang))"
+				+" JOIN word w2 ON w2.wordid=s2.wordid"
+				+" WHERE w1.lemma=? AND w1.pos=?" );
+		
+		// batch lookups with InClause.SIZE keys
+		String in = InClause.placeholders();
+		queryTexts.put( FIND_WORDS_BY_WORDIDS,   "SELECT * FROM word WHERE wordid IN "+in );
+		queryTexts.put( FIND_SENSES_BY_SYNSETS,  "SELECT * FROM sense WHERE synset IN "+in );
+		queryTexts.put( FIND_SENSES_BY_WORDIDS,  "SELECT * FROM sense WHERE wordid IN "+in );
+		queryTexts.put( FIND_SYNSETS_BY_SYNSETS, "SELECT * FROM synset WHERE synset IN "+in );
+		queryTexts.put( FIND_SYNSETDEFS_BY_SYNSETS_AND_LANG, "SELECT * FROM synset_def WHERE lang=? AND synset IN "+in );
+		queryTexts.put( FIND_SYNLINKS_BY_SYNSETS, "SELECT * FROM synlink WHERE synset1 IN "+in );
 	}
 	
 	public String getQueryText() {
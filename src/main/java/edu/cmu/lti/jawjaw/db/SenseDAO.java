@@ -19,13 +19,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
+import java.util.Set;
 
 import edu.cmu.lti.jawjaw.pobj.Lang;
 import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
 import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 /**
  * Data Access Object for sense table 
@@ -34,111 +43,162 @@ import edu.cmu.lti.jawjaw.util.Configuration;
  */
 public class SenseDAO {
 
-	private static ConcurrentMap<String, List<Sense>> cache;
+	// keyed by packed synset id, by SynsetId.key( id, lang ), or by wordidKey( wordid )
+	private static LoadingCache<Long, List<Sense>> cache;
 
 	static {
 		if (Configuration.getInstance().useCache()) {
-			cache = new ConcurrentHashMap<String, List<Sense>>(
-				Configuration.getInstance().getMaxCacheSize());
+			cache = CacheFactory.newLoadingCache();
 		}
 	}
 	
+	private static final Lang[] LANGS = Lang.values();
+	
+	private static final CacheLoader<Long, List<Sense>> BY_SYNSET = new CacheLoader<Long, List<Sense>>() {
+		public List<Sense> load( Long key ) {
+			return CachedRecords.freeze( loadSensesBySynset( SynsetId.toString( SynsetId.idOf( key ) ) ) );
+		}
+	};
+	
+	private static final CacheLoader<Long, List<Sense>> BY_WORDID = new CacheLoader<Long, List<Sense>>() {
+		public List<Sense> load( Long key ) {
+			return CachedRecords.freeze( loadSensesByWordid( (int)(-1 - key) ) );
+		}
+	};
+	
+	private static final CacheLoader<Long, List<Sense>> BY_SYNSET_AND_LANG = new CacheLoader<Long, List<Sense>>() {
+		public List<Sense> load( Long key ) {
+			return CachedRecords.freeze( loadSensesBySynsetAndLang( 
+					SynsetId.toString( SynsetId.idOf( key ) ), LANGS[SynsetId.ordinalOf( key )] ) );
+		}
+	};
+	
+	/**
+	 * Word ids are stored as negative keys, apart from the synset keys.
+	 */
+	private static Long wordidKey( int wordid ) {
+		return Long.valueOf( -1L - wordid );
+	}
+	
+	private static final BatchDispatcher<Integer, List<Sense>> WORDID_BATCHES = BatchDispatcher.create( new BatchDispatcher.Loader<Integer, List<Sense>>() {
+		public Map<Integer, List<Sense>> loadAll( Collection<Integer> wordids ) {
+			Map<Integer, List<Sense>> senses = new HashMap<Integer, List<Sense>>();
+			for ( Sense sense : loadSensesByWordids( wordids ) ) {
+				List<Sense> list = senses.get( sense.getWordid() );
+				if ( list == null ) {
+					list = new ArrayList<Sense>();
+					senses.put( sense.getWordid(), list );
+				}
+				list.add( sense );
+			}
+			return senses;
+		}
+	} );
+	
 	/**
 	 * Find sense records by synset (one-to-many relationship)
 	 * @param synset synset id e.g. 06142412-n
 	 * @return sense records
 	 */
 	public static List<Sense> findSensesBySynset( String synset ) {
-		String key = synset;
-		if ( Configuration.getInstance().useCache() ) {
-			List<Sense> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+		return findSensesBySynset( synset, SynsetId.pack( synset ) );
+	}
+	
+	/**
+	 * Find sense records by synset (one-to-many relationship)
+	 * @param synsetId packed synset id, see {@link SynsetId}
+	 * @return sense records
+	 */
+	public static List<Sense> findSensesBySynset( int synsetId ) {
+		return findSensesBySynset( null, synsetId );
+	}
+	
+	private static List<Sense> findSensesBySynset( String synset, int synsetId ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( Long.valueOf( synsetId ), BY_SYNSET ) );
 		}
-		
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSensesBySynset( synset ) );
+		}
+		return loadSensesBySynset( synset );
+	}
+	
+	private static List<Sense> loadSensesBySynset( String synset ) {
 		List<Sense> senses = new ArrayList<Sense>(); 
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SENSES_BY_SYNSET );
-			synchronized (ps) { 
-				ps.setString(1, synset);
-				rs = ps.executeQuery();
-				while ( rs.next() ) {
-					senses.add( rsToObject(rs) );
-				}
-				rs.close();
-	//			ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SENSES_BY_SYNSET );
+			ps.setString(1, synset);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				senses.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized (cache) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( senses != null ) cache.put( key, clone(senses) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return senses;
 	}
 	
 	/**
-	 * Find sense records by word id (one-to-many relationship)
+	 * Find sense records by word id (one-to-many relationship). With 
+	 * batchWindowMicros set, concurrent lookups are combined into one query.
 	 * @param wordid word id
 	 * @return sense records
 	 */
 	public static List<Sense> findSensesByWordid( int wordid ) {
-		String key = wordid+"";
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSensesByWordid( wordid ) );
+		}
 		if ( Configuration.getInstance().useCache() ) {
-			List<Sense> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+			return CachedRecords.share( cache.get( wordidKey( wordid ), BY_WORDID ) );
+		}
+		return loadSensesByWordid( wordid );
+	}
+	
+	private static List<Sense> loadSensesByWordid( int wordid ) {
+		if ( WORDID_BATCHES != null ) {
+			// callers of the same batch asking for the same id share the records
+			List<Sense> senses = WORDID_BATCHES.get( wordid );
+			return senses != null ? CachedRecords.copy( senses ) : new ArrayList<Sense>();
 		}
-		
 		List<Sense> senses = new ArrayList<Sense>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			try {
-				ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SENSES_BY_WORDID );
-				synchronized (ps) {
-					ps.setInt(1, wordid);
-					rs = ps.executeQuery();
-					while ( rs.next() ) {
-						senses.add( rsToObject(rs) );
-					}
-					rs.close();
-	//				ps.close();
-					rs = null;
-//					ps = null;
-				}
-			} finally {
-				if ( rs != null ) rs.close(); 
-//				if ( ps != null ) ps.close(); 
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SENSES_BY_WORDID );
+			ps.setInt(1, wordid);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				senses.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized (cache) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( senses != null ) cache.put( key, clone(senses) );
-//			}
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return senses;
 	}
@@ -150,53 +210,221 @@ public class SenseDAO {
 	 * @return sense records
 	 */
 	public static List<Sense> findSensesBySynsetAndLang( String synset, Lang lang ) {
-		String key = synset+" "+lang;
-		if ( Configuration.getInstance().useCache() ) {
-				List<Sense> cachedObj = cache.get(key);
-				if ( cachedObj != null ) return clone(cachedObj);
+		return findSensesBySynsetAndLang( synset, SynsetId.pack( synset ), lang );
+	}
+	
+	/**
+	 * Find sense records by synset and language (one-to-many relationship)
+	 * @param synsetId packed synset id, see {@link SynsetId}
+	 * @param lang either "eng" or "jpn"
+	 * @return sense records
+	 */
+	public static List<Sense> findSensesBySynsetAndLang( int synsetId, Lang lang ) {
+		return findSensesBySynsetAndLang( null, synsetId, lang );
+	}
+	
+	private static List<Sense> findSensesBySynsetAndLang( String synset, int synsetId, Lang lang ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( SynsetId.key( synsetId, lang ), BY_SYNSET_AND_LANG ) );
 		}
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSensesBySynsetAndLang( synset, lang ) );
+		}
+		return loadSensesBySynsetAndLang( synset, lang );
+	}
+	
+	private static List<Sense> loadSensesBySynsetAndLang( String synset, Lang lang ) {
+		List<Sense> senses = new ArrayList<Sense>();
 		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SENSES_BY_SYNSET_AND_LANG );
+			ps.setString(1, synset);
+			ps.setString(2, lang.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				senses.add( rsToObject(rs) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return senses;
+	}
+	
+	/**
+	 * Find sense records by synset ids. Cached records are used as they are; 
+	 * the rest is fetched with as few "IN (...)" queries as possible.
+	 * @param synsets synset ids e.g. 06142412-n
+	 * @return sense records keyed by synset id, in the order of the synset ids. 
+	 * Every synset id is present, with an empty list if it has no records.
+	 */
+	public static Map<String, List<Sense>> findSensesBySynsets( Collection<String> synsets ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
+		
+		Map<String, List<Sense>> found = new HashMap<String, List<Sense>>();
+		Set<String> misses = new LinkedHashSet<String>();
+		for ( String key : synsets ) {
+			if ( engine != null ) {
+				found.put( key, engine.findSensesBySynset( key ) );
+				continue;
+			}
+			int id = SynsetId.pack( key );
+			List<Sense> cached = useCache && id != SynsetId.NONE ? cache.getIfPresent( Long.valueOf( id ) ) : null;
+			if ( cached != null ) {
+				found.put( key, cached );
+			} else {
+				misses.add( key );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( String key : misses ) {
+				found.put( key, new ArrayList<Sense>() );
+			}
+			for ( Sense record : loadSensesBySynsets( misses ) ) {
+				found.get( record.getSynset() ).add( record );
+			}
+			if ( useCache ) {
+				for ( String key : misses ) {
+					List<Sense> records = CachedRecords.freeze( found.get( key ) );
+					int id = SynsetId.pack( key );
+					if ( id != SynsetId.NONE ) cache.put( Long.valueOf( id ), records );
+					found.put( key, records );
+				}
+			}
+		}
+		
+		Map<String, List<Sense>> results = new LinkedHashMap<String, List<Sense>>();
+		for ( String key : synsets ) {
+			results.put( key, CachedRecords.share( found.get( key ) ) );
+		}
+		return results;
+	}
+
+	private static List<Sense> loadSensesBySynsets( Collection<String> keys ) {
 		List<Sense> senses = new ArrayList<Sense>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SENSES_BY_SYNSET_AND_LANG );
-			synchronized (ps) {
-				ps.setString(1, synset);
-				ps.setString(2, lang.toString());
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<String> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SENSES_BY_SYNSETS );
+				InClause.bind( ps, 1, it );
 				rs = ps.executeQuery();
 				while ( rs.next() ) {
 					senses.add( rsToObject(rs) );
 				}
 				rs.close();
-	//			ps.close();
 				rs = null;
-//				ps = null;
 			}
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
+			SQL.getInstance().releaseConnection( connection );
 		}
+		return senses;
+	}
+
+	/**
+	 * Find sense records by word ids. Cached records are used as they are; 
+	 * the rest is fetched with as few "IN (...)" queries as possible.
+	 * @param wordids word ids
+	 * @return sense records keyed by word id, in the order of the word ids. 
+	 * Every word id is present, with an empty list if it has no records.
+	 */
+	public static Map<Integer, List<Sense>> findSensesByWordids( int[] wordids ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
 		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized (cache) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
+		Map<Integer, List<Sense>> found = new HashMap<Integer, List<Sense>>();
+		Set<Integer> misses = new LinkedHashSet<Integer>();
+		for ( int key : wordids ) {
+			if ( engine != null ) {
+				found.put( key, engine.findSensesByWordid( key ) );
+				continue;
+			}
+			List<Sense> cached = useCache ? cache.getIfPresent( wordidKey( key ) ) : null;
+			if ( cached != null ) {
+				found.put( key, cached );
+			} else {
+				misses.add( key );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( Integer key : misses ) {
+				found.put( key, new ArrayList<Sense>() );
+			}
+			for ( Sense record : loadSensesByWordids( misses ) ) {
+				found.get( record.getWordid() ).add( record );
+			}
+			if ( useCache ) {
+				for ( Integer key : misses ) {
+					List<Sense> records = CachedRecords.freeze( found.get( key ) );
+					cache.put( wordidKey( key ), records );
+					found.put( key, records );
 				}
-				if ( senses != null ) cache.put( key, clone(senses) );
-//			}
+			}
+		}
+		
+		Map<Integer, List<Sense>> results = new LinkedHashMap<Integer, List<Sense>>();
+		for ( int key : wordids ) {
+			results.put( key, CachedRecords.share( found.get( key ) ) );
+		}
+		return results;
+	}
+
+	private static List<Sense> loadSensesByWordids( Collection<Integer> keys ) {
+		List<Sense> senses = new ArrayList<Sense>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<Integer> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SENSES_BY_WORDIDS );
+				InClause.bind( ps, 1, it );
+				rs = ps.executeQuery();
+				while ( rs.next() ) {
+					senses.add( rsToObject(rs) );
+				}
+				rs.close();
+				rs = null;
+			}
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return senses;
 	}
-	
-	private static Sense rsToObject( ResultSet rs ) throws SQLException {
+
+	static Sense rsToObject( ResultSet rs ) throws SQLException {
 		Sense sense = new Sense(
 			rs.getString(1),	
 			rs.getInt(2),	
@@ -208,12 +436,4 @@ public class SenseDAO {
 		);
 		return sense;
 	}
-	
-	private static List<Sense> clone( List<Sense> senses ) {
-		List<Sense> cloned = new ArrayList<Sense>( senses.size() );
-		for ( Sense sense : senses ) {
-			cloned.add( sense.clone() );
-		}
-		return senses;
-	}
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+/**
+ * Open-addressing hash map from strings to non-negative ints, 
+ * backed by two parallel arrays (linear probing, no removal).
+ */
+final class StringIntIndex {
+
+	private final String[] keys;
+	private final int[] values;
+	private final int mask;
+	private int size;
+
+	/**
+	 * @param expectedKeys maximum number of keys to be put
+	 */
+	StringIntIndex( int expectedKeys ) {
+		int capacity = 4;
+		while ( capacity < expectedKeys * 2 ) capacity <<= 1;
+		keys = new String[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return value of the key, or -1 if absent
+	 */
+	int get( String key ) {
+		for ( int i = slot( key ); keys[i] != null; i = (i + 1) & mask ) {
+			if ( keys[i].equals( key ) ) return values[i];
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the existing value of the key, or value after inserting it
+	 */
+	int putIfAbsent( String key, int value ) {
+		int i = slot( key );
+		for ( ; keys[i] != null; i = (i + 1) & mask ) {
+			if ( keys[i].equals( key ) ) return values[i];
+		}
+		if ( size * 2 >= keys.length ) {
+			throw new IllegalStateException( "More than "+(keys.length/2)+" keys" );
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return value;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private int slot( String key ) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return (h * 0x9E3779B9) >>> 1 & mask;
+	}
+}
@@ -19,13 +19,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
+import java.util.Set;
 
 import edu.cmu.lti.jawjaw.pobj.Link;
 import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
 import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 /**
  * Data Access Object for synlink table
@@ -34,64 +43,108 @@ import edu.cmu.lti.jawjaw.util.Configuration;
  */
 public class SynlinkDAO {
 
-	private static ConcurrentMap<String, List<Synlink>> cache;
+	// keyed by packed synset id, or by SynsetId.key( id, link ); negated for reverse lookups
+	private static LoadingCache<Long, List<Synlink>> cache;
 
 	static {
 		if (Configuration.getInstance().useCache()) {
-			cache = new ConcurrentHashMap<String, List<Synlink>>(
-				Configuration.getInstance().getMaxCacheSize());
+			cache = CacheFactory.newLoadingCache();
 		}
 	}
 	
+	private static final Link[] LINKS = Link.values();
+	
+	private static final CacheLoader<Long, List<Synlink>> BY_TARGET_SYNSET = new CacheLoader<Long, List<Synlink>>() {
+		public List<Synlink> load( Long key ) {
+			return CachedRecords.freeze( loadSynlinksByTargetSynset( 
+					SynsetId.toString( SynsetId.idOf( reverseKey( key ) ) ) ) );
+		}
+	};
+	
+	private static final CacheLoader<Long, List<Synlink>> BY_TARGET_SYNSET_AND_LINK = new CacheLoader<Long, List<Synlink>>() {
+		public List<Synlink> load( Long key ) {
+			long forward = reverseKey( key );
+			return CachedRecords.freeze( loadSynlinksByTargetSynsetAndLink( 
+					SynsetId.toString( SynsetId.idOf( forward ) ), LINKS[SynsetId.ordinalOf( forward )] ) );
+		}
+	};
+	
+	/**
+	 * Maps a key to its reverse lookup key and back; reverse lookups share 
+	 * the cache in the negative key range.
+	 */
+	private static long reverseKey( long key ) {
+		return -1L - key;
+	}
+	
+	private static final CacheLoader<Long, List<Synlink>> BY_SYNSET = new CacheLoader<Long, List<Synlink>>() {
+		public List<Synlink> load( Long key ) {
+			return CachedRecords.freeze( loadSynlinksBySynset( SynsetId.toString( SynsetId.idOf( key ) ) ) );
+		}
+	};
+	
+	private static final CacheLoader<Long, List<Synlink>> BY_SYNSET_AND_LINK = new CacheLoader<Long, List<Synlink>>() {
+		public List<Synlink> load( Long key ) {
+			return CachedRecords.freeze( loadSynlinksBySynsetAndLink( 
+					SynsetId.toString( SynsetId.idOf( key ) ), LINKS[SynsetId.ordinalOf( key )] ) );
+		}
+	};
+	
 	/**
 	 * Find synlink records by synset (one-to-many relationship)
 	 * @param synset e.g. 06142412-n
 	 * @return synlink records
 	 */
 	public static List<Synlink> findSynlinksBySynset( String synset ) {
-		String key = synset;
-		if ( Configuration.getInstance().useCache() ) {
-			List<Synlink> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+		return findSynlinksBySynset( synset, SynsetId.pack( synset ) );
+	}
+	
+	/**
+	 * Find synlink records by synset (one-to-many relationship)
+	 * @param synsetId packed synset id, see {@link SynsetId}
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksBySynset( int synsetId ) {
+		return findSynlinksBySynset( null, synsetId );
+	}
+	
+	private static List<Synlink> findSynlinksBySynset( String synset, int synsetId ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( Long.valueOf( synsetId ), BY_SYNSET ) );
 		}
-		
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynlinksBySynset( synset ) );
+		}
+		return loadSynlinksBySynset( synset );
+	}
+	
+	private static List<Synlink> loadSynlinksBySynset( String synset ) {
 		List<Synlink> synlinks = new ArrayList<Synlink>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNLINK_BY_SYNSET );
-			synchronized (ps) {
-				ps.setString(1, synset);
-				rs = ps.executeQuery();
-				while ( rs.next() ) {
-					synlinks.add( rsToObject(rs) );
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNLINK_BY_SYNSET );
+			ps.setString(1, synset);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synlinks.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
+			SQL.getInstance().releaseConnection( connection );
 		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {	
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( synlinks != null ) cache.put( key, clone(synlinks) );
-//			}
-		}
-		
 		return synlinks;
 	}
 	
@@ -102,53 +155,261 @@ public class SynlinkDAO {
 	 * @return synlink records
 	 */
 	public static List<Synlink> findSynlinksBySynsetAndLink( String synset, Link link ) {
-		String key = synset+" "+link.toString();
-		if ( Configuration.getInstance().useCache() ) {
-				List<Synlink> cachedObj = cache.get(key);
-				if ( cachedObj != null ) return clone(cachedObj);
+		return findSynlinksBySynsetAndLink( synset, SynsetId.pack( synset ), link );
+	}
+	
+	/**
+	 * Find synlink records by synset and link (one-to-many relationship)
+	 * @param synsetId packed id of the first argument of a relationship, see {@link SynsetId}
+	 * @param link lexical relationship
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksBySynsetAndLink( int synsetId, Link link ) {
+		return findSynlinksBySynsetAndLink( null, synsetId, link );
+	}
+	
+	private static List<Synlink> findSynlinksBySynsetAndLink( String synset, int synsetId, Link link ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( SynsetId.key( synsetId, link ), BY_SYNSET_AND_LINK ) );
 		}
-		
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynlinksBySynsetAndLink( synset, link ) );
+		}
+		return loadSynlinksBySynsetAndLink( synset, link );
+	}
+	
+	private static List<Synlink> loadSynlinksBySynsetAndLink( String synset, Link link ) {
 		List<Synlink> synlinks = new ArrayList<Synlink>();
 
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNLINK_BY_SYNSET_AND_LINK );
-			synchronized (ps) {
-				ps.setString(1, synset);
-				ps.setString(2, link.toString());
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNLINK_BY_SYNSET_AND_LINK );
+			ps.setString(1, synset);
+			ps.setString(2, link.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synlinks.add( rsToObject(rs) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return synlinks;
+	}
+	
+	/**
+	 * Find synlink records pointing to a synset (one-to-many relationship)
+	 * @param synset second argument of a relationship e.g. 06142412-n
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksByTargetSynset( String synset ) {
+		return findSynlinksByTargetSynset( synset, SynsetId.pack( synset ) );
+	}
+	
+	/**
+	 * Find synlink records pointing to a synset (one-to-many relationship)
+	 * @param synsetId packed id of the second argument of a relationship, see {@link SynsetId}
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksByTargetSynset( int synsetId ) {
+		return findSynlinksByTargetSynset( null, synsetId );
+	}
+	
+	private static List<Synlink> findSynlinksByTargetSynset( String synset, int synsetId ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( reverseKey( synsetId ), BY_TARGET_SYNSET ) );
+		}
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynlinksByTargetSynset( synset ) );
+		}
+		return loadSynlinksByTargetSynset( synset );
+	}
+	
+	private static List<Synlink> loadSynlinksByTargetSynset( String synset ) {
+		List<Synlink> synlinks = new ArrayList<Synlink>();
+
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNLINKS_BY_TARGET_SYNSET );
+			ps.setString(1, synset);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synlinks.add( rsToObject(rs) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return synlinks;
+	}
+	
+	/**
+	 * Find synlink records of a link pointing to a synset (one-to-many relationship)
+	 * @param synset second argument of a relationship e.g. 06142412-n
+	 * @param link lexical relationship
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksByTargetSynsetAndLink( String synset, Link link ) {
+		return findSynlinksByTargetSynsetAndLink( synset, SynsetId.pack( synset ), link );
+	}
+	
+	/**
+	 * Find synlink records of a link pointing to a synset (one-to-many relationship)
+	 * @param synsetId packed id of the second argument of a relationship, see {@link SynsetId}
+	 * @param link lexical relationship
+	 * @return synlink records
+	 */
+	public static List<Synlink> findSynlinksByTargetSynsetAndLink( int synsetId, Link link ) {
+		return findSynlinksByTargetSynsetAndLink( null, synsetId, link );
+	}
+	
+	private static List<Synlink> findSynlinksByTargetSynsetAndLink( String synset, int synsetId, Link link ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( reverseKey( SynsetId.key( synsetId, link ) ), BY_TARGET_SYNSET_AND_LINK ) );
+		}
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynlinksByTargetSynsetAndLink( synset, link ) );
+		}
+		return loadSynlinksByTargetSynsetAndLink( synset, link );
+	}
+	
+	private static List<Synlink> loadSynlinksByTargetSynsetAndLink( String synset, Link link ) {
+		List<Synlink> synlinks = new ArrayList<Synlink>();
+
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNLINKS_BY_TARGET_SYNSET_AND_LINK );
+			ps.setString(1, synset);
+			ps.setString(2, link.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synlinks.add( rsToObject(rs) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return synlinks;
+	}
+	
+	/**
+	 * Find synlink records by source synset ids. Cached records are used as they are; 
+	 * the rest is fetched with as few "IN (...)" queries as possible.
+	 * @param synsets synset ids e.g. 06142412-n
+	 * @return synlink records keyed by synset id, in the order of the synset ids. 
+	 * Every synset id is present, with an empty list if it has no records.
+	 */
+	public static Map<String, List<Synlink>> findSynlinksBySynsets( Collection<String> synsets ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
+		
+		Map<String, List<Synlink>> found = new HashMap<String, List<Synlink>>();
+		Set<String> misses = new LinkedHashSet<String>();
+		for ( String key : synsets ) {
+			if ( engine != null ) {
+				found.put( key, engine.findSynlinksBySynset( key ) );
+				continue;
+			}
+			int id = SynsetId.pack( key );
+			List<Synlink> cached = useCache && id != SynsetId.NONE ? cache.getIfPresent( Long.valueOf( id ) ) : null;
+			if ( cached != null ) {
+				found.put( key, cached );
+			} else {
+				misses.add( key );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( String key : misses ) {
+				found.put( key, new ArrayList<Synlink>() );
+			}
+			for ( Synlink record : loadSynlinksBySynsets( misses ) ) {
+				found.get( record.getSynset1() ).add( record );
+			}
+			if ( useCache ) {
+				for ( String key : misses ) {
+					List<Synlink> records = CachedRecords.freeze( found.get( key ) );
+					int id = SynsetId.pack( key );
+					if ( id != SynsetId.NONE ) cache.put( Long.valueOf( id ), records );
+					found.put( key, records );
+				}
+			}
+		}
+		
+		Map<String, List<Synlink>> results = new LinkedHashMap<String, List<Synlink>>();
+		for ( String key : synsets ) {
+			results.put( key, CachedRecords.share( found.get( key ) ) );
+		}
+		return results;
+	}
+
+	private static List<Synlink> loadSynlinksBySynsets( Collection<String> keys ) {
+		List<Synlink> synlinks = new ArrayList<Synlink>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<String> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNLINKS_BY_SYNSETS );
+				InClause.bind( ps, 1, it );
 				rs = ps.executeQuery();
 				while ( rs.next() ) {
 					synlinks.add( rsToObject(rs) );
 				}
 				rs.close();
-//				ps.close();
 				rs = null;
-//				ps = null;
 			}
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( synlinks != null ) cache.put( key, clone(synlinks) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return synlinks;
 	}
-	
-	private static Synlink rsToObject( ResultSet rs ) throws SQLException {
+
+	static Synlink rsToObject( ResultSet rs ) throws SQLException {
 		Synlink synlink = new Synlink(
 			rs.getString(1),	
 			rs.getString(2),
@@ -157,12 +418,4 @@ public class SynlinkDAO {
 		);
 		return synlink;
 	}
-	
-	private static List<Synlink> clone( List<Synlink> synlinks ) {
-		List<Synlink> cloned = new ArrayList<Synlink>( synlinks.size() );
-		for ( Synlink synlink : synlinks ) {
-			cloned.add( synlink.clone() );
-		}
-		return synlinks;
-	}
 }
@@ -19,13 +19,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
+import java.util.Set;
 
 import edu.cmu.lti.jawjaw.pobj.POS;
 import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
 import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 /**
  * Data Access Object for synset table
@@ -34,64 +43,92 @@ import edu.cmu.lti.jawjaw.util.Configuration;
  */
 public class SynsetDAO {
 	
-	private static ConcurrentMap<String, List<Synset>> cache;
+	// keyed by packed synset id
+	private static LoadingCache<Long, Synset> synsetCache;
+	// keyed by name, or by name and pos
+	private static LoadingCache<String, List<Synset>> cache;
 
 	static {
 		if (Configuration.getInstance().useCache()) {
-			cache = new ConcurrentHashMap<String, List<Synset>>(
-				Configuration.getInstance().getMaxCacheSize());
+			synsetCache = CacheFactory.newLoadingCache();
+			cache = CacheFactory.newLoadingCache();
 		}
 	}
 	
+	private static final CacheLoader<Long, Synset> BY_SYNSET = new CacheLoader<Long, Synset>() {
+		public Synset load( Long key ) {
+			return CachedRecords.freeze( loadSynsetBySynset( SynsetId.toString( SynsetId.idOf( key ) ) ) );
+		}
+	};
+	
+	private static final CacheLoader<String, List<Synset>> BY_NAME = new CacheLoader<String, List<Synset>>() {
+		public List<Synset> load( String name ) {
+			return CachedRecords.freeze( loadSynsetsByName( name ) );
+		}
+	};
+	
+	private static final CacheLoader<String, List<Synset>> BY_NAME_AND_POS = new CacheLoader<String, List<Synset>>() {
+		public List<Synset> load( String key ) {
+			int sep = key.lastIndexOf(' ');
+			return CachedRecords.freeze( loadSynsetsByNameAndPos( 
+					key.substring(0, sep), POS.valueOf( key.substring(sep+1) ) ) );
+		}
+	};
+	
 	/**
 	 * Find synset record by synset id key
 	 * @param synset id e.g. 06142412-n
 	 * @return synset record
 	 */
 	public static Synset findSynsetBySynset( String synset ) {
-		String key = synset;
-		if ( Configuration.getInstance().useCache() ) {
-			List<Synset> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj).get(0);
+		return findSynsetBySynset( synset, SynsetId.pack( synset ) );
+	}
+	
+	/**
+	 * Find synset record by packed synset id
+	 * @param synsetId packed synset id, see {@link SynsetId}
+	 * @return synset record
+	 */
+	public static Synset findSynsetBySynset( int synsetId ) {
+		return findSynsetBySynset( null, synsetId );
+	}
+	
+	private static Synset findSynsetBySynset( String synset, int synsetId ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( synsetCache.get( Long.valueOf( synsetId ), BY_SYNSET ) );
 		}
-		
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynsetBySynset( synset ) );
+		}
+		return loadSynsetBySynset( synset );
+	}
+	
+	private static Synset loadSynsetBySynset( String synset ) {
 		Synset s = null;
 			
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNSET_BY_SYNSET );
-			synchronized (ps) {
-				ps.setString(1, synset);
-				rs = ps.executeQuery();
-				if ( rs.next() ) {
-					s = rsToObject(rs);
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSET_BY_SYNSET );
+			ps.setString(1, synset);
+			rs = ps.executeQuery();
+			if ( rs.next() ) {
+				s = rsToObject(rs);
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				List<Synset> synsets = new ArrayList<Synset>(1);
-				synsets.add(s);
-				if ( synsets != null ) cache.put( key, clone(synsets) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return s;
 	}
@@ -106,47 +143,40 @@ public class SynsetDAO {
 	 */
 	@Deprecated
 	public static List<Synset> findSynsetsByName( String name ) {
-		String key = name;
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynsetsByName( name ) );
+		}
 		if ( Configuration.getInstance().useCache() ) {
-			List<Synset> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+			return CachedRecords.share( cache.get( name, BY_NAME ) );
 		}
-		
+		return loadSynsetsByName( name );
+	}
+	
+	private static List<Synset> loadSynsetsByName( String name ) {
 		List<Synset> synsets = new ArrayList<Synset>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNSETS_BY_NAME );
-			synchronized (ps) {
-				ps.setString(1, name);
-				rs = ps.executeQuery();
-				while ( rs.next() ) {
-					synsets.add( rsToObject(rs) );
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSETS_BY_NAME );
+			ps.setString(1, name);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synsets.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( synsets != null ) cache.put( key, clone(synsets) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return synsets;
 	}
@@ -161,53 +191,121 @@ public class SynsetDAO {
 	 * @return synset records
 	 */
 	public static List<Synset> findSynsetsByNameAndPos( String name, POS pos ) {
-		String key = name+" "+pos;
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynsetsByNameAndPos( name, pos ) );
+		}
 		if ( Configuration.getInstance().useCache() ) {
-			List<Synset> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+			return CachedRecords.share( cache.get( name+" "+pos, BY_NAME_AND_POS ) );
 		}
+		return loadSynsetsByNameAndPos( name, pos );
+	}
+	
+	private static List<Synset> loadSynsetsByNameAndPos( String name, POS pos ) {
+		List<Synset> synsets = new ArrayList<Synset>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSETS_BY_NAME_AND_POS );
+			ps.setString(1, name);
+			ps.setString(2, pos.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				synsets.add( rsToObject(rs) );
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return synsets;
+	}
+	
+	/**
+	 * Find synset records by synset ids. Cached records are used as they are; 
+	 * the rest is fetched with as few "IN (...)" queries as possible.
+	 * @param synsets synset ids e.g. 06142412-n
+	 * @return synset records keyed by synset id, in the order of the ids. 
+	 * Ids without a record are absent.
+	 */
+	public static Map<String, Synset> findSynsetsBySynsets( Collection<String> synsets ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
 		
+		Map<String, Synset> found = new HashMap<String, Synset>();
+		Set<String> misses = new LinkedHashSet<String>();
+		for ( String synset : synsets ) {
+			if ( engine != null ) {
+				found.put( synset, engine.findSynsetBySynset( synset ) );
+				continue;
+			}
+			int id = SynsetId.pack( synset );
+			Synset cached = useCache && id != SynsetId.NONE ? synsetCache.getIfPresent( Long.valueOf( id ) ) : null;
+			if ( cached != null ) {
+				found.put( synset, cached );
+			} else {
+				misses.add( synset );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( Synset s : loadSynsetsBySynsets( misses ) ) {
+				int id = SynsetId.pack( s.getSynset() );
+				if ( useCache && id != SynsetId.NONE ) {
+					synsetCache.put( Long.valueOf( id ), CachedRecords.freeze( s ) );
+				}
+				found.put( s.getSynset(), s );
+			}
+		}
+		
+		Map<String, Synset> results = new LinkedHashMap<String, Synset>();
+		for ( String synset : synsets ) {
+			Synset s = found.get( synset );
+			if ( s != null ) results.put( synset, CachedRecords.share( s ) );
+		}
+		return results;
+	}
+
+	private static List<Synset> loadSynsetsBySynsets( Collection<String> keys ) {
 		List<Synset> synsets = new ArrayList<Synset>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNSETS_BY_NAME_AND_POS );
-			synchronized (ps) {
-				ps.setString(1, name);
-				ps.setString(2, pos.toString());
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<String> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSETS_BY_SYNSETS );
+				InClause.bind( ps, 1, it );
 				rs = ps.executeQuery();
 				while ( rs.next() ) {
 					synsets.add( rsToObject(rs) );
 				}
 				rs.close();
-//				ps.close();
 				rs = null;
-//				ps = null;
 			}
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( synsets != null ) cache.put( key, clone(synsets) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return synsets;
 	}
-	
-	private static Synset rsToObject( ResultSet rs ) throws SQLException {
+
+	static Synset rsToObject( ResultSet rs ) throws SQLException {
 		Synset synset = new Synset(
 			rs.getString(1),	
 			POS.valueOf( rs.getString(2) ),
@@ -217,12 +315,4 @@ public class SynsetDAO {
 		return synset;
 	}
 	
-	private static List<Synset> clone( List<Synset> synsets ) {
-		List<Synset> cloned = new ArrayList<Synset>( synsets.size() );
-		for ( Synset synset : synsets ) {
-			cloned.add( synset.clone() );
-		}
-		return synsets;
-	}
-	
 }
@@ -18,12 +18,23 @@ package edu.cmu.lti.jawjaw.db;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import edu.cmu.lti.jawjaw.pobj.Lang;
 import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
 import edu.cmu.lti.jawjaw.util.Configuration;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 /**
  * Data Access Object for synset_def table.
@@ -33,15 +44,24 @@ import edu.cmu.lti.jawjaw.util.Configuration;
  */
 public class SynsetDefDAO {
 
-	private static ConcurrentMap<String, SynsetDef> cache;
+	// keyed by SynsetId.key( id, lang )
+	private static LoadingCache<Long, SynsetDef> cache;
 
 	static {
 		if (Configuration.getInstance().useCache()) {
-			cache = new ConcurrentHashMap<String, SynsetDef>(
-				Configuration.getInstance().getMaxCacheSize());
+			cache = CacheFactory.newLoadingCache();
 		}
 	}
 	
+	private static final Lang[] LANGS = Lang.values();
+	
+	private static final CacheLoader<Long, SynsetDef> BY_SYNSET_AND_LANG = new CacheLoader<Long, SynsetDef>() {
+		public SynsetDef load( Long key ) {
+			return CachedRecords.freeze( loadSynsetDefBySynsetAndLang( 
+					SynsetId.toString( SynsetId.idOf( key ) ), LANGS[SynsetId.ordinalOf( key )] ) );
+		}
+	};
+	
 	/**
 	 * Find synset definition record by synset and lang
 	 * @param synset e.g. 06142412-n
@@ -49,53 +69,140 @@ public class SynsetDefDAO {
 	 * @return synset definition
 	 */
 	public static SynsetDef findSynsetDefBySynsetAndLang( String synset, Lang lang ) {
-		String key = synset+" "+lang.toString();
-		if ( Configuration.getInstance().useCache() ) {
-			SynsetDef cachedObj = cache.get(key);
-			if ( cachedObj != null ) return cachedObj.clone();
+		return findSynsetDefBySynsetAndLang( synset, SynsetId.pack( synset ), lang );
+	}
+	
+	/**
+	 * Find synset definition record by synset and lang
+	 * @param synsetId packed synset id, see {@link SynsetId}
+	 * @param lang
+	 * @return synset definition
+	 */
+	public static SynsetDef findSynsetDefBySynsetAndLang( int synsetId, Lang lang ) {
+		return findSynsetDefBySynsetAndLang( null, synsetId, lang );
+	}
+	
+	private static SynsetDef findSynsetDefBySynsetAndLang( String synset, int synsetId, Lang lang ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine == null && Configuration.getInstance().useCache() && synsetId != SynsetId.NONE ) {
+			return CachedRecords.share( cache.get( SynsetId.key( synsetId, lang ), BY_SYNSET_AND_LANG ) );
 		}
-		
+		if ( synset == null ) synset = SynsetId.toString( synsetId );
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findSynsetDefBySynsetAndLang( synset, lang ) );
+		}
+		return loadSynsetDefBySynsetAndLang( synset, lang );
+	}
+	
+	private static SynsetDef loadSynsetDefBySynsetAndLang( String synset, Lang lang ) {
 		SynsetDef synsetDef = null;
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_SYNSETDEF_BY_SYNSET_AND_LANG );
-			synchronized (ps) {
-				ps.setString(1, synset);
-				ps.setString(2, lang.toString());
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSETDEF_BY_SYNSET_AND_LANG );
+			ps.setString(1, synset);
+			ps.setString(2, lang.toString());
+			rs = ps.executeQuery();
+			if ( rs.next() ) {
+				synsetDef = rsToObject(rs);
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return synsetDef;
+	}
+	
+	/**
+	 * Find synset definition records by synset ids and lang. Cached records are 
+	 * used as they are; the rest is fetched with as few "IN (...)" queries as possible.
+	 * @param synsets synset ids e.g. 06142412-n
+	 * @param lang
+	 * @return synset definitions keyed by synset id, in the order of the ids. 
+	 * Ids without a definition are absent.
+	 */
+	public static Map<String, SynsetDef> findSynsetDefsBySynsets( Collection<String> synsets, Lang lang ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
+		
+		Map<String, SynsetDef> found = new HashMap<String, SynsetDef>();
+		Set<String> misses = new LinkedHashSet<String>();
+		for ( String synset : synsets ) {
+			if ( engine != null ) {
+				found.put( synset, engine.findSynsetDefBySynsetAndLang( synset, lang ) );
+				continue;
+			}
+			int id = SynsetId.pack( synset );
+			SynsetDef cached = useCache && id != SynsetId.NONE ? cache.getIfPresent( SynsetId.key( id, lang ) ) : null;
+			if ( cached != null ) {
+				found.put( synset, cached );
+			} else {
+				misses.add( synset );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( SynsetDef synsetDef : loadSynsetDefsBySynsets( misses, lang ) ) {
+				// first definition wins, as with the single lookup
+				if ( found.containsKey( synsetDef.getSynset() ) ) continue;
+				int id = SynsetId.pack( synsetDef.getSynset() );
+				if ( useCache && id != SynsetId.NONE ) {
+					cache.put( SynsetId.key( id, lang ), CachedRecords.freeze( synsetDef ) );
+				}
+				found.put( synsetDef.getSynset(), synsetDef );
+			}
+		}
+		
+		Map<String, SynsetDef> results = new LinkedHashMap<String, SynsetDef>();
+		for ( String synset : synsets ) {
+			SynsetDef synsetDef = found.get( synset );
+			if ( synsetDef != null ) results.put( synset, CachedRecords.share( synsetDef ) );
+		}
+		return results;
+	}
+
+	private static List<SynsetDef> loadSynsetDefsBySynsets( Collection<String> keys, Lang lang ) {
+		List<SynsetDef> synsetDefs = new ArrayList<SynsetDef>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<String> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_SYNSETDEFS_BY_SYNSETS_AND_LANG );
+				ps.setString(1, lang.toString());
+				InClause.bind( ps, 2, it );
 				rs = ps.executeQuery();
-				if ( rs.next() ) {
-					synsetDef = rsToObject(rs);
+				while ( rs.next() ) {
+					synsetDefs.add( rsToObject(rs) );
 				}
 				rs.close();
-//				ps.close();
 				rs = null;
-//				ps = null;
 			}
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
+			SQL.getInstance().releaseConnection( connection );
 		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( synsetDef != null ) cache.put( key, synsetDef.clone() );
-//			}
-		}
-		return synsetDef;
+		return synsetDefs;
 	}
-	
-	private static SynsetDef rsToObject( ResultSet rs ) throws SQLException {
+
+	static SynsetDef rsToObject( ResultSet rs ) throws SQLException {
 		SynsetDef synsetDef = new SynsetDef(
 			rs.getString(1),	
 			Lang.valueOf( rs.getString(2) ),
@@ -34,8 +34,10 @@ import edu.cmu.lti.jawjaw.util.Configuration;
  * statement preparation is costly...?   
  *  
  * @author Hideki Shima
- *
+ * @deprecated opens a second copy of the database and leaks a statement
+ *  per call; use {@link SQL#borrowConnection()} instead.
  */
+@Deprecated
 final public class UnpreparedSQL {
 
 	private static Connection connection;
@@ -96,6 +98,8 @@ final public class UnpreparedSQL {
 	}
 	
 	private void createIndexIfNotExists( Connection connection ) {
+		// DBs written by DatabaseOptimizer already have their indexes
+		if ( DatabaseOptimizer.isOptimized( connection ) ) return;
 		long t0 = System.currentTimeMillis();
 		if (BENCHMARK) System.out.print( "Building index on DB ... " );
 		Statement s = null;
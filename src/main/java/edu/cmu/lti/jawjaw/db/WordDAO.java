@@ -19,15 +19,23 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
+import java.util.Set;
 
 import edu.cmu.lti.jawjaw.pobj.Lang;
 import edu.cmu.lti.jawjaw.pobj.POS;
 import edu.cmu.lti.jawjaw.pobj.Word;
 import edu.cmu.lti.jawjaw.util.Configuration;
 import edu.cmu.lti.jawjaw.util.TextUtil;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 /**
  * Data Access Object for word table
@@ -36,65 +44,92 @@ import edu.cmu.lti.jawjaw.util.TextUtil;
  */
 public class WordDAO {
 
-	private static ConcurrentMap<String, List<Word>> cache;
+	// keyed by word id, apart from lemmas so that numeric lemmas cannot collide
+	private static LoadingCache<Integer, Word> wordidCache;
+	// keyed by lemma, or by lemma and pos
+	private static LoadingCache<String, List<Word>> cache;
 
 	static {
 		if (Configuration.getInstance().useCache()) {
-			cache = new ConcurrentHashMap<String, List<Word>>(
-				Configuration.getInstance().getMaxCacheSize());
+			wordidCache = CacheFactory.newLoadingCache();
+			cache = CacheFactory.newLoadingCache();
 		}
 	}
 	
+	private static final CacheLoader<String, List<Word>> BY_LEMMA = new CacheLoader<String, List<Word>>() {
+		public List<Word> load( String lemma ) {
+			return CachedRecords.freeze( loadWordsByLemma( lemma ) );
+		}
+	};
+	
+	private static final CacheLoader<String, List<Word>> BY_LEMMA_AND_POS = new CacheLoader<String, List<Word>>() {
+		public List<Word> load( String key ) {
+			int sep = key.lastIndexOf(' ');
+			return CachedRecords.freeze( loadWordsByLemmaAndPos( 
+					key.substring(0, sep), POS.valueOf( key.substring(sep+1) ) ) );
+		}
+	};
+	
+	private static final CacheLoader<Integer, Word> BY_WORDID = new CacheLoader<Integer, Word>() {
+		public Word load( Integer wordid ) {
+			return CachedRecords.freeze( loadWordByWordid( wordid ) );
+		}
+	};
+	
+	private static final BatchDispatcher<Integer, Word> WORDID_BATCHES = BatchDispatcher.create( new BatchDispatcher.Loader<Integer, Word>() {
+		public Map<Integer, Word> loadAll( Collection<Integer> wordids ) {
+			Map<Integer, Word> words = new HashMap<Integer, Word>();
+			for ( Word word : loadWordsByWordids( wordids ) ) {
+				words.put( word.getWordid(), word );
+			}
+			return words;
+		}
+	} );
+	
 	/**
 	 * Find words by lemma
 	 * @param lemma cannonical form of the word either in Japanese or English
 	 * @return word records
 	 */
 	public static List<Word> findWordsByLemma( String lemma ) {
-		String key = lemma;
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findWordsByLemma( TextUtil.canonicalize( lemma ) ) );
+		}
+		if ( !LemmaFilter.mightContainLemma( lemma ) ) return new ArrayList<Word>();
 		if ( Configuration.getInstance().useCache() ) {
-			List<Word> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+			return CachedRecords.share( cache.get( lemma, BY_LEMMA ) );
 		}
-		
+		return loadWordsByLemma( lemma );
+	}
+	
+	private static List<Word> loadWordsByLemma( String lemma ) {
 		//Canonicalization
 		lemma = TextUtil.canonicalize( lemma );
 		
 		List<Word> words = new ArrayList<Word>();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_WORD_BY_LEMMA );
-			synchronized (ps) {
-				ps.setString(1, lemma);
-				rs = ps.executeQuery();
-				while ( rs.next() ) {
-					words.add( rsToObject(rs) );
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_WORD_BY_LEMMA );
+			ps.setString(1, lemma);
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				words.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( words != null ) cache.put( key, clone(words) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return words;
 	}
@@ -108,110 +143,189 @@ public class WordDAO {
 	 * @return word records
 	 */
 	public static List<Word> findWordsByLemmaAndPos( String lemma, POS pos ) {
-		String key = lemma+" "+pos;
-		if ( Configuration.getInstance().useCache() ) {
-			List<Word> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj);
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findWordsByLemmaAndPos( lemma == null ? null : lemma.toLowerCase(), pos ) );
 		}
-		
+		if ( !LemmaFilter.mightContainLemmaAndPos( lemma, pos ) ) return new ArrayList<Word>();
+		if ( Configuration.getInstance().useCache() && lemma != null ) {
+			return CachedRecords.share( cache.get( lemma+" "+pos, BY_LEMMA_AND_POS ) );
+		}
+		return loadWordsByLemmaAndPos( lemma, pos );
+	}
+	
+	private static List<Word> loadWordsByLemmaAndPos( String lemma, POS pos ) {
 		List<Word> words = new ArrayList<Word>();
 		if ( lemma == null ) return words;
 		lemma = lemma.toLowerCase();
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_WORD_BY_LEMMA_AND_POS );
-			synchronized (ps) {
-				ps.setString(1, lemma);
-				ps.setString(2, pos.toString());
-				rs = ps.executeQuery();
-				while ( rs.next() ) {
-					words.add( rsToObject(rs) );
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_WORD_BY_LEMMA_AND_POS );
+			ps.setString(1, lemma);
+			ps.setString(2, pos.toString());
+			rs = ps.executeQuery();
+			while ( rs.next() ) {
+				words.add( rsToObject(rs) );
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
-		}
-		
-		if (Configuration.getInstance().useCache()) {
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if ( words != null ) cache.put( key, clone(words) );
-//			}
+			SQL.getInstance().releaseConnection( connection );
 		}
 		return words;
 	}
 	
 	/**
-	 * Find word by word id
+	 * Find words whose lemma starts with a prefix, e.g. for autocompletion. 
+	 * All lemmas are indexed in memory on the first call, after which no 
+	 * SQL is issued.
+	 * 
+	 * @param prefix beginning of a lemma either in Japanese or English
+	 * @param pos part of speech, or null for all
+	 * @param limit largest number of words to return
+	 * @return word records, most frequent senses first, then by lemma
+	 */
+	public static List<Word> findWordsByPrefix( String prefix, POS pos, int limit ) {
+		if ( prefix == null ) return new ArrayList<Word>();
+		return CachedRecords.share( LemmaPrefixIndex.getInstance()
+				.findWordsByPrefix( TextUtil.canonicalize( prefix ), pos, limit ) );
+	}
+	
+	/**
+	 * Find word by word id. With batchWindowMicros set, concurrent lookups 
+	 * are combined into one query.
 	 * @param wordid
 	 * @return word record
 	 */
 	public static Word findWordByWordid( int wordid ) {
-		String key = wordid+"";
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		if ( engine != null ) {
+			return CachedRecords.share( engine.findWordByWordid( wordid ) );
+		}
 		if ( Configuration.getInstance().useCache() ) {
-			List<Word> cachedObj = cache.get(key);
-			if ( cachedObj != null ) return clone(cachedObj).get(0);
+			return CachedRecords.share( wordidCache.get( wordid, BY_WORDID ) );
+		}
+		return loadWordByWordid( wordid );
+	}
+	
+	private static Word loadWordByWordid( int wordid ) {
+		if ( WORDID_BATCHES != null ) {
+			// callers of the same batch asking for the same id share the record
+			Word word = WORDID_BATCHES.get( wordid );
+			return word != null ? word.clone() : null;
 		}
-		
 		Word word = null;
 		
-		PreparedStatement ps = null;
+		PooledConnection connection = null;
 		ResultSet rs = null;
 		
 		try {
-			ps = SQL.getInstance().getPreparedStatement( SQLQuery.FIND_WORD_BY_WORDID );
-			synchronized (ps) {
-				ps.setInt(1, wordid);
-				rs = ps.executeQuery();
-				if ( rs.next() ) {
-					word = rsToObject(rs);
-				}
-				rs.close();
-//				ps.close();
-				rs = null;
-//				ps = null;
+			connection = SQL.getInstance().borrowConnection();
+			PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_WORD_BY_WORDID );
+			ps.setInt(1, wordid);
+			rs = ps.executeQuery();
+			if ( rs.next() ) {
+				word = rsToObject(rs);
 			}
+			rs.close();
+			rs = null;
 		} catch ( SQLException e ) {
 			e.printStackTrace();
 		} finally {
 			try {
 				if ( rs != null ) rs.close();
-//				if ( ps != null ) ps.close();
 			} catch ( SQLException e ) {
 				e.printStackTrace();
 			}
+			SQL.getInstance().releaseConnection( connection );
 		}
+		return word;
+	}
 	
-		if (Configuration.getInstance().useCache()) {
-			List<Word> words = new ArrayList<Word>(1);
-			words.add(word);
-//			synchronized ( cache ) {
-				if (cache.size() >= Configuration.getInstance().getMaxCacheSize()) {
-					cache.remove( cache.keySet().iterator().next() );
+	/**
+	 * Find words by word ids. Cached records are used as they are; the 
+	 * rest is fetched with as few "IN (...)" queries as possible.
+	 * @param wordids word ids
+	 * @return word records keyed by word id, in the order of the ids. 
+	 * Ids without a record are absent.
+	 */
+	public static Map<Integer, Word> findWordsByWordids( int[] wordids ) {
+		LexiconEngine engine = LexiconEngineFactory.getEngine();
+		boolean useCache = engine == null && Configuration.getInstance().useCache();
+		
+		Map<Integer, Word> found = new HashMap<Integer, Word>();
+		Set<Integer> misses = new LinkedHashSet<Integer>();
+		for ( int wordid : wordids ) {
+			if ( engine != null ) {
+				found.put( wordid, engine.findWordByWordid( wordid ) );
+				continue;
+			}
+			Word cached = useCache ? wordidCache.getIfPresent( wordid ) : null;
+			if ( cached != null ) {
+				found.put( wordid, cached );
+			} else {
+				misses.add( wordid );
+			}
+		}
+		if ( !misses.isEmpty() ) {
+			for ( Word word : loadWordsByWordids( misses ) ) {
+				if ( useCache ) {
+					wordidCache.put( word.getWordid(), CachedRecords.freeze( word ) );
 				}
-				if ( word != null ) cache.put( key, clone(words) );
-//			}
+				found.put( word.getWordid(), word );
+			}
 		}
 		
-		return word;
+		Map<Integer, Word> results = new LinkedHashMap<Integer, Word>();
+		for ( int wordid : wordids ) {
+			Word word = found.get( wordid );
+			if ( word != null ) results.put( wordid, CachedRecords.share( word ) );
+		}
+		return results;
 	}
-	
-	private static Word rsToObject( ResultSet rs ) throws SQLException {
+
+	private static List<Word> loadWordsByWordids( Collection<Integer> keys ) {
+		List<Word> words = new ArrayList<Word>();
+		
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			Iterator<Integer> it = keys.iterator();
+			while ( it.hasNext() ) {
+				PreparedStatement ps = connection.getPreparedStatement( SQLQuery.FIND_WORDS_BY_WORDIDS );
+				InClause.bind( ps, 1, it );
+				rs = ps.executeQuery();
+				while ( rs.next() ) {
+					words.add( rsToObject(rs) );
+				}
+				rs.close();
+				rs = null;
+			}
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return words;
+	}
+
+	static Word rsToObject( ResultSet rs ) throws SQLException {
 		Word word = new Word(
 			rs.getInt(1),	
 			Lang.valueOf( rs.getString(2) ),
@@ -221,13 +335,4 @@ public class WordDAO {
 		);
 		return word;
 	}
-	
-	//FIXME:
-	private static List<Word> clone( List<Word> words ) {
-		List<Word> cloned = new ArrayList<Word>( words.size() );
-		for ( Word word : words ) {
-			cloned.add( word.clone() );
-		}
-		return words;
-	}
 }
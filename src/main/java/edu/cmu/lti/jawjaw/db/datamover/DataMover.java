@@ -15,6 +15,7 @@
  */
 package edu.cmu.lti.jawjaw.db.datamover;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -46,6 +47,22 @@ public class DataMover {
 	 */
 	private List<String> tables = new ArrayList<String>();
 
+	/**
+	 * Number of rows inserted per batch.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Whether to print the time spent on each table.
+	 */
+	private boolean verbose = false;
+
+	/**
+	 * Whether to copy each table in one transaction with batched inserts.
+	 * When false, rows are inserted one by one in autocommit mode.
+	 */
+	private boolean transactional = true;
+
 	public Database getSource() {
 		return source;
 	}
@@ -62,6 +79,22 @@ public class DataMover {
 		this.target = target;
 	}
 
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	public boolean isTransactional() {
+		return transactional;
+	}
+
+	public void setTransactional(boolean transactional) {
+		this.transactional = transactional;
+	}
+
 	/**
 	 * Create the specified table. To do this the source database will be
 	 * scanned for the table's structure. Then the table will be created in the
@@ -151,26 +184,49 @@ public class DataMover {
 		PreparedStatement statementTrg = null;
 		ResultSet rs = null;
 
+		long t0 = System.currentTimeMillis();
+		int rows = 0;
+		Connection connection = target.getConnection();
+		boolean autoCommit = true;
 		try {
+			// One transaction and batched inserts; in autocommit mode
+			// every single row would be a transaction of its own.
+			autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(!transactional);
 			statementTrg = target.prepareStatement(insertSQL.toString());
 			statementSrc = source.prepareStatement(selectSQL.toString());
 			rs = statementSrc.executeQuery();
 
-//			int rows = 0;
-
+			int columnCount = columns.size();
 			while (rs.next()) {
-//				rows++;
-				for (int i = 1; i <= columns.size(); i++) {
-					statementTrg.setString(i, rs.getString(i));
+				rows++;
+				// typed binds keep integer columns integer
+				for (int i = 1; i <= columnCount; i++) {
+					statementTrg.setObject(i, rs.getObject(i));
+				}
+				statementTrg.addBatch();
+				if (!transactional || rows % BATCH_SIZE == 0) {
+					statementTrg.executeBatch();
 				}
-				statementTrg.execute();
 			}
+			statementTrg.executeBatch();
+			if (transactional) connection.commit();
 			rs.close();
 			statementSrc.close();
 			statementTrg.close();
 		} catch (SQLException e) {
+			try {
+				if (transactional) connection.rollback();
+			} catch (SQLException e2) {
+				e2.printStackTrace();
+			}
 			throw (new DatabaseException(e));
 		} finally {
+			try {
+				connection.setAutoCommit(autoCommit);
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
 			try {
 				if (rs != null) rs.close();
 			} catch (SQLException e) {
@@ -187,6 +243,11 @@ public class DataMover {
 				throw (new DatabaseException(e));
 			}
 		}
+		long t1 = System.currentTimeMillis();
+		if (verbose) {
+			System.out.println("  " + table + ": " + rows + " rows in "
+					+ ((double) (t1 - t0) / 1000D) + " sec.");
+		}
 	}
 
 	private void copyTableData() throws DatabaseException {
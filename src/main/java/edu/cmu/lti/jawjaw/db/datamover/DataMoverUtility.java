@@ -15,7 +15,20 @@
  */
 package edu.cmu.lti.jawjaw.db.datamover;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLDecoder;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 
 
 /**
@@ -32,6 +45,9 @@ import java.sql.Connection;
  */
 public class DataMoverUtility {
 
+	// resources already extracted from jars, by URL
+	private static final Map<String,File> extracted = new HashMap<String,File>();
+
 	public static void copyDB( String sourceDriver, String sourceURL, 
 			String targetDriver, String targetURL ) {
 		try {
@@ -56,31 +72,158 @@ public class DataMoverUtility {
 	}
 	
 	public static Connection getMemoryDBConnection( String sourceDriver, String sourceURL ) {
+		return getMemoryDBConnection( sourceDriver, sourceURL, "jdbc:sqlite::memory:", new Properties() );
+	}
+	
+	/**
+	 * Loads the source database into the in-memory database at targetURL,
+	 * e.g. a shared-cache database that other connections can open as well.
+	 * If the source is (or can be extracted to) a file, it is restored with
+	 * SQLite's online backup API, indexes included. Otherwise the tables 
+	 * are copied without indexes, which are cheaper to create afterwards.
+	 * 
+	 * @param sourceDriver driver of both databases
+	 * @param sourceURL source database
+	 * @param targetURL in-memory database
+	 * @param info connection properties of the target
+	 * @return connection to the target, which keeps the database alive
+	 */
+	public static Connection getMemoryDBConnection( String sourceDriver, String sourceURL, 
+			String targetURL, Properties info ) {
+		System.out.println( "Loading WordNet DB into memory ... " );
+		long t0 = System.currentTimeMillis();
+		Connection connection = restoreMemoryDB( sourceDriver, sourceURL, targetURL, info );
+		if ( connection == null ) {
+			connection = copyMemoryDB( sourceDriver, sourceURL, targetURL, info, true );
+		}
+		long t1 = System.currentTimeMillis();
+		System.out.println( "done in "+((double)(t1-t0)/1000D)+" sec." );
+		return connection;
+	}
+	
+	/**
+	 * Restores the source database file into the target page by page 
+	 * ("restore from" command of the sqlite-jdbc driver).
+	 * 
+	 * @return connection to the target, or null if the source is not 
+	 *  a file or restoring failed
+	 */
+	static Connection restoreMemoryDB( String driver, String sourceURL, 
+			String targetURL, Properties info ) {
+		File file = toFile( sourceURL );
+		if ( file == null ) return null;
+		long t0 = System.currentTimeMillis();
+		Connection connection = null;
+		Statement s = null;
+		try {
+			Class.forName( driver );
+			connection = DriverManager.getConnection( targetURL, info );
+			s = connection.createStatement();
+			s.executeUpdate( "restore from \""+file.getAbsolutePath()+"\"" );
+			long t1 = System.currentTimeMillis();
+			System.out.println( "  restored "+file.getName()+" in "+((double)(t1-t0)/1000D)+" sec." );
+			return connection;
+		} catch ( ClassNotFoundException e ) {
+			e.printStackTrace();
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( s != null ) s.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+		}
+		try {
+			if ( connection != null ) connection.close();
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Copies the tables of the source database into the target.
+	 * 
+	 * @param transactional false for the old row-by-row copy in autocommit mode
+	 * @return connection to the target
+	 */
+	static Connection copyMemoryDB( String sourceDriver, String sourceURL, 
+			String targetURL, Properties info, boolean transactional ) {
 		Connection connection = null;
-		String targetURL = "jdbc:sqlite::memory:";
 		try {
 			DataMover mover = new DataMover();
+			mover.setVerbose(true);
+			mover.setTransactional(transactional);
 
 			Database source = new SQLite();
 			source.connect(sourceDriver, sourceURL);
 
 			Database target = new SQLite();
-			target.connect(sourceDriver, targetURL);
+			target.connect(sourceDriver, targetURL, info);
 
 			mover.setSource(source);
 			mover.setTarget(target);
-			System.out.print( "Loading WordNet DB into memory ... " );
-			long t0 = System.currentTimeMillis();
 			mover.exportDatabse();
-			long t1 = System.currentTimeMillis();
-			System.out.println( "done in "+((double)(t1-t0)/1000D)+" sec." );
 			source.close();
 			
-			// Below was somehow missing before Jun
 			connection = target.getConnection();
 		} catch ( DatabaseException e ) {
 			e.printStackTrace();
 		} 
 		return connection;
 	}
+	
+	/**
+	 * @return the database file of a sqlite URL, extracted to a temporary 
+	 *  file if it is a resource in a jar; null for in-memory or URI databases
+	 */
+	static File toFile( String url ) {
+		final String resourcePrefix = "jdbc:sqlite::resource:";
+		final String filePrefix = "jdbc:sqlite:";
+		try {
+			if ( url.startsWith( resourcePrefix ) ) {
+				String name = url.substring( resourcePrefix.length() );
+				URL resource = name.indexOf(':') > 1 ? new URL( name ) 
+						: DataMoverUtility.class.getResource( name.startsWith("/") ? name : "/"+name );
+				if ( resource == null ) return null;
+				if ( "file".equals( resource.getProtocol() ) ) {
+					return new File( URLDecoder.decode( resource.getPath(), "UTF-8" ) );
+				}
+				return extract( resource );
+			} else if ( url.startsWith( filePrefix ) ) {
+				String path = url.substring( filePrefix.length() );
+				if ( path.length() == 0 || path.startsWith(":") || path.startsWith("file:") ) return null;
+				File file = new File( path );
+				return file.isFile() ? file : null;
+			}
+		} catch ( IOException e ) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	private static synchronized File extract( URL resource ) throws IOException {
+		File file = extracted.get( resource.toString() );
+		if ( file != null && file.isFile() ) return file;
+		file = File.createTempFile( "jawjaw-", ".db" );
+		file.deleteOnExit();
+		InputStream in = resource.openStream();
+		try {
+			OutputStream out = new FileOutputStream( file );
+			try {
+				byte[] buffer = new byte[64*1024];
+				int n;
+				while ( (n = in.read( buffer )) != -1 ) {
+					out.write( buffer, 0, n );
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+		extracted.put( resource.toString(), file );
+		return file;
+	}
 }
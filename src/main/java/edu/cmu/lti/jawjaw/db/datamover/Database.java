@@ -18,6 +18,7 @@ package edu.cmu.lti.jawjaw.db.datamover;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Properties;
 
 /**
  * The Database class is used to provide all of the low-level
@@ -74,6 +75,33 @@ public abstract class Database {
 		}
 	}
   
+	/**
+	 * Open a connection to the database with driver specific properties.
+	 * 
+	 * @param driver
+	 *            The database driver to use.
+	 * @param url
+	 *            The datbase connection URL to use.
+	 * @param info
+	 *            Connection properties passed to the driver.
+	 * @throws DatabaseException
+	 *             Thrown if an error occurs while connecting.
+	 */
+	public void connect(String driver, String url, Properties info) throws DatabaseException {
+		try {
+			Class.forName(driver).newInstance();
+			connection = DriverManager.getConnection(url, info);
+		} catch (InstantiationException e) {
+			throw new DatabaseException(e);
+		} catch (IllegalAccessException e) {
+			throw new DatabaseException(e);
+		} catch (ClassNotFoundException e) {
+			throw new DatabaseException(e);
+		} catch (SQLException e) {
+			throw new DatabaseException(e);
+		}
+	}
+  
   /**
 	 * Called to close the database.
 	 * 
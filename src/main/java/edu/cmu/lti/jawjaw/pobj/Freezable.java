@@ -0,0 +1,42 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.pobj;
+
+/**
+ * Persistent data objects that can be frozen. A frozen object is shared 
+ * (e.g. by the DAO caches) and rejects all setters with an 
+ * {@link UnsupportedOperationException}; {@link #clone()} gives a mutable copy.
+ * 
+ * @param <T> the persistent data class itself
+ */
+public interface Freezable<T> extends Cloneable {
+
+	/**
+	 * Makes this object read-only. 
+	 * @return this object
+	 */
+	T freeze();
+
+	/**
+	 * @return true if the setters are disabled
+	 */
+	boolean isFrozen();
+
+	/**
+	 * @return a mutable copy
+	 */
+	T clone();
+}
@@ -20,7 +20,7 @@ package edu.cmu.lti.jawjaw.pobj;
  * @author Hideki Shima
  *
  */
-public class Sense implements Cloneable {
+public class Sense implements Freezable<Sense> {
 
 	private String synset;
 	private int wordid;
@@ -29,6 +29,7 @@ public class Sense implements Cloneable {
 	private int lexid;
 	private int freq;
 	private String src;
+	private boolean frozen;
 	
 	public Sense( String synset, int wordid, Lang lang, 
 	int rank, int lexid, int freq, String src ) {
@@ -70,6 +71,7 @@ public class Sense implements Cloneable {
 	 * @param synset the synset to set
 	 */
 	public void setSynset(String synset) {
+		checkMutable();
 		this.synset = synset;
 	}
 
@@ -84,6 +86,7 @@ public class Sense implements Cloneable {
 	 * @param wordid the wordid to set
 	 */
 	public void setWordid(int wordid) {
+		checkMutable();
 		this.wordid = wordid;
 	}
 
@@ -98,6 +101,7 @@ public class Sense implements Cloneable {
 	 * @param lang the lang to set
 	 */
 	public void setLang(Lang lang) {
+		checkMutable();
 		this.lang = lang;
 	}
 
@@ -112,6 +116,7 @@ public class Sense implements Cloneable {
 	 * @param rank the rank to set
 	 */
 	public void setRank(int rank) {
+		checkMutable();
 		this.rank = rank;
 	}
 
@@ -126,6 +131,7 @@ public class Sense implements Cloneable {
 	 * @param lexid the lexid to set
 	 */
 	public void setLexid(int lexid) {
+		checkMutable();
 		this.lexid = lexid;
 	}
 
@@ -140,6 +146,7 @@ public class Sense implements Cloneable {
 	 * @param freq the freq to set
 	 */
 	public void setFreq(int freq) {
+		checkMutable();
 		this.freq = freq;
 	}
 
@@ -154,12 +161,26 @@ public class Sense implements Cloneable {
 	 * @param src the src to set
 	 */
 	public void setSrc(String src) {
+		checkMutable();
 		this.src = src;
 	}
 	
 	@Override
 	public Sense clone() {
-		return new Sense( synset, wordid, Lang.valueOf(lang.toString()), rank, lexid, freq, src );
+		return new Sense( synset, wordid, lang, rank, lexid, freq, src );
+	}
+
+	public Sense freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 	
 }
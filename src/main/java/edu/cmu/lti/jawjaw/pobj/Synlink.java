@@ -20,12 +20,13 @@ package edu.cmu.lti.jawjaw.pobj;
  * @author Hideki Shima
  *
  */
-public class Synlink implements Cloneable {
+public class Synlink implements Freezable<Synlink> {
 
 	private String synset1;
 	private String synset2;
 	private Link link;
 	private String src;
+	private boolean frozen;
 	
 	public Synlink( String synset1, String synset2, Link link, String src ) {
 		this.synset1 = synset1;
@@ -60,6 +61,7 @@ public class Synlink implements Cloneable {
 	 * @param synset1 the synset1 to set
 	 */
 	public void setSynset1(String synset1) {
+		checkMutable();
 		this.synset1 = synset1;
 	}
 
@@ -74,6 +76,7 @@ public class Synlink implements Cloneable {
 	 * @param synset2 the synset2 to set
 	 */
 	public void setSynset2(String synset2) {
+		checkMutable();
 		this.synset2 = synset2;
 	}
 
@@ -88,6 +91,7 @@ public class Synlink implements Cloneable {
 	 * @param link the link to set
 	 */
 	public void setLink(Link link) {
+		checkMutable();
 		this.link = link;
 	}
 
@@ -102,12 +106,26 @@ public class Synlink implements Cloneable {
 	 * @param src the src to set
 	 */
 	public void setSrc(String src) {
+		checkMutable();
 		this.src = src;
 	}
 
 	@Override
 	public Synlink clone() {
-		return new Synlink( synset1, synset2, Link.valueOf(link.toString()), src );
+		return new Synlink( synset1, synset2, link, src );
+	}
+
+	public Synlink freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 	
 }
@@ -23,12 +23,13 @@ import edu.cmu.lti.jawjaw.db.SynsetDAO;
  *
  */
 
-public class Synset implements Cloneable {
+public class Synset implements Freezable<Synset> {
 
 	private String synset;
 	private POS pos;
 	private String name;
 	private String src;
+	private boolean frozen;
 	
 	public Synset( String synset ) {
 		this.synset = synset; 
@@ -67,6 +68,7 @@ public class Synset implements Cloneable {
 	 * @param synset the synset to set
 	 */
 	public void setSynset(String synset) {
+		checkMutable();
 		this.synset = synset;
 	}
 
@@ -74,11 +76,8 @@ public class Synset implements Cloneable {
 	 * @return the pos
 	 */
 	public POS getPos() {
-		if ( pos==null ) {
-			Synset realSynset = SynsetDAO.findSynsetBySynset( getSynset() );
-			setName( realSynset.getName() );
-			setPos( realSynset.getPos() );
-			setSrc( realSynset.getSrc() );
+		if ( pos==null && !frozen ) {
+			fill();
 		}
 		return pos;
 	}
@@ -87,6 +86,7 @@ public class Synset implements Cloneable {
 	 * @param pos the pos to set
 	 */
 	public void setPos(POS pos) {
+		checkMutable();
 		this.pos = pos;
 	}
 
@@ -94,20 +94,30 @@ public class Synset implements Cloneable {
 	 * @return the name
 	 */
 	public String getName() {
-		if ( name==null ) {
-			Synset realSynset = SynsetDAO.findSynsetBySynset( getSynset() );
-			setName( realSynset.getName() );
-			setPos( realSynset.getPos() );
-			setSrc( realSynset.getSrc() );
-			return name;
+		if ( name==null && !frozen ) {
+			fill();
 		}
 		return name;
 	}
+	
+	/**
+	 * Loads the fields other than the synset id, which may be missing 
+	 * when this object was made from a sense record. Never done on frozen
+	 * objects: they may be shared between threads, and the DAOs freeze 
+	 * complete records only.
+	 */
+	private void fill() {
+		Synset realSynset = SynsetDAO.findSynsetBySynset( getSynset() );
+		name = realSynset.getName();
+		pos = realSynset.getPos();
+		src = realSynset.getSrc();
+	}
 
 	/**
 	 * @param name the name to set
 	 */
 	public void setName(String name) {
+		checkMutable();
 		this.name = name;
 	}
 
@@ -122,11 +132,25 @@ public class Synset implements Cloneable {
 	 * @param src the src to set
 	 */
 	public void setSrc(String src) {
+		checkMutable();
 		this.src = src;
 	}
 
 	@Override
 	public Synset clone() {
-		return new Synset( synset, POS.valueOf(pos.toString()), name, src );
+		return new Synset( synset, pos, name, src );
+	}
+
+	public Synset freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 }
@@ -20,12 +20,13 @@ package edu.cmu.lti.jawjaw.pobj;
  * @author Hideki Shima
  *
  */
-public class SynsetDef implements Cloneable {
+public class SynsetDef implements Freezable<SynsetDef> {
 
 	private String synset;
 	private Lang lang;
 	private String def;
 	private int sid;
+	private boolean frozen;
 	
 	public SynsetDef( String synset, Lang lang, String def, int sid ) {
 		this.synset = synset;
@@ -60,6 +61,7 @@ public class SynsetDef implements Cloneable {
 	 * @param synset the synset to set
 	 */
 	public void setSynset(String synset) {
+		checkMutable();
 		this.synset = synset;
 	}
 
@@ -74,6 +76,7 @@ public class SynsetDef implements Cloneable {
 	 * @param lang the lang to set
 	 */
 	public void setLang(Lang lang) {
+		checkMutable();
 		this.lang = lang;
 	}
 
@@ -88,6 +91,7 @@ public class SynsetDef implements Cloneable {
 	 * @param def the def to set
 	 */
 	public void setDef(String def) {
+		checkMutable();
 		this.def = def;
 	}
 
@@ -102,12 +106,26 @@ public class SynsetDef implements Cloneable {
 	 * @param sid the sid to set
 	 */
 	public void setSid(int sid) {
+		checkMutable();
 		this.sid = sid;
 	}
 	
 	@Override
 	public SynsetDef clone() {
-		return new SynsetDef( synset, Lang.valueOf(lang.toString()), def, sid );
+		return new SynsetDef( synset, lang, def, sid );
+	}
+
+	public SynsetDef freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 	
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.pobj;
+
+/**
+ * Packs a synset id such as 06142412-n into an int: the 8-digit offset 
+ * in the upper bits and the POS in the lowest two bits. Packed ids sort 
+ * like the strings. Use them as keys of indexes and caches, and turn them
+ * back into strings only where a string is needed.
+ */
+public final class SynsetId {
+
+	/**
+	 * Returned by {@link #pack(String)} for strings that are not synset ids.
+	 */
+	public static final int NONE = -1;
+
+	// POS in alphabetical order of their letters, so that ids sort like strings
+	private static final POS[] POS_BY_CODE = { POS.a, POS.n, POS.r, POS.v };
+	private static final int[] CODE_BY_POS = new int[POS.values().length];
+	static {
+		for ( int i = 0; i < POS_BY_CODE.length; i++ ) {
+			CODE_BY_POS[POS_BY_CODE[i].ordinal()] = i;
+		}
+	}
+
+	private SynsetId() {}
+
+	/**
+	 * @param offset offset, 0 to 99999999
+	 * @param pos POS
+	 * @return packed id
+	 */
+	public static int pack( int offset, POS pos ) {
+		if ( offset < 0 || offset > 99999999 ) {
+			throw new IllegalArgumentException( "Offset out of range: "+offset );
+		}
+		return offset << 2 | CODE_BY_POS[pos.ordinal()];
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return packed id, or {@link #NONE} if the string is not of that form
+	 */
+	public static int pack( String synset ) {
+		if ( synset == null || synset.length() != 10 || synset.charAt(8) != '-' ) return NONE;
+		int offset = 0;
+		for ( int i = 0; i < 8; i++ ) {
+			char c = synset.charAt(i);
+			if ( c < '0' || c > '9' ) return NONE;
+			offset = offset * 10 + (c - '0');
+		}
+		int code;
+		switch ( synset.charAt(9) ) {
+			case 'a': code = 0; break;
+			case 'n': code = 1; break;
+			case 'r': code = 2; break;
+			case 'v': code = 3; break;
+			default: return NONE;
+		}
+		return offset << 2 | code;
+	}
+
+	/**
+	 * @param id packed id
+	 * @return synset id e.g. 06142412-n
+	 */
+	public static String toString( int id ) {
+		checkId( id );
+		char[] chars = new char[10];
+		int offset = id >>> 2;
+		for ( int i = 7; i >= 0; i-- ) {
+			chars[i] = (char)('0' + offset % 10);
+			offset /= 10;
+		}
+		chars[8] = '-';
+		chars[9] = POS_BY_CODE[id & 3].name().charAt(0);
+		return new String( chars );
+	}
+
+	/**
+	 * @param id packed id
+	 * @return offset
+	 */
+	public static int offset( int id ) {
+		checkId( id );
+		return id >>> 2;
+	}
+
+	/**
+	 * @param id packed id
+	 * @return POS
+	 */
+	public static POS pos( int id ) {
+		checkId( id );
+		return POS_BY_CODE[id & 3];
+	}
+
+	/**
+	 * Combines a packed id and an enum constant (e.g. a link type or 
+	 * language) into one key, without building a string.
+	 * @param id packed id
+	 * @param qualifier enum constant
+	 * @return key; distinct from every id and from keys with other qualifiers
+	 */
+	public static long key( int id, Enum<?> qualifier ) {
+		checkId( id );
+		return (long)(qualifier.ordinal() + 1) << 32 | id;
+	}
+
+	/**
+	 * @param key key made by {@link #key(int, Enum)}, or a plain packed id
+	 * @return the packed id
+	 */
+	public static int idOf( long key ) {
+		return (int)key;
+	}
+
+	/**
+	 * @param key key made by {@link #key(int, Enum)}
+	 * @return ordinal of the enum constant
+	 */
+	public static int ordinalOf( long key ) {
+		return (int)(key >>> 32) - 1;
+	}
+
+	private static void checkId( int id ) {
+		if ( id < 0 ) throw new IllegalArgumentException( "Not a synset id: "+id );
+	}
+}
@@ -20,13 +20,14 @@ package edu.cmu.lti.jawjaw.pobj;
  * @author Hideki Shima
  *
  */
-public class Word implements Cloneable {
+public class Word implements Freezable<Word> {
 
 	private int wordid;
 	private Lang lang;
 	private String lemma;
 	private String pron;
 	private POS pos;
+	private boolean frozen;
 	
 	public Word( int wordid, Lang lang, String lemma, String pron, POS pos ) {
 		this.wordid = wordid;
@@ -62,6 +63,7 @@ public class Word implements Cloneable {
 	 * @param wordid the wordId to set
 	 */
 	public void setWordid(int wordid) {
+		checkMutable();
 		this.wordid = wordid;
 	}
 	/**
@@ -74,6 +76,7 @@ public class Word implements Cloneable {
 	 * @param lang the lang to set
 	 */
 	public void setLang(Lang lang) {
+		checkMutable();
 		this.lang = lang;
 	}
 	/**
@@ -86,6 +89,7 @@ public class Word implements Cloneable {
 	 * @param lemma the lemma to set
 	 */
 	public void setLemma(String lemma) {
+		checkMutable();
 		this.lemma = lemma;
 	}
 	/**
@@ -98,6 +102,7 @@ public class Word implements Cloneable {
 	 * @param pron the pron to set
 	 */
 	public void setPron(String pron) {
+		checkMutable();
 		this.pron = pron;
 	}
 	/**
@@ -110,11 +115,25 @@ public class Word implements Cloneable {
 	 * @param pos the pos to set
 	 */
 	public void setPos(POS pos) {
+		checkMutable();
 		this.pos = pos;
 	}
 	
 	@Override
 	public Word clone() {
-		return new Word( wordid, Lang.valueOf(lang.toString()), lemma, pron, POS.valueOf(pos.toString()) );
+		return new Word( wordid, lang, lemma, pron, pos );
+	}
+
+	public Word freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 }
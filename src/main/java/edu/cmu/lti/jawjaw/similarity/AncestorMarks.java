@@ -0,0 +1,94 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.util.Arrays;
+
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Marks the ancestors of one node with their hop distance, so that the 
+ * common subsumers of a second node can be found in one pass over its 
+ * closure. Marks are invalidated by a stamp instead of clearing the arrays.
+ * Not thread-safe; each thread uses its own instance.
+ */
+final class AncestorMarks {
+
+	private final Taxonomy taxonomy;
+	private final int[] stamps;
+	private final int[] hops;
+	private int stamp;
+	private int marked = -1;
+	/** scores against the marked node, valid where memoStamps equals stamp */
+	private int[] memoStamps;
+	private float[] memo;
+
+	AncestorMarks( Taxonomy taxonomy ) {
+		this.taxonomy = taxonomy;
+		stamps = new int[taxonomy.size()];
+		hops = new int[taxonomy.size()];
+	}
+
+	/**
+	 * Marks the node and all its ancestors, replacing earlier marks.
+	 * @param node node number
+	 */
+	void mark( int node ) {
+		if ( node == marked ) return;
+		if ( ++stamp == Integer.MAX_VALUE ) {
+			Arrays.fill( stamps, 0 );
+			if ( memoStamps != null ) Arrays.fill( memoStamps, 0 );
+			stamp = 1;
+		}
+		for ( int i = taxonomy.ancestorStart( node ); i < taxonomy.ancestorEnd( node ); i++ ) {
+			int ancestor = taxonomy.ancestor( i );
+			stamps[ancestor] = stamp;
+			hops[ancestor] = taxonomy.ancestorHops( i );
+		}
+		marked = node;
+	}
+
+	/**
+	 * @param node node number
+	 * @return hops from the marked node to the given one, or -1 if it is 
+	 * not an ancestor of the marked node
+	 */
+	int hopsTo( int node ) {
+		return stamps[node] == stamp ? hops[node] : -1;
+	}
+
+	/**
+	 * @param node node number
+	 * @return score of the node against the marked node remembered by 
+	 * {@link #remember(int, float)}, or NaN; forgotten when another node is marked
+	 */
+	float remembered( int node ) {
+		return memoStamps != null && memoStamps[node] == stamp ? memo[node] : Float.NaN;
+	}
+
+	/**
+	 * @param node node number
+	 * @param score score of the node against the marked node
+	 */
+	void remember( int node, float score ) {
+		if ( memoStamps == null ) {
+			memoStamps = new int[stamps.length];
+			memo = new float[stamps.length];
+		}
+		memoStamps[node] = stamp;
+		memo[node] = score;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import edu.cmu.lti.jawjaw.db.PooledConnection;
+import edu.cmu.lti.jawjaw.db.SQL;
+import edu.cmu.lti.jawjaw.db.SQLQuery;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Information content (IC) of the synsets of a {@link Taxonomy}, computed 
+ * once and stored by node number. Two sources are supported:
+ * <ul>
+ * <li>corpus IC: -log p(c), where p(c) is the share of the sense 
+ * frequencies of c and all its hyponyms among those of its POS. Every 
+ * synset counts one more than its frequency (add-one smoothing), so 
+ * synsets without frequencies still get a finite IC.</li>
+ * <li>intrinsic IC (Seco et al. 2004): 1 - log(hypo(c) + 1) / log(N), where 
+ * hypo(c) is the number of hyponyms of c (direct or not) and N the number 
+ * of synsets of its POS. It needs no frequencies and thus suits Japanese 
+ * synsets.</li>
+ * </ul>
+ * Frequencies are added to every ancestor in the closure exactly once, so 
+ * a synset with two parents does not count twice for their common ancestors.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class InformationContent {
+
+	private static class CorpusHolder {
+		static final InformationContent instance = fromFrequencies( Taxonomy.getInstance() );
+	}
+
+	private static class IntrinsicHolder {
+		static final InformationContent instance = intrinsic( Taxonomy.getInstance() );
+	}
+
+	private final Taxonomy taxonomy;
+	private final double[] ic;
+
+	private InformationContent( Taxonomy taxonomy, double[] ic ) {
+		this.taxonomy = taxonomy;
+		this.ic = ic;
+	}
+
+	/**
+	 * @return corpus IC from the sense frequencies of the WordNet DB, 
+	 * computed on first call
+	 */
+	public static InformationContent getCorpusInstance() {
+		return CorpusHolder.instance;
+	}
+
+	/**
+	 * @return intrinsic IC of the WordNet hierarchy, computed on first call
+	 */
+	public static InformationContent getIntrinsicInstance() {
+		return IntrinsicHolder.instance;
+	}
+
+	/**
+	 * Computes corpus IC from the sense frequencies of the WordNet DB.
+	 * @param taxonomy hierarchy
+	 * @return IC
+	 */
+	public static InformationContent fromFrequencies( Taxonomy taxonomy ) {
+		int[] synsets = new int[1024];
+		int[] freqs = new int[1024];
+		int n = 0;
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_SYNSET_FREQS ).executeQuery();
+			while ( rs.next() ) {
+				int synset = SynsetId.pack( rs.getString(1) );
+				if ( synset == SynsetId.NONE ) continue;
+				if ( n == synsets.length ) {
+					synsets = Arrays.copyOf( synsets, n*2 );
+					freqs = Arrays.copyOf( freqs, n*2 );
+				}
+				synsets[n] = synset;
+				freqs[n] = rs.getInt(2);
+				n++;
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		return fromFrequencies( taxonomy, Arrays.copyOf( synsets, n ), Arrays.copyOf( freqs, n ) );
+	}
+
+	/**
+	 * Computes corpus IC from given frequencies, e.g. of another corpus.
+	 * Synsets outside the taxonomy are ignored.
+	 * @param taxonomy hierarchy
+	 * @param synsets packed synset ids
+	 * @param freqs their frequencies, in the same order
+	 * @return IC
+	 */
+	public static InformationContent fromFrequencies( Taxonomy taxonomy, int[] synsets, int[] freqs ) {
+		if ( synsets.length != freqs.length ) {
+			throw new IllegalArgumentException( "Lengths differ: "+synsets.length+" != "+freqs.length );
+		}
+		int size = taxonomy.size();
+		double[] own = new double[size];
+		Arrays.fill( own, 1 );
+		for ( int i = 0; i < synsets.length; i++ ) {
+			int node = taxonomy.nodeOf( synsets[i] );
+			if ( node >= 0 ) own[node] += Math.max( 0, freqs[i] );
+		}
+		double[] counts = new double[size];
+		double[] totals = new double[POS.values().length];
+		for ( int node = 0; node < size; node++ ) {
+			for ( int i = taxonomy.ancestorStart( node ); i < taxonomy.ancestorEnd( node ); i++ ) {
+				counts[taxonomy.ancestor( i )] += own[node];
+			}
+			totals[posOf( taxonomy, node )] += own[node];
+		}
+		double[] ic = new double[size];
+		for ( int node = 0; node < size; node++ ) {
+			ic[node] = -Math.log( counts[node] / totals[posOf( taxonomy, node )] );
+		}
+		return new InformationContent( taxonomy, ic );
+	}
+
+	/**
+	 * Computes intrinsic IC from the number of hyponyms.
+	 * @param taxonomy hierarchy
+	 * @return IC
+	 */
+	public static InformationContent intrinsic( Taxonomy taxonomy ) {
+		int size = taxonomy.size();
+		int[] hyponyms = new int[size];
+		int[] synsetsByPos = new int[POS.values().length];
+		for ( int node = 0; node < size; node++ ) {
+			// the first closure entry is the node itself
+			for ( int i = taxonomy.ancestorStart( node )+1; i < taxonomy.ancestorEnd( node ); i++ ) {
+				hyponyms[taxonomy.ancestor( i )]++;
+			}
+			synsetsByPos[posOf( taxonomy, node )]++;
+		}
+		double[] ic = new double[size];
+		for ( int node = 0; node < size; node++ ) {
+			int n = synsetsByPos[posOf( taxonomy, node )];
+			ic[node] = n > 1 ? 1 - Math.log( hyponyms[node] + 1 ) / Math.log( n ) : 1;
+		}
+		return new InformationContent( taxonomy, ic );
+	}
+
+	private static int posOf( Taxonomy taxonomy, int node ) {
+		return SynsetId.pos( taxonomy.synsetOf( node ) ).ordinal();
+	}
+
+	/**
+	 * @return hierarchy the IC belongs to
+	 */
+	public Taxonomy getTaxonomy() {
+		return taxonomy;
+	}
+
+	/**
+	 * @param node node number of the taxonomy
+	 * @return IC of the node
+	 */
+	public double ic( int node ) {
+		return ic[node];
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return IC of the synset, or 0 if it is outside the taxonomy
+	 */
+	public double getIC( String synset ) {
+		int node = taxonomy.nodeOf( synset );
+		return node >= 0 ? ic[node] : 0;
+	}
+}
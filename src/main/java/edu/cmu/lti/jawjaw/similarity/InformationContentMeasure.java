@@ -0,0 +1,43 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+/**
+ * Base of the measures that use the information content of the lowest 
+ * common subsumer, i.e. the common subsumer with the largest IC.
+ */
+public abstract class InformationContentMeasure extends SimilarityMeasure {
+
+	protected final InformationContent ic;
+
+	InformationContentMeasure( InformationContent ic ) {
+		super( ic.getTaxonomy() );
+		this.ic = ic;
+	}
+
+	/**
+	 * @return largest IC of the common subsumers of the marked node and 
+	 * node2, or -1 if there is none
+	 */
+	final double lcsIC( int node2, AncestorMarks marks ) {
+		double best = -1;
+		for ( int i = taxonomy.ancestorStart( node2 ); i < taxonomy.ancestorEnd( node2 ); i++ ) {
+			int ancestor = taxonomy.ancestor( i );
+			if ( marks.hopsTo( ancestor ) >= 0 ) best = Math.max( best, ic.ic( ancestor ) );
+		}
+		return best;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+/**
+ * Jiang &amp; Conrath (1997): 1 / (IC(s1) + IC(s2) - 2 * IC(lcs)). 
+ * Identical synsets, and other pairs at distance 0, score 
+ * Double.POSITIVE_INFINITY.
+ */
+public class JiangConrath extends InformationContentMeasure {
+
+	/**
+	 * Uses the corpus IC of the WordNet DB.
+	 */
+	public JiangConrath() {
+		this( InformationContent.getCorpusInstance() );
+	}
+
+	/**
+	 * @param ic information content, corpus or intrinsic
+	 */
+	public JiangConrath( InformationContent ic ) {
+		super( ic );
+	}
+
+	@Override
+	double score( int node1, int node2, AncestorMarks marks ) {
+		if ( node1 == node2 ) return Double.POSITIVE_INFINITY;
+		double lcs = lcsIC( node2, marks );
+		if ( lcs < 0 ) return 0;
+		double distance = ic.ic( node1 ) + ic.ic( node2 ) - 2 * lcs;
+		return distance > 0 ? 1 / distance : Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Leacock &amp; Chodorow (1998): -log( length / (2 * D) ), where length is 
+ * the number of nodes on the shortest path between the synsets and D the 
+ * number of nodes on the longest root path of their POS. Identical synsets 
+ * score log(2 * D), the largest value for the POS.
+ */
+public class LeacockChodorow extends SimilarityMeasure {
+
+	public LeacockChodorow() {
+		this( Taxonomy.getInstance() );
+	}
+
+	/**
+	 * @param taxonomy hypernym hierarchy
+	 */
+	public LeacockChodorow( Taxonomy taxonomy ) {
+		super( taxonomy );
+	}
+
+	@Override
+	double score( int node1, int node2, AncestorMarks marks ) {
+		int length = shortestPath( node2, marks );
+		if ( length < 0 ) return 0;
+		int maxDepth = taxonomy.getMaxDepth( SynsetId.pos( taxonomy.synsetOf( node1 ) ) ) + 1;
+		return -Math.log( ( length + 1 ) / ( 2D * maxDepth ) );
+	}
+}
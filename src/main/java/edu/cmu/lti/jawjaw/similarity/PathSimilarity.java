@@ -0,0 +1,42 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Path similarity: 1 / (1 + edges on the shortest path between two synsets 
+ * through a common subsumer). Identical synsets score 1.
+ */
+public class PathSimilarity extends SimilarityMeasure {
+
+	public PathSimilarity() {
+		this( Taxonomy.getInstance() );
+	}
+
+	/**
+	 * @param taxonomy hypernym hierarchy
+	 */
+	public PathSimilarity( Taxonomy taxonomy ) {
+		super( taxonomy );
+	}
+
+	@Override
+	double score( int node1, int node2, AncestorMarks marks ) {
+		int length = shortestPath( node2, marks );
+		return length < 0 ? 0 : 1D / ( 1 + length );
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+/**
+ * Resnik (1995): IC of the lowest common subsumer.
+ */
+public class Resnik extends InformationContentMeasure {
+
+	/**
+	 * Uses the corpus IC of the WordNet DB.
+	 */
+	public Resnik() {
+		this( InformationContent.getCorpusInstance() );
+	}
+
+	/**
+	 * @param ic information content, corpus or intrinsic
+	 */
+	public Resnik( InformationContent ic ) {
+		super( ic );
+	}
+
+	@Override
+	double score( int node1, int node2, AncestorMarks marks ) {
+		return Math.max( 0, lcsIC( node2, marks ) );
+	}
+}
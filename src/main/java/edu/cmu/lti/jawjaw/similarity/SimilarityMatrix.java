@@ -0,0 +1,389 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+
+/**
+ * Similarities of all pairs of a word list, stored as the upper triangle 
+ * (with the diagonal) of a float matrix: row by row, the entries (i, j) 
+ * for j &gt;= i. The values are either on the heap or in a memory-mapped 
+ * file of n * (n + 1) / 2 big-endian floats, for vocabularies whose 
+ * matrix does not fit the heap.
+ * <p>
+ * The synsets of each distinct word are resolved once. Words with the 
+ * same senses in the taxonomy (e.g. repeated words) share one row of 
+ * scores, so their pairs are scored once. Rows are handed out to the 
+ * worker threads one group of equal words at a time, longest rows first.
+ */
+public final class SimilarityMatrix {
+
+	/**
+	 * Receives progress of a computation. It is called from the worker 
+	 * threads, concurrently.
+	 */
+	public interface ProgressListener {
+		/**
+		 * @param done pairs computed so far
+		 * @param total pairs of the matrix
+		 * @return false to cancel the computation
+		 */
+		boolean progress( long done, long total );
+	}
+
+	/** Floats per chunk; a mapped chunk must stay below 2GB */
+	private static final int CHUNK_BITS = 28;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final int size;
+	private final float[][] heap;
+	private final MappedByteBuffer[] files;
+	private final FloatBuffer[] mapped;
+
+	private SimilarityMatrix( int size, File file ) throws IOException {
+		this.size = size;
+		long length = length( size );
+		int chunks = (int)( ( length + CHUNK_SIZE - 1 ) >>> CHUNK_BITS );
+		if ( file == null ) {
+			heap = new float[chunks][];
+			files = null;
+			mapped = null;
+			for ( int c = 0; c < chunks; c++ ) {
+				heap[c] = new float[chunkLength( length, c )];
+			}
+		} else {
+			heap = null;
+			files = new MappedByteBuffer[chunks];
+			mapped = new FloatBuffer[chunks];
+			RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+			try {
+				raf.setLength( length * 4 );
+				FileChannel channel = raf.getChannel();
+				for ( int c = 0; c < chunks; c++ ) {
+					// the mapping stays valid after the channel is closed
+					files[c] = channel.map( FileChannel.MapMode.READ_WRITE, 
+							( (long)c << CHUNK_BITS ) * 4, chunkLength( length, c ) * 4L );
+					mapped[c] = files[c].asFloatBuffer();
+				}
+			} finally {
+				raf.close();
+			}
+		}
+	}
+
+	private static long length( int size ) {
+		return (long)size * ( size + 1 ) / 2;
+	}
+
+	private static int chunkLength( long length, int chunk ) {
+		return (int)Math.min( CHUNK_SIZE, length - ( (long)chunk << CHUNK_BITS ) );
+	}
+
+	/**
+	 * Computes the matrix on the heap.
+	 * @see #compute(SimilarityMeasure, String[], POS[], File, int, ProgressListener)
+	 */
+	public static SimilarityMatrix compute( SimilarityMeasure measure, String[] lemmas, POS pos, 
+			int threads, ProgressListener listener ) throws InterruptedException {
+		POS[] poses = new POS[lemmas.length];
+		Arrays.fill( poses, pos );
+		try {
+			return compute( measure, lemmas, poses, null, threads, listener );
+		} catch ( IOException e ) {
+			// only thrown for mapped files
+			throw new IllegalStateException( e );
+		}
+	}
+
+	/**
+	 * Computes the similarities of all pairs of words. Blocks until done.
+	 * 
+	 * @param measure similarity measure
+	 * @param lemmas words
+	 * @param poses part of speech of each word
+	 * @param file file to map the matrix to, or null to keep it on the heap
+	 * @param threads number of worker threads
+	 * @param listener progress listener, may be null
+	 * @return matrix
+	 * @throws IOException if the file cannot be mapped
+	 * @throws InterruptedException if the calling thread is interrupted; 
+	 * the workers are stopped
+	 * @throws CancellationException if the listener cancelled; the workers 
+	 * are stopped and a mapped file is left incomplete
+	 */
+	public static SimilarityMatrix compute( SimilarityMeasure measure, String[] lemmas, POS[] poses, 
+			File file, int threads, ProgressListener listener ) throws IOException, InterruptedException {
+		if ( lemmas.length != poses.length ) {
+			throw new IllegalArgumentException( "Lengths differ: "+lemmas.length+" != "+poses.length );
+		}
+		// resolve each distinct word once
+		Map<String, int[]> senses = new HashMap<String, int[]>();
+		int[][] synsetIds = new int[lemmas.length][];
+		for ( int i = 0; i < lemmas.length; i++ ) {
+			String key = lemmas[i]+" "+poses[i];
+			synsetIds[i] = senses.get( key );
+			if ( synsetIds[i] == null ) {
+				synsetIds[i] = SimilarityMeasure.senses( lemmas[i], poses[i] );
+				senses.put( key, synsetIds[i] );
+			}
+		}
+		return compute( measure, synsetIds, file, threads, listener );
+	}
+
+	/**
+	 * Computes the similarities of all pairs of items given by their 
+	 * synsets, e.g. words with senses chosen by the caller. Blocks until done.
+	 * 
+	 * @param measure similarity measure
+	 * @param synsetIds packed synset ids of each item
+	 * @param file file to map the matrix to, or null to keep it on the heap
+	 * @param threads number of worker threads
+	 * @param listener progress listener, may be null
+	 * @return matrix
+	 * @throws IOException if the file cannot be mapped
+	 * @throws InterruptedException if the calling thread is interrupted; 
+	 * the workers are stopped
+	 * @throws CancellationException if the listener cancelled; the workers 
+	 * are stopped and a mapped file is left incomplete
+	 */
+	public static SimilarityMatrix compute( SimilarityMeasure measure, int[][] synsetIds, 
+			File file, int threads, ProgressListener listener ) throws IOException, InterruptedException {
+		SimilarityMatrix matrix = new SimilarityMatrix( synsetIds.length, file );
+		Job job = new Job( matrix, measure, synsetIds, listener );
+		ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, threads ) );
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for ( int t = 0; t < Math.max( 1, threads ); t++ ) {
+				futures.add( executor.submit( job ) );
+			}
+			for ( Future<Void> future : futures ) {
+				future.get();
+			}
+		} catch ( InterruptedException e ) {
+			job.cancelled.set( true );
+			throw e;
+		} catch ( ExecutionException e ) {
+			job.cancelled.set( true );
+			Throwable cause = e.getCause();
+			if ( cause instanceof RuntimeException ) throw (RuntimeException)cause;
+			if ( cause instanceof Error ) throw (Error)cause;
+			throw new IllegalStateException( cause );
+		} finally {
+			executor.shutdownNow();
+		}
+		if ( job.cancelled.get() ) throw new CancellationException( "Cancelled by the progress listener" );
+		return matrix;
+	}
+
+	/**
+	 * Groups of words with equal senses, handed out to the workers.
+	 */
+	private static final class Job implements Callable<Void> {
+
+		final SimilarityMatrix matrix;
+		final SimilarityMeasure measure;
+		final ProgressListener listener;
+		/** group of each word */
+		final int[] groupOf;
+		/** taxonomy nodes of each group */
+		final int[][] nodes;
+		/** words of each group, ascending */
+		final int[][] rows;
+		final long total;
+		final AtomicInteger nextGroup = new AtomicInteger();
+		final AtomicLong done = new AtomicLong();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+
+		Job( SimilarityMatrix matrix, SimilarityMeasure measure, int[][] synsetIds, 
+				ProgressListener listener ) {
+			this.matrix = matrix;
+			this.measure = measure;
+			this.listener = listener;
+			total = length( synsetIds.length );
+			groupOf = new int[synsetIds.length];
+			// groups are numbered by first occurrence
+			Map<NodeSet, Integer> groupOfNodes = new LinkedHashMap<NodeSet, Integer>();
+			List<List<Integer>> members = new ArrayList<List<Integer>>();
+			for ( int i = 0; i < synsetIds.length; i++ ) {
+				NodeSet set = new NodeSet( toNodes( measure, synsetIds[i] ) );
+				Integer group = groupOfNodes.get( set );
+				if ( group == null ) {
+					group = groupOfNodes.size();
+					groupOfNodes.put( set, group );
+					members.add( new ArrayList<Integer>() );
+				}
+				groupOf[i] = group;
+				members.get( group ).add( i );
+			}
+			nodes = new int[groupOfNodes.size()][];
+			for ( Map.Entry<NodeSet, Integer> e : groupOfNodes.entrySet() ) {
+				nodes[e.getValue()] = e.getKey().nodes;
+			}
+			rows = new int[members.size()][];
+			for ( int g = 0; g < rows.length; g++ ) {
+				List<Integer> words = members.get( g );
+				rows[g] = new int[words.size()];
+				for ( int k = 0; k < rows[g].length; k++ ) {
+					rows[g][k] = words.get( k );
+				}
+			}
+		}
+
+		public Void call() {
+			int groups = nodes.length;
+			float[] scores = new float[groups];
+			int[] targets = new int[groups];
+			float[] row = new float[matrix.size];
+			int g;
+			while ( !cancelled.get() && ( g = nextGroup.getAndIncrement() ) < groups ) {
+				int first = rows[g][0];
+				// only groups that occur right of the group's first word are needed
+				int count = 0;
+				for ( int h = 0; h < groups; h++ ) {
+					if ( rows[h][rows[h].length-1] >= first ) targets[count++] = h;
+				}
+				measure.scoreAll( nodes[g], nodes, targets, count, scores );
+				long pairs = 0;
+				for ( int i : rows[g] ) {
+					int length = matrix.size - i;
+					for ( int k = 0; k < length; k++ ) {
+						row[k] = scores[groupOf[i+k]];
+					}
+					matrix.putRow( i, row, length );
+					pairs += length;
+				}
+				long sofar = done.addAndGet( pairs );
+				if ( listener != null && !listener.progress( sofar, total ) ) cancelled.set( true );
+				if ( Thread.currentThread().isInterrupted() ) cancelled.set( true );
+			}
+			return null;
+		}
+	}
+
+	private static int[] toNodes( SimilarityMeasure measure, int[] synsetIds ) {
+		int[] nodes = new int[synsetIds.length];
+		int n = 0;
+		for ( int id : synsetIds ) {
+			int node = measure.taxonomy.nodeOf( id );
+			if ( node >= 0 ) nodes[n++] = node;
+		}
+		nodes = Arrays.copyOf( nodes, n );
+		Arrays.sort( nodes );
+		return nodes;
+	}
+
+	private static final class NodeSet {
+		final int[] nodes;
+
+		NodeSet( int[] nodes ) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode( nodes );
+		}
+
+		@Override
+		public boolean equals( Object o ) {
+			return o instanceof NodeSet && Arrays.equals( nodes, ((NodeSet)o).nodes );
+		}
+	}
+
+	/**
+	 * @return offset of row i minus i, i.e. i * n - i * (i - 1) / 2 - i 
+	 */
+	private long rowBase( int i ) {
+		return (long)i * size - (long)i * ( i - 1 ) / 2 - i;
+	}
+
+	private void putRow( int i, float[] values, int length ) {
+		long index = rowBase( i ) + i;
+		int offset = 0;
+		while ( offset < length ) {
+			int chunk = (int)( index >>> CHUNK_BITS );
+			int position = (int)( index & CHUNK_MASK );
+			int count = Math.min( length - offset, CHUNK_SIZE - position );
+			if ( heap != null ) {
+				System.arraycopy( values, offset, heap[chunk], position, count );
+			} else {
+				FloatBuffer buffer = mapped[chunk].duplicate();
+				buffer.position( position );
+				buffer.put( values, offset, count );
+			}
+			offset += count;
+			index += count;
+		}
+	}
+
+	/**
+	 * @return number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i word index
+	 * @param j word index
+	 * @return similarity of the words; the matrix is symmetric
+	 */
+	public float get( int i, int j ) {
+		if ( i > j ) {
+			int t = i;
+			i = j;
+			j = t;
+		}
+		if ( i < 0 || j >= size ) throw new IndexOutOfBoundsException( "("+i+", "+j+") of "+size );
+		long index = rowBase( i ) + j;
+		int chunk = (int)( index >>> CHUNK_BITS );
+		int position = (int)( index & CHUNK_MASK );
+		return heap != null ? heap[chunk][position] : mapped[chunk].get( position );
+	}
+
+	/**
+	 * Writes a mapped matrix back to its file; does nothing on the heap.
+	 */
+	public void force() {
+		if ( files == null ) return;
+		for ( MappedByteBuffer buffer : files ) {
+			buffer.force();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+import edu.cmu.lti.jawjaw.util.WordNetUtil;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
+
+/**
+ * A similarity measure over the hypernym hierarchy. The similarity of two 
+ * words is the largest similarity of any pair of their senses. Synsets 
+ * outside the hierarchy (e.g. most adjectives), synsets of different POS 
+ * and synsets without a common subsumer score 0.
+ * <p>
+ * Common subsumers are found by marking the ancestors of the first synset 
+ * and scanning the ancestor closure of the second one, so a pair costs 
+ * O(ancestors) and allocates nothing. Instances are thread-safe.
+ */
+public abstract class SimilarityMeasure {
+
+	/** Synset ids of the senses of a word, by POS */
+	private static final Map<POS, LoadingCache<String, int[]>> SENSES = 
+			new EnumMap<POS, LoadingCache<String, int[]>>( POS.class );
+	private static final Map<POS, CacheLoader<String, int[]>> SENSE_LOADERS = 
+			new EnumMap<POS, CacheLoader<String, int[]>>( POS.class );
+
+	static {
+		for ( final POS pos : POS.values() ) {
+			SENSES.put( pos, CacheFactory.<String, int[]>newLoadingCache() );
+			SENSE_LOADERS.put( pos, new CacheLoader<String, int[]>() {
+				public int[] load( String word ) {
+					return loadSenses( word, pos );
+				}
+			});
+		}
+	}
+
+	protected final Taxonomy taxonomy;
+
+	private final ThreadLocal<AncestorMarks> marks = new ThreadLocal<AncestorMarks>() {
+		@Override
+		protected AncestorMarks initialValue() {
+			return new AncestorMarks( taxonomy );
+		}
+	};
+
+	SimilarityMeasure( Taxonomy taxonomy ) {
+		this.taxonomy = taxonomy;
+	}
+
+	/**
+	 * @param word1 word in English or Japanese
+	 * @param word2 word in English or Japanese
+	 * @param pos part of speech of both words
+	 * @return largest similarity of any pair of senses, 0 if a word is unknown
+	 */
+	public double similarity( String word1, String word2, POS pos ) {
+		return similarity( senses( word1, pos ), senses( word2, pos ) );
+	}
+
+	/**
+	 * @param synset1 synset id e.g. 06142412-n
+	 * @param synset2 synset id e.g. 06142412-n
+	 * @return similarity of the synsets
+	 */
+	public double similarity( String synset1, String synset2 ) {
+		return similarity( SynsetId.pack( synset1 ), SynsetId.pack( synset2 ) );
+	}
+
+	/**
+	 * @param synsetId1 packed synset id, see {@link SynsetId}
+	 * @param synsetId2 packed synset id
+	 * @return similarity of the synsets
+	 */
+	public double similarity( int synsetId1, int synsetId2 ) {
+		int node1 = taxonomy.nodeOf( synsetId1 );
+		int node2 = taxonomy.nodeOf( synsetId2 );
+		if ( node1 < 0 || node2 < 0 ) return 0;
+		AncestorMarks m = marks.get();
+		m.mark( node1 );
+		return score( node1, node2, m );
+	}
+
+	/**
+	 * @param synsetIds1 packed synset ids
+	 * @param synsetIds2 packed synset ids
+	 * @return largest similarity of any pair, 0 if either array is empty
+	 */
+	public double similarity( int[] synsetIds1, int[] synsetIds2 ) {
+		double max = 0;
+		AncestorMarks m = marks.get();
+		for ( int id1 : synsetIds1 ) {
+			int node1 = taxonomy.nodeOf( id1 );
+			if ( node1 < 0 ) continue;
+			m.mark( node1 );
+			for ( int id2 : synsetIds2 ) {
+				int node2 = taxonomy.nodeOf( id2 );
+				if ( node2 < 0 ) continue;
+				max = Math.max( max, score( node1, node2, m ) );
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Scores the nodes of one word against those of several others, 
+	 * marking the ancestors of each node of the first word only once. 
+	 * A node that several of the other words share is scored only once 
+	 * against each node of the first word.
+	 * @param nodes1 taxonomy nodes of the first word
+	 * @param nodes taxonomy nodes of the other words
+	 * @param targets indexes into nodes of the words to score
+	 * @param count number of targets
+	 * @param scores receives the largest score per word, at the word's index
+	 */
+	final void scoreAll( int[] nodes1, int[][] nodes, int[] targets, int count, float[] scores ) {
+		for ( int k = 0; k < count; k++ ) {
+			scores[targets[k]] = 0;
+		}
+		AncestorMarks m = marks.get();
+		for ( int node1 : nodes1 ) {
+			m.mark( node1 );
+			for ( int k = 0; k < count; k++ ) {
+				int target = targets[k];
+				for ( int node2 : nodes[target] ) {
+					// a node shared by several words is scored once per node1
+					float score = m.remembered( node2 );
+					if ( Float.isNaN( score ) ) {
+						score = (float)score( node1, node2, m );
+						m.remember( node2, score );
+					}
+					if ( score > scores[target] ) scores[target] = score;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scores two nodes of the taxonomy.
+	 * @param node1 node number
+	 * @param node2 node number
+	 * @param marks ancestors of node1
+	 * @return similarity, 0 if the nodes have no common subsumer
+	 */
+	abstract double score( int node1, int node2, AncestorMarks marks );
+
+	/**
+	 * @return edges on the shortest path from node1 through a common 
+	 * subsumer to node2, or -1 if there is none
+	 */
+	final int shortestPath( int node2, AncestorMarks marks ) {
+		int best = -1;
+		for ( int i = taxonomy.ancestorStart( node2 ); i < taxonomy.ancestorEnd( node2 ); i++ ) {
+			int hops1 = marks.hopsTo( taxonomy.ancestor( i ) );
+			if ( hops1 < 0 ) continue;
+			int length = hops1 + taxonomy.ancestorHops( i );
+			if ( best < 0 || length < best ) best = length;
+		}
+		return best;
+	}
+
+	/**
+	 * @param word word in English or Japanese
+	 * @param pos part of speech
+	 * @return packed ids of the word's synsets; shared, do not modify
+	 */
+	static int[] senses( String word, POS pos ) {
+		return SENSES.get( pos ).get( word, SENSE_LOADERS.get( pos ) );
+	}
+
+	private static int[] loadSenses( String word, POS pos ) {
+		Set<Integer> ids = new LinkedHashSet<Integer>();
+		for ( Synset synset : WordNetUtil.wordToSynsets( word, pos ) ) {
+			int id = SynsetId.pack( synset.getSynset() );
+			if ( id != SynsetId.NONE ) ids.add( id );
+		}
+		int[] results = new int[ids.size()];
+		int i = 0;
+		for ( int id : ids ) {
+			results[i++] = id;
+		}
+		return results;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Wu &amp; Palmer (1994): 2 * depth(lcs) / (depth(s1) + depth(s2)), where lcs 
+ * is the deepest common subsumer, depths count nodes from the root (a root 
+ * has depth 1) and the depths of the synsets are taken along the paths 
+ * through lcs. Identical synsets score 1.
+ */
+public class WuPalmer extends SimilarityMeasure {
+
+	public WuPalmer() {
+		this( Taxonomy.getInstance() );
+	}
+
+	/**
+	 * @param taxonomy hypernym hierarchy
+	 */
+	public WuPalmer( Taxonomy taxonomy ) {
+		super( taxonomy );
+	}
+
+	@Override
+	double score( int node1, int node2, AncestorMarks marks ) {
+		int lcsDepth = -1;
+		int length = 0;
+		for ( int i = taxonomy.ancestorStart( node2 ); i < taxonomy.ancestorEnd( node2 ); i++ ) {
+			int ancestor = taxonomy.ancestor( i );
+			int hops1 = marks.hopsTo( ancestor );
+			if ( hops1 < 0 ) continue;
+			int depth = taxonomy.depth( ancestor ) + 1;
+			int hops = hops1 + taxonomy.ancestorHops( i );
+			if ( depth > lcsDepth || ( depth == lcsDepth && hops < length ) ) {
+				lcsDepth = depth;
+				length = hops;
+			}
+		}
+		if ( lcsDepth < 0 ) return 0;
+		return 2D * lcsDepth / ( length + 2 * lcsDepth );
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+/**
+ * Lowest common ancestor (LCA) index of a {@link Taxonomy}. The lowest 
+ * common ancestors of two nodes are their deepest common ancestors, where 
+ * a node counts as its own ancestor.
+ * <p>
+ * Every node is hung below its parent nearest to a root, which gives a 
+ * spanning forest of the hierarchy. Its Euler tour with a sparse table 
+ * answers LCA queries in O(1). A correction pass marks the nodes whose 
+ * ancestors are not just their path in the forest, i.e. the nodes below 
+ * a synset with several hypernyms (and the rare nodes within cycles). 
+ * Queries involving such a node intersect the ancestor closures instead, 
+ * at O(ancestors), with an O(1) membership test against the other node 
+ * when that one is not marked.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class LowestCommonAncestors {
+
+	private static class Holder {
+		static final LowestCommonAncestors instance = new LowestCommonAncestors( Taxonomy.getInstance() );
+	}
+
+	private final Taxonomy taxonomy;
+	/** forest root standing in for the missing common root; its depth is -1 */
+	private final int virtualRoot;
+	/** first and last position of each node in the Euler tour */
+	private final int[] first;
+	private final int[] last;
+	/** sparse table: table[k][i] is the shallowest node of tour[i .. i + 2^k) */
+	private final int[][] table;
+	/** closures sorted by node, for marked nodes only; -1 if not marked */
+	private final int[] sortedStart;
+	private final int[] sorted;
+
+	/**
+	 * Singleton pattern
+	 * @return LCA index of {@link Taxonomy#getInstance()}, built on first call
+	 */
+	public static LowestCommonAncestors getInstance() {
+		return Holder.instance;
+	}
+
+	/**
+	 * @param taxonomy hierarchy
+	 */
+	public LowestCommonAncestors( Taxonomy taxonomy ) {
+		this.taxonomy = taxonomy;
+		int n = taxonomy.size();
+		virtualRoot = n;
+		
+		// spanning forest: one parent per node on a shortest path to a root
+		int[] treeParent = new int[n+1];
+		int[] childCounts = new int[n+2];
+		for ( int node = 0; node < n; node++ ) {
+			treeParent[node] = virtualRoot;
+			int depth = taxonomy.depth( node );
+			if ( depth > 0 ) {
+				for ( int i = taxonomy.parentStart( node ); i < taxonomy.parentEnd( node ); i++ ) {
+					if ( taxonomy.depth( taxonomy.parent( i ) ) == depth-1 ) {
+						treeParent[node] = taxonomy.parent( i );
+						break;
+					}
+				}
+			}
+			childCounts[treeParent[node]+1]++;
+		}
+		treeParent[virtualRoot] = -1;
+		for ( int i = 0; i <= n; i++ ) {
+			childCounts[i+1] += childCounts[i];
+		}
+		int[] treeChildren = new int[n];
+		int[] next = Arrays.copyOf( childCounts, n+1 );
+		for ( int node = 0; node < n; node++ ) {
+			treeChildren[next[treeParent[node]]++] = node;
+		}
+		
+		// Euler tour, iteratively
+		int length = 2*(n+1) - 1;
+		int[] tour = new int[length];
+		first = new int[n+1];
+		last = new int[n+1];
+		int[] stack = new int[n+1];
+		int[] cursor = Arrays.copyOf( childCounts, n+1 );
+		int top = 0;
+		int pos = 0;
+		stack[0] = virtualRoot;
+		first[virtualRoot] = 0;
+		tour[pos++] = virtualRoot;
+		while ( top >= 0 ) {
+			int node = stack[top];
+			if ( cursor[node] < childCounts[node+1] ) {
+				int child = treeChildren[cursor[node]++];
+				stack[++top] = child;
+				first[child] = pos;
+				tour[pos++] = child;
+			} else {
+				last[node] = pos-1;
+				top--;
+				if ( top >= 0 ) tour[pos++] = stack[top];
+			}
+		}
+		
+		int levels = 1;
+		while ( 1 << levels <= length ) levels++;
+		table = new int[levels][];
+		table[0] = tour;
+		for ( int k = 1; k < levels; k++ ) {
+			int span = 1 << (k-1);
+			int[] previous = table[k-1];
+			int[] level = new int[length - (1 << k) + 1];
+			for ( int i = 0; i < level.length; i++ ) {
+				level[i] = shallower( previous[i], previous[i+span] );
+			}
+			table[k] = level;
+		}
+		
+		// correction pass: mark the nodes with ancestors off their forest path
+		sortedStart = new int[n+1];
+		int size = 0;
+		for ( int node = 0; node < n; node++ ) {
+			int closure = taxonomy.ancestorEnd( node ) - taxonomy.ancestorStart( node );
+			// the forest path has depth + 1 nodes, all of them in the closure
+			sortedStart[node] = closure != taxonomy.depth( node ) + 1 ? size : -1;
+			if ( sortedStart[node] >= 0 ) size += closure;
+		}
+		sortedStart[n] = size;
+		sorted = new int[size];
+		for ( int node = 0; node < n; node++ ) {
+			int start = sortedStart[node];
+			if ( start < 0 ) continue;
+			int closure = taxonomy.ancestorEnd( node ) - taxonomy.ancestorStart( node );
+			for ( int i = 0; i < closure; i++ ) {
+				sorted[start+i] = taxonomy.ancestor( taxonomy.ancestorStart( node )+i );
+			}
+			Arrays.sort( sorted, start, start+closure );
+		}
+	}
+
+	private int depthOf( int node ) {
+		return node == virtualRoot ? -1 : taxonomy.depth( node );
+	}
+
+	private int shallower( int node1, int node2 ) {
+		return depthOf( node2 ) < depthOf( node1 ) ? node2 : node1;
+	}
+
+	private boolean isMarked( int node ) {
+		return sortedStart[node] >= 0;
+	}
+
+	/**
+	 * @return true if ancestor is node or one of its ancestors
+	 */
+	private boolean isAncestor( int ancestor, int node ) {
+		if ( isMarked( node ) ) {
+			int start = sortedStart[node];
+			int end = start + taxonomy.ancestorEnd( node ) - taxonomy.ancestorStart( node );
+			return Arrays.binarySearch( sorted, start, end, ancestor ) >= 0;
+		}
+		return first[ancestor] <= first[node] && last[node] <= last[ancestor];
+	}
+
+	private int forestLCA( int node1, int node2 ) {
+		int l = Math.min( first[node1], first[node2] );
+		int r = Math.max( first[node1], first[node2] );
+		int k = 31 - Integer.numberOfLeadingZeros( r - l + 1 );
+		return shallower( table[k][l], table[k][r - (1 << k) + 1] );
+	}
+
+	/**
+	 * Finds one lowest common ancestor, in O(1) unless a node lies below 
+	 * a synset with several hypernyms.
+	 * @param node1 node number
+	 * @param node2 node number
+	 * @return the lowest common ancestor with the smallest node number, 
+	 * or -1 if there is none
+	 */
+	public int lowestCommonAncestor( int node1, int node2 ) {
+		if ( !isMarked( node1 ) && !isMarked( node2 ) ) {
+			int lca = forestLCA( node1, node2 );
+			return lca == virtualRoot ? -1 : lca;
+		}
+		int best = -1;
+		for ( int i = scanStart( node1, node2 ); i < scanEnd( node1, node2 ); i++ ) {
+			int ancestor = taxonomy.ancestor( i );
+			if ( !isAncestor( ancestor, other( node1, node2 ) ) ) continue;
+			if ( best < 0 || taxonomy.depth( ancestor ) > taxonomy.depth( best ) 
+					|| ( taxonomy.depth( ancestor ) == taxonomy.depth( best ) && ancestor < best ) ) {
+				best = ancestor;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds all lowest common ancestors.
+	 * @param node1 node number
+	 * @param node2 node number
+	 * @return node numbers in ascending order, empty if there are none
+	 */
+	public int[] lowestCommonAncestors( int node1, int node2 ) {
+		if ( !isMarked( node1 ) && !isMarked( node2 ) ) {
+			int lca = forestLCA( node1, node2 );
+			return lca == virtualRoot ? new int[0] : new int[]{ lca };
+		}
+		int[] results = new int[4];
+		int n = 0;
+		int depth = -1;
+		for ( int i = scanStart( node1, node2 ); i < scanEnd( node1, node2 ); i++ ) {
+			int ancestor = taxonomy.ancestor( i );
+			if ( taxonomy.depth( ancestor ) < depth || !isAncestor( ancestor, other( node1, node2 ) ) ) continue;
+			if ( taxonomy.depth( ancestor ) > depth ) {
+				depth = taxonomy.depth( ancestor );
+				n = 0;
+			}
+			if ( n == results.length ) results = Arrays.copyOf( results, n*2 );
+			results[n++] = ancestor;
+		}
+		results = Arrays.copyOf( results, n );
+		Arrays.sort( results );
+		return results;
+	}
+
+	// scan the closure of a marked node and test against the other one
+	private int scanStart( int node1, int node2 ) {
+		return taxonomy.ancestorStart( isMarked( node2 ) ? node2 : node1 );
+	}
+
+	private int scanEnd( int node1, int node2 ) {
+		return taxonomy.ancestorEnd( isMarked( node2 ) ? node2 : node1 );
+	}
+
+	private int other( int node1, int node2 ) {
+		return isMarked( node2 ) ? node1 : node2;
+	}
+
+	/**
+	 * Finds the lowest common hypernyms of two synsets, i.e. the deepest 
+	 * synsets that are the synsets themselves or their hypernyms. 
+	 * @param synset1 synset id e.g. 06142412-n
+	 * @param synset2 synset id e.g. 06142412-n
+	 * @return lowest common hypernyms and their depth
+	 */
+	public LowestCommonHypernyms lowestCommonHypernyms( String synset1, String synset2 ) {
+		int node1 = taxonomy.nodeOf( synset1 );
+		int node2 = taxonomy.nodeOf( synset2 );
+		if ( node1 < 0 || node2 < 0 ) return LowestCommonHypernyms.NONE;
+		int[] nodes = lowestCommonAncestors( node1, node2 );
+		if ( nodes.length == 0 ) return LowestCommonHypernyms.NONE;
+		List<String> synsets = new ArrayList<String>( nodes.length );
+		for ( int node : nodes ) {
+			synsets.add( SynsetId.toString( taxonomy.synsetOf( node ) ) );
+		}
+		return new LowestCommonHypernyms( Collections.unmodifiableList( synsets ), taxonomy.depth( nodes[0] ) );
+	}
+
+	/**
+	 * @return hierarchy of this index
+	 */
+	public Taxonomy getTaxonomy() {
+		return taxonomy;
+	}
+}
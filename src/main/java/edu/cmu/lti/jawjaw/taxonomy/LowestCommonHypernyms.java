@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of {@link LowestCommonAncestors#lowestCommonHypernyms(String, String)}: 
+ * the deepest synsets that subsume both synsets, and their depth.
+ */
+public final class LowestCommonHypernyms {
+
+	static final LowestCommonHypernyms NONE = new LowestCommonHypernyms( Collections.<String>emptyList(), -1 );
+
+	private final List<String> synsets;
+	private final int depth;
+
+	LowestCommonHypernyms( List<String> synsets, int depth ) {
+		this.synsets = synsets;
+		this.depth = depth;
+	}
+
+	/**
+	 * @return synset ids of the lowest common hypernyms; usually one, 
+	 * several with multiple inheritance, none if the synsets share no root
+	 */
+	public List<String> getSynsets() {
+		return synsets;
+	}
+
+	/**
+	 * @return hops from the lowest common hypernyms to their nearest root, 
+	 * or -1 if there are none
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	@Override
+	public String toString() {
+		return synsets+" at depth "+depth;
+	}
+}
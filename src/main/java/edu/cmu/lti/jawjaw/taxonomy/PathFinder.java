@@ -0,0 +1,245 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.util.WordNetUtil;
+
+/**
+ * Finds shortest chains of synlinks of the given types between synsets, 
+ * e.g. to explain how two words are related. The search is a bidirectional 
+ * breadth-first search on a {@link SynlinkGraph}: it grows the smaller 
+ * frontier one level at a time, forward along outgoing edges from the 
+ * sources and backward along incoming edges from the targets, and stops 
+ * at the first synset reached from both sides.
+ * <p>
+ * A search gives up after maxHops links or after expanding maxExpansions 
+ * synsets, whichever comes first. Queues and visited marks are kept per 
+ * thread and reused, so a search allocates nothing but its result. 
+ * Instances are safe to share between threads.
+ */
+public final class PathFinder {
+
+	private final SynlinkGraph graph;
+	/** allowed link types by ordinal */
+	private final boolean[] allowed;
+	private final int maxHops;
+	private final int maxExpansions;
+
+	private final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+		@Override
+		protected Search initialValue() {
+			return new Search( graph.size() );
+		}
+	};
+
+	/**
+	 * @param graph graph to search
+	 * @param links link types a path may use, e.g. hype, hypo, mero and holo
+	 * @param maxHops longest path to look for
+	 * @param maxExpansions largest number of synsets to expand per search
+	 */
+	public PathFinder( SynlinkGraph graph, EnumSet<Link> links, int maxHops, int maxExpansions ) {
+		this.graph = graph;
+		this.allowed = new boolean[Link.values().length];
+		for ( Link link : links ) {
+			allowed[link.ordinal()] = true;
+		}
+		this.maxHops = maxHops;
+		this.maxExpansions = maxExpansions;
+	}
+
+	/**
+	 * Finds a shortest path between any sense of one word and any sense of another.
+	 * @param word1 word in English or Japanese
+	 * @param pos1 part of speech of word1
+	 * @param word2 word in English or Japanese
+	 * @param pos2 part of speech of word2
+	 * @return shortest path, or {@link SynsetPath#getLength()} -1 if there is none within the bounds
+	 */
+	public SynsetPath shortestPath( String word1, POS pos1, String word2, POS pos2 ) {
+		return shortestPath( synsetIds( word1, pos1 ), synsetIds( word2, pos2 ) );
+	}
+
+	/**
+	 * @param synset1 synset id e.g. 06142412-n
+	 * @param synset2 synset id e.g. 06142412-n
+	 * @return shortest path, or {@link SynsetPath#getLength()} -1 if there is none within the bounds
+	 */
+	public SynsetPath shortestPath( String synset1, String synset2 ) {
+		return shortestPath( new int[]{ SynsetId.pack( synset1 ) }, new int[]{ SynsetId.pack( synset2 ) } );
+	}
+
+	/**
+	 * Finds a shortest path from any of the sources to any of the targets.
+	 * @param synsetIds1 packed ids of the sources, see {@link SynsetId}
+	 * @param synsetIds2 packed ids of the targets
+	 * @return shortest path, or {@link SynsetPath#getLength()} -1 if there is none within the bounds
+	 */
+	public SynsetPath shortestPath( int[] synsetIds1, int[] synsetIds2 ) {
+		Search search = searches.get();
+		int meet = search.run( this, nodes( synsetIds1 ), nodes( synsetIds2 ) );
+		if ( meet < 0 ) return SynsetPath.NONE;
+		
+		List<String> synsets = new ArrayList<String>();
+		List<Link> links = new ArrayList<Link>();
+		int node = meet;
+		for ( ; search.prevNode1[node] >= 0; node = search.prevNode1[node] ) {
+			synsets.add( SynsetId.toString( graph.synsetOf( node ) ) );
+			links.add( graph.outLink( search.prevEdge1[node] ) );
+		}
+		synsets.add( SynsetId.toString( graph.synsetOf( node ) ) );
+		Collections.reverse( synsets );
+		Collections.reverse( links );
+		for ( node = meet; search.prevNode2[node] >= 0; node = search.prevNode2[node] ) {
+			synsets.add( SynsetId.toString( graph.synsetOf( search.prevNode2[node] ) ) );
+			links.add( graph.inLink( search.prevEdge2[node] ) );
+		}
+		return new SynsetPath( Collections.unmodifiableList( synsets ), Collections.unmodifiableList( links ) );
+	}
+
+	/**
+	 * @return graph searched by this finder
+	 */
+	public SynlinkGraph getGraph() {
+		return graph;
+	}
+
+	private int[] nodes( int[] synsetIds ) {
+		int[] nodes = new int[synsetIds.length];
+		int n = 0;
+		for ( int id : synsetIds ) {
+			int node = id != SynsetId.NONE ? graph.nodeOf( id ) : -1;
+			if ( node >= 0 ) nodes[n++] = node;
+		}
+		return n == nodes.length ? nodes : Arrays.copyOf( nodes, n );
+	}
+
+	private static int[] synsetIds( String word, POS pos ) {
+		List<Synset> synsets = WordNetUtil.wordToSynsets( word, pos );
+		int[] ids = new int[synsets.size()];
+		for ( int i = 0; i < ids.length; i++ ) {
+			ids[i] = SynsetId.pack( synsets.get(i).getSynset() );
+		}
+		return ids;
+	}
+
+	/**
+	 * Queues and marks of one thread. Side 1 searches forward from the 
+	 * sources, side 2 backward from the targets. Marks are invalidated 
+	 * by a stamp instead of clearing the arrays.
+	 */
+	private static final class Search {
+		final int[] queue1;
+		final int[] queue2;
+		final int[] stamps1;
+		final int[] stamps2;
+		/** predecessor towards the sources and the edge from it, -1 for a source */
+		final int[] prevNode1;
+		final int[] prevEdge1;
+		/** successor towards the targets and the edge to it, -1 for a target */
+		final int[] prevNode2;
+		final int[] prevEdge2;
+		int stamp;
+
+		Search( int size ) {
+			queue1 = new int[size];
+			queue2 = new int[size];
+			stamps1 = new int[size];
+			stamps2 = new int[size];
+			prevNode1 = new int[size];
+			prevEdge1 = new int[size];
+			prevNode2 = new int[size];
+			prevEdge2 = new int[size];
+		}
+
+		/**
+		 * @return node reached from both sides on a shortest path, or -1
+		 */
+		int run( PathFinder finder, int[] sources, int[] targets ) {
+			if ( ++stamp == Integer.MAX_VALUE ) {
+				Arrays.fill( stamps1, 0 );
+				Arrays.fill( stamps2, 0 );
+				stamp = 1;
+			}
+			int tail1 = 0;
+			for ( int node : sources ) {
+				if ( stamps1[node] == stamp ) continue;
+				stamps1[node] = stamp;
+				prevNode1[node] = -1;
+				queue1[tail1++] = node;
+			}
+			int tail2 = 0;
+			for ( int node : targets ) {
+				if ( stamps2[node] == stamp ) continue;
+				stamps2[node] = stamp;
+				prevNode2[node] = -1;
+				queue2[tail2++] = node;
+				if ( stamps1[node] == stamp ) return node;
+			}
+			
+			SynlinkGraph graph = finder.graph;
+			boolean[] allowed = finder.allowed;
+			int head1 = 0;
+			int head2 = 0;
+			int budget = finder.maxExpansions;
+			// a node first reached from both sides lies on a shortest path, 
+			// since shorter paths would have met in an earlier level
+			for ( int hops = 0; hops < finder.maxHops; hops++ ) {
+				if ( head1 == tail1 || head2 == tail2 ) return -1;
+				if ( tail1 - head1 <= tail2 - head2 ) {
+					for ( int end = tail1; head1 < end; head1++ ) {
+						if ( --budget < 0 ) return -1;
+						int node = queue1[head1];
+						for ( int i = graph.outStart( node ); i < graph.outEnd( node ); i++ ) {
+							int next = graph.target( i );
+							if ( stamps1[next] == stamp || !allowed[graph.outLink( i ).ordinal()] ) continue;
+							stamps1[next] = stamp;
+							prevNode1[next] = node;
+							prevEdge1[next] = i;
+							if ( stamps2[next] == stamp ) return next;
+							queue1[tail1++] = next;
+						}
+					}
+				} else {
+					for ( int end = tail2; head2 < end; head2++ ) {
+						if ( --budget < 0 ) return -1;
+						int node = queue2[head2];
+						for ( int i = graph.inStart( node ); i < graph.inEnd( node ); i++ ) {
+							int next = graph.source( i );
+							if ( stamps2[next] == stamp || !allowed[graph.inLink( i ).ordinal()] ) continue;
+							stamps2[next] = stamp;
+							prevNode2[next] = node;
+							prevEdge2[next] = i;
+							if ( stamps1[next] == stamp ) return next;
+							queue2[tail2++] = next;
+						}
+					}
+				}
+			}
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import edu.cmu.lti.jawjaw.db.PooledConnection;
+import edu.cmu.lti.jawjaw.db.SQL;
+import edu.cmu.lti.jawjaw.db.SQLQuery;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+/**
+ * All synlinks as a read-only graph in compressed sparse row (CSR) form. 
+ * Synsets that occur in a link are numbered 0..size()-1 in the order of 
+ * their packed ids (see {@link SynsetId}). The outgoing edges of a node 
+ * are stored contiguously, sorted by link type and then by target, so 
+ * the edges of one link type form a range; incoming edges are stored 
+ * the same way. An edge costs an int and a byte in each direction.
+ * <p>
+ * Edges are visited by index and nothing is allocated, e.g.
+ * <pre>
+ * for ( int i = graph.outStart( node, Link.hype ); i &lt; graph.outEnd( node, Link.hype ); i++ ) {
+ *     int hypernym = graph.target( i );
+ * }
+ * </pre>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class SynlinkGraph {
+
+	private static final boolean BENCHMARK = false;
+
+	/** Link.values() copies the array on every call */
+	private static final Link[] LINKS = Link.values();
+
+	private static final int LINK_SHIFT = 32;
+	private static final int NODE_SHIFT = 40;
+
+	private static class Holder {
+		static final SynlinkGraph instance = load();
+	}
+
+	private final int[] synsetIds;
+	
+	private final int[] outOffsets;
+	private final int[] targets;
+	private final byte[] outLinks;
+	
+	private final int[] inOffsets;
+	private final int[] sources;
+	private final byte[] inLinks;
+
+	/**
+	 * Singleton pattern
+	 * @return graph of the WordNet DB, loaded on first call
+	 */
+	public static SynlinkGraph getInstance() {
+		return Holder.instance;
+	}
+
+	/**
+	 * Builds a graph from a list of links. Duplicate links are ignored.
+	 * @param synsets1 packed ids of the sources
+	 * @param synsets2 packed ids of the targets, in the same order
+	 * @param links link types, in the same order
+	 * @return graph
+	 */
+	public static SynlinkGraph fromEdges( int[] synsets1, int[] synsets2, Link[] links ) {
+		if ( synsets1.length != synsets2.length || synsets1.length != links.length ) {
+			throw new IllegalArgumentException( "Lengths differ: "+synsets1.length+", "
+					+synsets2.length+", "+links.length );
+		}
+		byte[] types = new byte[links.length];
+		for ( int i = 0; i < links.length; i++ ) {
+			types[i] = (byte)links[i].ordinal();
+		}
+		return new SynlinkGraph( synsets1, synsets2, types, links.length );
+	}
+
+	private static SynlinkGraph load() {
+		long t0 = System.currentTimeMillis();
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		byte[] types = new byte[1024];
+		int n = 0;
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_SYNLINK_EDGES ).executeQuery();
+			while ( rs.next() ) {
+				int synset1 = SynsetId.pack( rs.getString(1) );
+				int synset2 = SynsetId.pack( rs.getString(2) );
+				if ( synset1 == SynsetId.NONE || synset2 == SynsetId.NONE ) continue;
+				if ( n == from.length ) {
+					from = Arrays.copyOf( from, n*2 );
+					to = Arrays.copyOf( to, n*2 );
+					types = Arrays.copyOf( types, n*2 );
+				}
+				from[n] = synset1;
+				to[n] = synset2;
+				types[n] = (byte)Link.valueOf( rs.getString(3) ).ordinal();
+				n++;
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		SynlinkGraph graph = new SynlinkGraph( from, to, types, n );
+		long t1 = System.currentTimeMillis();
+		if (BENCHMARK) System.out.println( "SynlinkGraph: "+graph.size()+" synsets, "
+				+graph.getEdgeCount()+" edges built in "+((double)(t1-t0)/1000D)+" sec." );
+		return graph;
+	}
+
+	private SynlinkGraph( int[] from, int[] to, byte[] types, int n ) {
+		int[] ids = new int[2*n];
+		for ( int i = 0; i < n; i++ ) {
+			if ( from[i] < 0 || to[i] < 0 ) throw new IllegalArgumentException( "Not a synset id: "+from[i]+" -> "+to[i] );
+			ids[2*i] = from[i];
+			ids[2*i+1] = to[i];
+		}
+		Arrays.sort( ids );
+		int nodes = 0;
+		for ( int i = 0; i < ids.length; i++ ) {
+			if ( nodes == 0 || ids[nodes-1] != ids[i] ) ids[nodes++] = ids[i];
+		}
+		synsetIds = Arrays.copyOf( ids, nodes );
+		
+		// edges as (node, link, other node) keys, sorted in both directions
+		long[] out = new long[n];
+		long[] in = new long[n];
+		for ( int i = 0; i < n; i++ ) {
+			long source = nodeOf( from[i] );
+			long target = nodeOf( to[i] );
+			long link = types[i];
+			out[i] = source << NODE_SHIFT | link << LINK_SHIFT | target;
+			in[i] = target << NODE_SHIFT | link << LINK_SHIFT | source;
+		}
+		int edges = sortDistinct( out );
+		sortDistinct( in );
+		
+		outOffsets = new int[nodes+1];
+		targets = new int[edges];
+		outLinks = new byte[edges];
+		fill( out, edges, outOffsets, targets, outLinks );
+		inOffsets = new int[nodes+1];
+		sources = new int[edges];
+		inLinks = new byte[edges];
+		fill( in, edges, inOffsets, sources, inLinks );
+	}
+
+	private static int sortDistinct( long[] keys ) {
+		Arrays.sort( keys );
+		int distinct = 0;
+		for ( int i = 0; i < keys.length; i++ ) {
+			if ( distinct == 0 || keys[distinct-1] != keys[i] ) keys[distinct++] = keys[i];
+		}
+		return distinct;
+	}
+
+	private static void fill( long[] keys, int edges, int[] offsets, int[] others, byte[] links ) {
+		for ( int i = 0; i < edges; i++ ) {
+			offsets[(int)(keys[i] >>> NODE_SHIFT)+1]++;
+			links[i] = (byte)(keys[i] >>> LINK_SHIFT);
+			others[i] = (int)keys[i];
+		}
+		for ( int i = 1; i < offsets.length; i++ ) {
+			offsets[i] += offsets[i-1];
+		}
+	}
+
+	/**
+	 * @return number of synsets in the graph
+	 */
+	public int size() {
+		return synsetIds.length;
+	}
+
+	/**
+	 * @return number of distinct edges
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @param synsetId packed synset id
+	 * @return node number, or -1 if the synset has no links
+	 */
+	public int nodeOf( int synsetId ) {
+		if ( synsetId < 0 ) return -1;
+		return Math.max( -1, Arrays.binarySearch( synsetIds, synsetId ) );
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return node number, or -1 if the synset has no links
+	 */
+	public int nodeOf( String synset ) {
+		return nodeOf( SynsetId.pack( synset ) );
+	}
+
+	/**
+	 * @param node node number
+	 * @return packed synset id
+	 */
+	public int synsetOf( int node ) {
+		return synsetIds[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return first index of the node's outgoing edges
+	 */
+	public int outStart( int node ) {
+		return outOffsets[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return end index (exclusive) of the node's outgoing edges
+	 */
+	public int outEnd( int node ) {
+		return outOffsets[node+1];
+	}
+
+	/**
+	 * @param node node number
+	 * @param link link type
+	 * @return first index of the node's outgoing edges of the type
+	 */
+	public int outStart( int node, Link link ) {
+		return search( outLinks, outOffsets[node], outOffsets[node+1], link.ordinal() );
+	}
+
+	/**
+	 * @param node node number
+	 * @param link link type
+	 * @return end index (exclusive) of the node's outgoing edges of the type
+	 */
+	public int outEnd( int node, Link link ) {
+		return search( outLinks, outOffsets[node], outOffsets[node+1], link.ordinal()+1 );
+	}
+
+	/**
+	 * @param index index of an outgoing edge
+	 * @return node number of the edge's target
+	 */
+	public int target( int index ) {
+		return targets[index];
+	}
+
+	/**
+	 * @param index index of an outgoing edge
+	 * @return link type of the edge
+	 */
+	public Link outLink( int index ) {
+		return LINKS[outLinks[index]];
+	}
+
+	/**
+	 * @param node node number
+	 * @return first index of the node's incoming edges
+	 */
+	public int inStart( int node ) {
+		return inOffsets[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return end index (exclusive) of the node's incoming edges
+	 */
+	public int inEnd( int node ) {
+		return inOffsets[node+1];
+	}
+
+	/**
+	 * @param node node number
+	 * @param link link type
+	 * @return first index of the node's incoming edges of the type
+	 */
+	public int inStart( int node, Link link ) {
+		return search( inLinks, inOffsets[node], inOffsets[node+1], link.ordinal() );
+	}
+
+	/**
+	 * @param node node number
+	 * @param link link type
+	 * @return end index (exclusive) of the node's incoming edges of the type
+	 */
+	public int inEnd( int node, Link link ) {
+		return search( inLinks, inOffsets[node], inOffsets[node+1], link.ordinal()+1 );
+	}
+
+	/**
+	 * @param index index of an incoming edge
+	 * @return node number of the edge's source
+	 */
+	public int source( int index ) {
+		return sources[index];
+	}
+
+	/**
+	 * @param index index of an incoming edge
+	 * @return link type of the edge
+	 */
+	public Link inLink( int index ) {
+		return LINKS[inLinks[index]];
+	}
+
+	/**
+	 * @return first index in [from, to) whose link ordinal is at least the given one
+	 */
+	private static int search( byte[] links, int from, int to, int ordinal ) {
+		while ( from < to ) {
+			int mid = (from + to) >>> 1;
+			if ( links[mid] < ordinal ) from = mid+1;
+			else to = mid;
+		}
+		return from;
+	}
+}
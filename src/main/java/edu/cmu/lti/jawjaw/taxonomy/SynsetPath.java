@@ -0,0 +1,71 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.Collections;
+import java.util.List;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+
+/**
+ * Result of {@link PathFinder}: a shortest chain of synlinks from one 
+ * synset to another. The i-th link leads from the i-th to the (i+1)-th synset.
+ */
+public final class SynsetPath {
+
+	static final SynsetPath NONE = new SynsetPath( Collections.<String>emptyList(), Collections.<Link>emptyList() );
+
+	private final List<String> synsets;
+	private final List<Link> links;
+
+	SynsetPath( List<String> synsets, List<Link> links ) {
+		this.synsets = synsets;
+		this.links = links;
+	}
+
+	/**
+	 * @return synset ids on the path from the first synset to the last one, 
+	 * empty if no path was found
+	 */
+	public List<String> getSynsets() {
+		return synsets;
+	}
+
+	/**
+	 * @return link types along the path, one less than the synsets
+	 */
+	public List<Link> getLinks() {
+		return links;
+	}
+
+	/**
+	 * @return number of links on the path, 0 if both ends are the same synset, 
+	 * or -1 if no path was found
+	 */
+	public int getLength() {
+		return synsets.size() - 1;
+	}
+
+	@Override
+	public String toString() {
+		if ( synsets.isEmpty() ) return "no path";
+		StringBuilder sb = new StringBuilder( synsets.get(0) );
+		for ( int i = 0; i < links.size(); i++ ) {
+			sb.append( " -" ).append( links.get(i) ).append( "-> " ).append( synsets.get(i+1) );
+		}
+		return sb.toString();
+	}
+}
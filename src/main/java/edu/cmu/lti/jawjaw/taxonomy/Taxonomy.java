@@ -0,0 +1,388 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.cmu.lti.jawjaw.db.PooledConnection;
+import edu.cmu.lti.jawjaw.db.SQL;
+import edu.cmu.lti.jawjaw.db.SQLQuery;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+/**
+ * The hypernym hierarchy (hype and inst links) with its ancestor closure.
+ * Synsets that occur in these links are numbered 0..size()-1 in the order
+ * of their packed ids (see {@link SynsetId}). For every node, the closure 
+ * holds all ancestors with their hop distance, nearest first, so that 
+ * ancestor and depth queries cost O(result) and issue no SQL.
+ * <p>
+ * The closure is derived from the links on load; this is faster than 
+ * reading the ancestor table of the NICT database and also covers 
+ * instance links. A synset has several parents in a few places (multiple 
+ * inheritance); hop distances are those of the shortest path.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class Taxonomy {
+
+	/**
+	 * Links that lead from a synset to its hypernyms.
+	 */
+	public static final Set<Link> UPWARD_LINKS = Collections.unmodifiableSet( EnumSet.of( Link.hype, Link.inst ) );
+
+	private static final boolean BENCHMARK = false;
+
+	private static class Holder {
+		static final Taxonomy instance = load();
+	}
+
+	// node -> packed synset id, sorted
+	private final int[] synsetIds;
+
+	// direct hypernyms and hyponyms in CSR form
+	private final int[] parentOffsets;
+	private final int[] parents;
+	private final int[] childOffsets;
+	private final int[] children;
+
+	// closure in CSR form: the node itself (0 hops) first, then ancestors by hops
+	private final int[] ancestorOffsets;
+	private final int[] ancestors;
+	private final int[] ancestorHops;
+
+	// hops to the nearest root
+	private final int[] depths;
+	private final int[] maxDepthByPos;
+
+	/**
+	 * Singleton pattern
+	 * @return hierarchy of the WordNet DB, loaded on first call
+	 */
+	public static Taxonomy getInstance() {
+		return Holder.instance;
+	}
+
+	/**
+	 * Builds a hierarchy from a list of links, e.g. for a custom taxonomy. 
+	 * Duplicate links and self links are ignored.
+	 * @param synsets packed ids of the hyponyms
+	 * @param hypernyms packed ids of their hypernyms, in the same order
+	 * @return hierarchy
+	 */
+	public static Taxonomy fromEdges( int[] synsets, int[] hypernyms ) {
+		if ( synsets.length != hypernyms.length ) {
+			throw new IllegalArgumentException( "Lengths differ: "+synsets.length+" != "+hypernyms.length );
+		}
+		return new Taxonomy( synsets, hypernyms, synsets.length );
+	}
+
+	private static Taxonomy load() {
+		long t0 = System.currentTimeMillis();
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		int n = 0;
+		PooledConnection connection = null;
+		ResultSet rs = null;
+		try {
+			connection = SQL.getInstance().borrowConnection();
+			rs = connection.getPreparedStatement( SQLQuery.FIND_HYPERNYM_LINKS ).executeQuery();
+			while ( rs.next() ) {
+				int child = SynsetId.pack( rs.getString(1) );
+				int parent = SynsetId.pack( rs.getString(2) );
+				if ( child == SynsetId.NONE || parent == SynsetId.NONE ) continue;
+				if ( n == from.length ) {
+					from = Arrays.copyOf( from, n*2 );
+					to = Arrays.copyOf( to, n*2 );
+				}
+				from[n] = child;
+				to[n] = parent;
+				n++;
+			}
+			rs.close();
+			rs = null;
+		} catch ( SQLException e ) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if ( rs != null ) rs.close();
+			} catch ( SQLException e ) {
+				e.printStackTrace();
+			}
+			SQL.getInstance().releaseConnection( connection );
+		}
+		Taxonomy taxonomy = new Taxonomy( from, to, n );
+		long t1 = System.currentTimeMillis();
+		if (BENCHMARK) System.out.println( "Taxonomy: "+taxonomy.size()+" synsets, "
+				+taxonomy.ancestors.length+" closure pairs built in "+((double)(t1-t0)/1000D)+" sec." );
+		return taxonomy;
+	}
+
+	private Taxonomy( int[] from, int[] to, int n ) {
+		// distinct links as (child, parent) pairs of packed ids
+		long[] pairs = new long[n];
+		int m = 0;
+		for ( int i = 0; i < n; i++ ) {
+			if ( from[i] < 0 || to[i] < 0 ) throw new IllegalArgumentException( "Not a synset id: "+from[i]+" -> "+to[i] );
+			if ( from[i] != to[i] ) pairs[m++] = (long)from[i] << 32 | to[i];
+		}
+		Arrays.sort( pairs, 0, m );
+		int distinct = 0;
+		for ( int i = 0; i < m; i++ ) {
+			if ( distinct == 0 || pairs[distinct-1] != pairs[i] ) pairs[distinct++] = pairs[i];
+		}
+		
+		int[] ids = new int[2*distinct];
+		for ( int i = 0; i < distinct; i++ ) {
+			ids[2*i] = (int)(pairs[i] >>> 32);
+			ids[2*i+1] = (int)pairs[i];
+		}
+		Arrays.sort( ids );
+		int nodes = 0;
+		for ( int i = 0; i < ids.length; i++ ) {
+			if ( nodes == 0 || ids[nodes-1] != ids[i] ) ids[nodes++] = ids[i];
+		}
+		synsetIds = Arrays.copyOf( ids, nodes );
+		
+		// pairs are sorted by child, so the parents come out grouped
+		parentOffsets = new int[nodes+1];
+		parents = new int[distinct];
+		childOffsets = new int[nodes+1];
+		children = new int[distinct];
+		int[] childOf = new int[distinct];
+		for ( int i = 0; i < distinct; i++ ) {
+			childOf[i] = nodeOf( (int)(pairs[i] >>> 32) );
+			parents[i] = nodeOf( (int)pairs[i] );
+			parentOffsets[childOf[i]+1]++;
+			childOffsets[parents[i]+1]++;
+		}
+		for ( int i = 0; i < nodes; i++ ) {
+			parentOffsets[i+1] += parentOffsets[i];
+			childOffsets[i+1] += childOffsets[i];
+		}
+		int[] next = Arrays.copyOf( childOffsets, nodes );
+		for ( int i = 0; i < distinct; i++ ) {
+			children[next[parents[i]]++] = childOf[i];
+		}
+		
+		// breadth-first search upwards from every node
+		depths = new int[nodes];
+		ancestorOffsets = new int[nodes+1];
+		int[] closure = new int[Math.max( 16, 4*nodes )];
+		int[] hops = new int[closure.length];
+		int[] seen = new int[nodes];
+		Arrays.fill( seen, -1 );
+		int size = 0;
+		for ( int node = 0; node < nodes; node++ ) {
+			int head = size;
+			if ( size + nodes > closure.length ) {
+				int capacity = Math.max( closure.length*2, size + nodes );
+				closure = Arrays.copyOf( closure, capacity );
+				hops = Arrays.copyOf( hops, capacity );
+			}
+			closure[size] = node;
+			hops[size] = 0;
+			size++;
+			seen[node] = node;
+			int depth = -1;
+			for ( int i = head; i < size; i++ ) {
+				int current = closure[i];
+				if ( depth < 0 && parentOffsets[current] == parentOffsets[current+1] ) depth = hops[i];
+				for ( int p = parentOffsets[current]; p < parentOffsets[current+1]; p++ ) {
+					int parent = parents[p];
+					if ( seen[parent] == node ) continue;
+					seen[parent] = node;
+					closure[size] = parent;
+					hops[size] = hops[i]+1;
+					size++;
+				}
+			}
+			// a node within a cycle may never reach a root
+			depths[node] = Math.max( 0, depth );
+			ancestorOffsets[node+1] = size;
+		}
+		ancestors = Arrays.copyOf( closure, size );
+		ancestorHops = Arrays.copyOf( hops, size );
+		
+		maxDepthByPos = new int[POS.values().length];
+		for ( int node = 0; node < nodes; node++ ) {
+			int pos = SynsetId.pos( synsetIds[node] ).ordinal();
+			maxDepthByPos[pos] = Math.max( maxDepthByPos[pos], depths[node] );
+		}
+	}
+
+	/**
+	 * @return number of synsets in the hierarchy
+	 */
+	public int size() {
+		return synsetIds.length;
+	}
+
+	/**
+	 * @param synsetId packed synset id
+	 * @return node number, or -1 if the synset has no hypernym or hyponym
+	 */
+	public int nodeOf( int synsetId ) {
+		if ( synsetId < 0 ) return -1;
+		return Math.max( -1, Arrays.binarySearch( synsetIds, synsetId ) );
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return node number, or -1 if the synset has no hypernym or hyponym
+	 */
+	public int nodeOf( String synset ) {
+		return nodeOf( SynsetId.pack( synset ) );
+	}
+
+	/**
+	 * @param node node number
+	 * @return packed synset id
+	 */
+	public int synsetOf( int node ) {
+		return synsetIds[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return hops from the node to its nearest root (0 for roots)
+	 */
+	public int depth( int node ) {
+		return depths[node];
+	}
+
+	/**
+	 * @param pos POS
+	 * @return largest depth of the synsets of the POS
+	 */
+	public int getMaxDepth( POS pos ) {
+		return maxDepthByPos[pos.ordinal()];
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return hops from the synset to its nearest root; 0 for roots and for
+	 * synsets outside the hierarchy
+	 */
+	public int getDepth( String synset ) {
+		int node = nodeOf( synset );
+		return node >= 0 ? depths[node] : 0;
+	}
+
+	/**
+	 * Finds the hypernyms of a synset and their hypernyms, up to a distance.
+	 * @param synset synset id e.g. 06142412-n
+	 * @param maxDepth largest number of hops; Integer.MAX_VALUE for all
+	 * @return synset ids of the ancestors, nearest first
+	 */
+	public List<String> findAllHypernyms( String synset, int maxDepth ) {
+		int node = nodeOf( synset );
+		if ( node < 0 ) return Collections.emptyList();
+		List<String> results = new ArrayList<String>();
+		for ( int i = ancestorStart( node )+1; i < ancestorEnd( node ) && ancestorHops[i] <= maxDepth; i++ ) {
+			results.add( SynsetId.toString( synsetIds[ancestors[i]] ) );
+		}
+		return results;
+	}
+
+	/**
+	 * @param node node number
+	 * @return first index of the node's closure; the entry there is the node itself
+	 */
+	public int ancestorStart( int node ) {
+		return ancestorOffsets[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return end index (exclusive) of the node's closure
+	 */
+	public int ancestorEnd( int node ) {
+		return ancestorOffsets[node+1];
+	}
+
+	/**
+	 * @param index closure index
+	 * @return node number of the ancestor
+	 */
+	public int ancestor( int index ) {
+		return ancestors[index];
+	}
+
+	/**
+	 * @param index closure index
+	 * @return hops to the ancestor
+	 */
+	public int ancestorHops( int index ) {
+		return ancestorHops[index];
+	}
+
+	/**
+	 * @param node node number
+	 * @return first index of the node's direct hypernyms
+	 */
+	public int parentStart( int node ) {
+		return parentOffsets[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return end index (exclusive) of the node's direct hypernyms
+	 */
+	public int parentEnd( int node ) {
+		return parentOffsets[node+1];
+	}
+
+	/**
+	 * @param index parent index
+	 * @return node number of the hypernym
+	 */
+	public int parent( int index ) {
+		return parents[index];
+	}
+
+	/**
+	 * @param node node number
+	 * @return first index of the node's direct hyponyms
+	 */
+	public int childStart( int node ) {
+		return childOffsets[node];
+	}
+
+	/**
+	 * @param node node number
+	 * @return end index (exclusive) of the node's direct hyponyms
+	 */
+	public int childEnd( int node ) {
+		return childOffsets[node+1];
+	}
+
+	/**
+	 * @param index child index
+	 * @return node number of the hyponym
+	 */
+	public int child( int index ) {
+		return children[index];
+	}
+}
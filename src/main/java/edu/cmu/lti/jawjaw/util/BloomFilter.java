@@ -0,0 +1,124 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util;
+
+/**
+ * Bloom filter over strings. {@link #mightContain(String)} never returns 
+ * false for an added string, and returns true for other strings with 
+ * about the false positive probability given at construction time.
+ * Adding is not thread-safe; a filter that is fully built before being 
+ * published can be queried from any number of threads.
+ */
+public class BloomFilter {
+
+	private final long[] bits;
+	private final long numBits;
+	private final int numHashes;
+	private int count;
+
+	/**
+	 * Creates a filter sized for the expected number of keys and false 
+	 * positive rate, but never larger than maxBytes. If the size limit 
+	 * applies, the actual false positive rate is higher than requested; 
+	 * see {@link #getExpectedFpp()}.
+	 * 
+	 * @param expectedKeys number of keys that will be added
+	 * @param fpp desired false positive probability, e.g. 0.01
+	 * @param maxBytes upper bound of the memory used by the bit array
+	 */
+	public BloomFilter( int expectedKeys, double fpp, long maxBytes ) {
+		expectedKeys = Math.max( 1, expectedKeys );
+		fpp = Math.min( 0.5, Math.max( fpp, 1e-9 ) );
+		long m = (long) Math.ceil( -expectedKeys * Math.log( fpp ) / ( Math.log( 2 ) * Math.log( 2 ) ) );
+		m = Math.min( m, Math.max( 64, maxBytes * 8 ) );
+		int words = (int) Math.min( Integer.MAX_VALUE, ( m + 63 ) / 64 );
+		this.bits = new long[words];
+		this.numBits = (long) words * 64;
+		this.numHashes = Math.max( 1, (int) Math.round( (double) numBits / expectedKeys * Math.log( 2 ) ) );
+	}
+
+	/**
+	 * @param key key to add
+	 */
+	public void add( String key ) {
+		long h1 = hash1( key );
+		long h2 = hash2( key );
+		for ( int i=0; i<numHashes; i++ ) {
+			long index = ( ( h1 + i * h2 ) & Long.MAX_VALUE ) % numBits;
+			bits[(int) ( index >>> 6 )] |= 1L << index;
+		}
+		count++;
+	}
+
+	/**
+	 * @param key key to test
+	 * @return false if the key has definitely not been added
+	 */
+	public boolean mightContain( String key ) {
+		long h1 = hash1( key );
+		long h2 = hash2( key );
+		for ( int i=0; i<numHashes; i++ ) {
+			long index = ( ( h1 + i * h2 ) & Long.MAX_VALUE ) % numBits;
+			if ( ( bits[(int) ( index >>> 6 )] & ( 1L << index ) ) == 0 ) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return false positive probability for the number of keys added so far
+	 */
+	public double getExpectedFpp() {
+		return Math.pow( 1 - Math.exp( -numHashes * (double) count / numBits ), numHashes );
+	}
+
+	/**
+	 * @return memory used by the bit array
+	 */
+	public long getSizeInBytes() {
+		return (long) bits.length * 8;
+	}
+
+	/**
+	 * @return number of keys added
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return number of hash functions
+	 */
+	public int getNumHashes() {
+		return numHashes;
+	}
+
+	private static long hash1( String key ) {
+		// FNV-1a over the chars
+		long h = 0xcbf29ce484222325L;
+		for ( int i=0; i<key.length(); i++ ) {
+			h ^= key.charAt( i );
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	private static long hash2( String key ) {
+		long h = key.hashCode() * 0x9e3779b97f4a7c15L;
+		h ^= h >>> 29;
+		// an odd step visits distinct positions for every hash function
+		return h | 1;
+	}
+}
@@ -16,35 +16,43 @@
 package edu.cmu.lti.jawjaw.util;
 
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import edu.cmu.lti.jawjaw.db.SenseDAO;
 import edu.cmu.lti.jawjaw.db.SynsetDAO;
 import edu.cmu.lti.jawjaw.db.WordDAO;
 import edu.cmu.lti.jawjaw.pobj.POS;
 import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
 
 public class CollectionUtil {
 
-	private static ConcurrentMap<String,String> cache;
+	private static LoadingCache<String,String> cache;
 	public static int capacity;
 
 	static {
 		capacity = Configuration.getInstance().getMaxCacheSize();
-		cache = new ConcurrentHashMap<String,String>( capacity );
+		cache = new LoadingCache<String,String>( CacheFactory.<String,String>newCache( capacity ) );
 	}
 	
-	@SuppressWarnings("deprecation")
+	private static final CacheLoader<String, String> OFFSET = new CacheLoader<String, String>() {
+		public String load( String synset ) {
+			return loadOffset( synset );
+		}
+	};
+	
 	public static String synsetToOffset( String synset ) {
 		if ( synset.equals("0") ) return "*Root*";
 		
-		String key = synset;
 		if ( Configuration.getInstance().useCache() ) {
-			String cachedObj = cache.get(key);
-			if ( cachedObj != null ) return cachedObj;
+			return cache.get( synset, OFFSET );
 		}
-		
+		return loadOffset( synset );
+	}
+	
+	@SuppressWarnings("deprecation")
+	private static String loadOffset( String synset ) {
 		Synset synsetObj = SynsetDAO.findSynsetBySynset( synset );
 		String word = synsetObj.getName();
 		int wordid = SenseDAO.findSensesBySynset( synset ).get(0).getWordid();
@@ -57,16 +65,7 @@ public class CollectionUtil {
 			}
 		}
 		
-		String offset = word+"#"+pos.toString()+"#"+index;
-		if ( Configuration.getInstance().useCache() ) {
-//			synchronized ( cache ) {
-				if ( cache.size() >= Configuration.getInstance().getMaxCacheSize() ) {
-					cache.remove( cache.keySet().iterator().next() );
-				}
-				if (offset!=null) cache.put(key, offset);
-//			}
-		}
-		return offset;
+		return word+"#"+pos.toString()+"#"+index;
 	}
 
 	
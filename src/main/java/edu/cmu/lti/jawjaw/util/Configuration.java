@@ -25,9 +25,19 @@ public class Configuration {
 	private String wordnet;
 	private boolean cache;
 	private int maxCacheSize;
+	private String cachePolicy;
 	private final static String CONF = "/jawjaw.conf";
 	private boolean memoryDB;
 	private int dbCacheSize;
+	private int poolSize;
+	private int batchWindowMicros;
+	private int batchMaxKeys;
+	private String engine;
+	private String lexiconFile;
+	private boolean lemmaFilter;
+	private boolean copyOnRead;
+	private double lemmaFilterFpp;
+	private long lemmaFilterMaxBytes;
 	
 	/**
 	 * Private constructor 
@@ -41,8 +51,18 @@ public class Configuration {
 			wordnet = readString("wordnet", "wnjpn-0.9.db");
 			cache = readInt("cache", 1)==1;
 			maxCacheSize = readInt("maxCacheSize", 1000);
+			cachePolicy = readString("cachePolicy", "tinylfu");
 			memoryDB = readInt("memoryDB", 1)==1;
 			dbCacheSize = readInt("dbCacheSize", 2000);
+			poolSize = readInt("poolSize", 0);
+			batchWindowMicros = readInt("batchWindowMicros", 0);
+			batchMaxKeys = readInt("batchMaxKeys", 100);
+			engine = readString("engine", "sqlite");
+			lexiconFile = readString("lexiconFile", "wnjpn.lex");
+			copyOnRead = readInt("copyOnRead", 0)==1;
+			lemmaFilter = readInt("lemmaFilter", 1)==1;
+			lemmaFilterFpp = readDouble("lemmaFilterFpp", 0.01);
+			lemmaFilterMaxBytes = readInt("lemmaFilterMaxBytes", 4*1024*1024);
 			stream.close();
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -57,6 +77,14 @@ public class Configuration {
 		}
 	}
 	
+	private double readDouble( String key, double defaultValue ) {
+		try {
+			return Double.parseDouble(readString(key, defaultValue+""));
+		} catch ( Exception e ) {
+			return defaultValue;
+		}
+	}
+	
 	private String readString( String key, String defaultValue ) {
 		String value = p.getProperty(key);
 		if ( value == null ) {
@@ -90,6 +118,76 @@ public class Configuration {
 		this.dbCacheSize = dbCacheSize;
 	}
 
+	/**
+	 * @return the lexicon backend: sqlite, heap or mmap
+	 */
+	public String getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @param engine the engine to set; takes effect if set before the first lookup
+	 */
+	public void setEngine(String engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * @return path of the compiled lexicon used by the mmap engine
+	 */
+	public String getLexiconFile() {
+		return lexiconFile;
+	}
+
+	/**
+	 * @param lexiconFile the lexiconFile to set
+	 */
+	public void setLexiconFile(String lexiconFile) {
+		this.lexiconFile = lexiconFile;
+	}
+
+	/**
+	 * @return number of read-only connections; 0 or less means one per processor
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * @param poolSize the poolSize to set
+	 */
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * @return time in microseconds concurrent lookups by id wait to be batched; 0 disables batching
+	 */
+	public int getBatchWindowMicros() {
+		return batchWindowMicros;
+	}
+
+	/**
+	 * @param batchWindowMicros the batchWindowMicros to set; takes effect if set before the first lookup
+	 */
+	public void setBatchWindowMicros(int batchWindowMicros) {
+		this.batchWindowMicros = batchWindowMicros;
+	}
+
+	/**
+	 * @return number of keys that closes a batch before its window ends
+	 */
+	public int getBatchMaxKeys() {
+		return batchMaxKeys;
+	}
+
+	/**
+	 * @param batchMaxKeys the batchMaxKeys to set; takes effect if set before the first lookup
+	 */
+	public void setBatchMaxKeys(int batchMaxKeys) {
+		this.batchMaxKeys = batchMaxKeys;
+	}
+
 	/**
 	 * @return the wordnet
 	 */
@@ -122,6 +220,34 @@ public class Configuration {
 		this.maxCacheSize = maxCacheSize;
 	}
 	
+	/**
+	 * @return the cachePolicy
+	 */
+	public String getCachePolicy() {
+		return cachePolicy;
+	}
+
+	/**
+	 * @param cachePolicy the cachePolicy to set
+	 */
+	public void setCachePolicy(String cachePolicy) {
+		this.cachePolicy = cachePolicy;
+	}
+	
+	/**
+	 * @return whether DAOs return mutable copies of cached records
+	 */
+	public boolean copyOnRead() {
+		return copyOnRead;
+	}
+
+	/**
+	 * @param copyOnRead the copyOnRead to set
+	 */
+	public void setCopyOnRead(boolean copyOnRead) {
+		this.copyOnRead = copyOnRead;
+	}
+	
 	/**
 	 * @return the memoryDB
 	 */
@@ -134,5 +260,47 @@ public class Configuration {
 	 */
 	public void setMemoryDB(boolean memoryDB) {
 		this.memoryDB = memoryDB;
+	}
+
+	/**
+	 * @return whether unknown lemmas are rejected by a membership filter
+	 */
+	public boolean useLemmaFilter() {
+		return lemmaFilter;
+	}
+
+	/**
+	 * @param lemmaFilter the lemmaFilter to set
+	 */
+	public void setLemmaFilter(boolean lemmaFilter) {
+		this.lemmaFilter = lemmaFilter;
+	}
+
+	/**
+	 * @return the lemmaFilterFpp
+	 */
+	public double getLemmaFilterFpp() {
+		return lemmaFilterFpp;
+	}
+
+	/**
+	 * @param lemmaFilterFpp the lemmaFilterFpp to set
+	 */
+	public void setLemmaFilterFpp(double lemmaFilterFpp) {
+		this.lemmaFilterFpp = lemmaFilterFpp;
+	}
+
+	/**
+	 * @return the lemmaFilterMaxBytes
+	 */
+	public long getLemmaFilterMaxBytes() {
+		return lemmaFilterMaxBytes;
+	}
+
+	/**
+	 * @param lemmaFilterMaxBytes the lemmaFilterMaxBytes to set
+	 */
+	public void setLemmaFilterMaxBytes(long lemmaFilterMaxBytes) {
+		this.lemmaFilterMaxBytes = lemmaFilterMaxBytes;
 	}	
 }
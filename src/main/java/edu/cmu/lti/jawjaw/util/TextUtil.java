@@ -19,7 +19,7 @@ public class TextUtil {
 
 	public static String canonicalize( String englishLemma ) {
 		englishLemma = englishLemma.toLowerCase();
-		englishLemma = englishLemma.replaceAll(" ", "_");
+		englishLemma = englishLemma.replace(' ', '_');
 		return englishLemma;
 	}
 	
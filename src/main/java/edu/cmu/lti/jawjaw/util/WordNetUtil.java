@@ -16,10 +16,15 @@
 package edu.cmu.lti.jawjaw.util;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import edu.cmu.lti.jawjaw.db.LemmaFilter;
+import edu.cmu.lti.jawjaw.db.LexiconEngineFactory;
+import edu.cmu.lti.jawjaw.db.RelationDAO;
 import edu.cmu.lti.jawjaw.db.SenseDAO;
 import edu.cmu.lti.jawjaw.db.SynlinkDAO;
 import edu.cmu.lti.jawjaw.db.WordDAO;
@@ -31,6 +36,7 @@ import edu.cmu.lti.jawjaw.pobj.Synlink;
 import edu.cmu.lti.jawjaw.pobj.Synset;
 import edu.cmu.lti.jawjaw.pobj.SynsetDef;
 import edu.cmu.lti.jawjaw.pobj.Word;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
 
 public class WordNetUtil {
 
@@ -77,6 +83,12 @@ public class WordNetUtil {
 	 */
 	public static Set<String> findLinks( String word, POS pos, Link link ) {
 		Set<String> results = new LinkedHashSet<String>();
+		if ( !LemmaFilter.mightContainLemmaAndPos( word, pos ) ) return results;
+		if ( LexiconEngineFactory.getEngine() == null ) {
+			// one join instead of a query per word, sense and link
+			results.addAll( RelationDAO.findLinkedLemmas( word, pos, link ) );
+			return results;
+		}
 		List<Synset> synsets = wordToSynsets( word, pos );
 		Lang lang = findLang(word);
 		for ( Synset synset : synsets ) {
@@ -92,6 +104,81 @@ public class WordNetUtil {
 		return results;
 	}
 	
+	/**
+	 * Find words that have any of the given relationships with the given word.
+	 * The word is resolved once, and the links of each of its synsets are 
+	 * read in one pass for all link types.
+	 * @param word
+	 * @param pos
+	 * @param links link types
+	 * @return words by link type; every given link type is present
+	 */
+	public static Map<Link, Set<String>> findRelated( String word, POS pos, Set<Link> links ) {
+		Map<Link, Set<String>> results = new EnumMap<Link, Set<String>>( Link.class );
+		for ( Link link : links ) {
+			results.put( link, new LinkedHashSet<String>() );
+		}
+		if ( links.isEmpty() || !LemmaFilter.mightContainLemmaAndPos( word, pos ) ) return results;
+		if ( LexiconEngineFactory.getEngine() == null ) {
+			// one join for all link types
+			for ( Map.Entry<Link, List<String>> e : RelationDAO.findRelatedLemmas( word, pos, links ).entrySet() ) {
+				results.get( e.getKey() ).addAll( e.getValue() );
+			}
+			return results;
+		}
+		List<Synset> synsets = wordToSynsets( word, pos );
+		Lang lang = findLang(word);
+		for ( Synset synset : synsets ) {
+			List<Synlink> synlinks = SynlinkDAO.findSynlinksBySynset(synset.getSynset());
+			for ( Synlink synlink : synlinks ) {
+				Set<String> related = results.get( synlink.getLink() );
+				if ( related == null ) continue;
+				List<Sense> senses = SenseDAO.findSensesBySynsetAndLang(synlink.getSynset2(), lang);
+				for ( Sense sense : senses ) {
+					Word wordObj = WordDAO.findWordByWordid( sense.getWordid() );
+					related.add( wordObj.getLemma() );
+				}
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Find the hypernyms of a word and their hypernyms, up to a distance.
+	 * The ancestors come from the {@link Taxonomy}; only mapping them to 
+	 * words touches the DB, in a few batched queries.
+	 * @param word
+	 * @param pos
+	 * @param maxDepth largest number of hops; Integer.MAX_VALUE for all
+	 * @return words, those of nearer hypernyms first
+	 */
+	public static Set<String> findAllHypernyms( String word, POS pos, int maxDepth ) {
+		Set<String> results = new LinkedHashSet<String>();
+		if ( !LemmaFilter.mightContainLemmaAndPos( word, pos ) ) return results;
+		Taxonomy taxonomy = Taxonomy.getInstance();
+		Set<String> ancestors = new LinkedHashSet<String>();
+		for ( Synset synset : wordToSynsets( word, pos ) ) {
+			ancestors.addAll( taxonomy.findAllHypernyms( synset.getSynset(), maxDepth ) );
+		}
+		if ( ancestors.isEmpty() ) return results;
+		
+		Lang lang = findLang(word);
+		List<Integer> wordids = new ArrayList<Integer>();
+		for ( List<Sense> senses : SenseDAO.findSensesBySynsets( ancestors ).values() ) {
+			for ( Sense sense : senses ) {
+				if ( sense.getLang() == lang ) wordids.add( sense.getWordid() );
+			}
+		}
+		int[] ids = new int[wordids.size()];
+		for ( int i = 0; i < ids.length; i++ ) {
+			ids[i] = wordids.get(i);
+		}
+		for ( Word wordObj : WordDAO.findWordsByWordids( ids ).values() ) {
+			results.add( wordObj.getLemma() );
+		}
+		return results;
+	}
+	
 	public static Lang findLang( String word ) {
 		List<Word> words = WordDAO.findWordsByLemma(word);
 		if ( words.size() > 0 ) {
@@ -104,6 +191,12 @@ public class WordNetUtil {
 	
 	public static Set<String> findSynonyms( String word, POS pos, boolean translate ) {
 		Set<String> results = new LinkedHashSet<String>();
+		if ( !LemmaFilter.mightContainLemmaAndPos( word, pos ) ) return results;
+		if ( LexiconEngineFactory.getEngine() == null ) {
+			results.addAll( RelationDAO.findSynonymLemmas( word, pos, translate ) );
+			results.remove( word );
+			return results;
+		}
 		List<Synset> synsets = WordNetUtil.wordToSynsets( word, pos );
 		Lang srcLang = findLang( word );
 		Lang anotherLang = srcLang.equals(Lang.jpn)?Lang.eng:Lang.jpn;
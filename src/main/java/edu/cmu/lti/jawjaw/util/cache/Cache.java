@@ -0,0 +1,68 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+/**
+ * A bounded in-memory cache used behind the DAO classes.
+ * Implementations must be thread-safe and must never hold more 
+ * than {@link #capacity()} entries.
+ * 
+ * @see CacheFactory
+ */
+public interface Cache<K, V> {
+
+	/**
+	 * Looks up a value and records the access.
+	 * @param key key
+	 * @return cached value, or null if absent
+	 */
+	V get( K key );
+
+	/**
+	 * Looks up a value without recording the access, so that the lookup 
+	 * changes neither recency nor frequency.
+	 * @param key key
+	 * @return cached value, or null if absent
+	 */
+	V peek( K key );
+
+	/**
+	 * Stores a value, evicting another entry if the cache is full.
+	 * @param key key
+	 * @param value value (must not be null)
+	 */
+	void put( K key, V value );
+
+	/**
+	 * @param key key to remove
+	 */
+	void remove( K key );
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear();
+
+	/**
+	 * @return current number of entries
+	 */
+	int size();
+
+	/**
+	 * @return maximum number of entries
+	 */
+	int capacity();
+}
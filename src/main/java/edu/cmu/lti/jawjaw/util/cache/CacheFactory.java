@@ -0,0 +1,81 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import java.lang.reflect.Constructor;
+
+import edu.cmu.lti.jawjaw.util.Configuration;
+
+/**
+ * Creates the caches used by the DAO classes according to the 
+ * "cachePolicy" configuration: "tinylfu" (default), "lru", or the 
+ * fully qualified name of a {@link Cache} implementation that has a 
+ * public constructor taking the capacity as an int.
+ */
+public class CacheFactory {
+
+	public static final String TINYLFU = "tinylfu";
+	public static final String LRU = "lru";
+
+	/**
+	 * Creates a cache bounded by the configured maxCacheSize.
+	 * @return new cache
+	 */
+	public static <K, V> Cache<K, V> newCache() {
+		return newCache( Configuration.getInstance().getMaxCacheSize() );
+	}
+
+	/**
+	 * Creates a cache bounded by the configured maxCacheSize that 
+	 * coalesces concurrent loads of the same key.
+	 * @return new loading cache
+	 */
+	public static <K, V> LoadingCache<K, V> newLoadingCache() {
+		return new LoadingCache<K, V>( CacheFactory.<K, V>newCache() );
+	}
+
+	/**
+	 * Creates a cache with the configured policy.
+	 * @param capacity maximum number of entries
+	 * @return new cache
+	 */
+	public static <K, V> Cache<K, V> newCache( int capacity ) {
+		return newCache( Configuration.getInstance().getCachePolicy(), capacity );
+	}
+
+	/**
+	 * @param policy "tinylfu", "lru" or a class name
+	 * @param capacity maximum number of entries
+	 * @return new cache
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> Cache<K, V> newCache( String policy, int capacity ) {
+		capacity = Math.max( 1, capacity );
+		if ( policy == null || policy.equalsIgnoreCase( TINYLFU ) ) {
+			return new TinyLfuCache<K, V>( capacity );
+		} else if ( policy.equalsIgnoreCase( LRU ) ) {
+			return new LruCache<K, V>( capacity );
+		}
+		try {
+			Constructor<?> c = Class.forName( policy ).getConstructor( int.class );
+			return (Cache<K, V>) c.newInstance( capacity );
+		} catch ( Exception e ) {
+			System.err.println( "Cannot instantiate cache policy \""+policy+"\", falling back to "+TINYLFU );
+			e.printStackTrace();
+			return new TinyLfuCache<K, V>( capacity );
+		}
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+/**
+ * Computes the value of a cache entry on a miss.
+ * @see LoadingCache
+ */
+public interface CacheLoader<K, V> {
+
+	/**
+	 * @param key key that missed
+	 * @return loaded value, or null if there is nothing to cache
+	 */
+	V load( K key );
+}
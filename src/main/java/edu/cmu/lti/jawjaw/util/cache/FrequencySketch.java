@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+/**
+ * Count-min sketch with 4-bit counters estimating how often a key has 
+ * been seen recently. All counters are halved once the number of 
+ * recorded accesses reaches the sample size, so old popularity fades.
+ * Not thread-safe; callers synchronize.
+ */
+class FrequencySketch {
+
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = { 0x97cb3127, 0xb1a8c7f5, 0x5c6e2d8b, 0x2f4a9e13 };
+
+	private final long[] table;
+	private final int mask;
+	private final int sampleSize;
+	private int additions;
+
+	/**
+	 * @param capacity maximum number of entries of the owning cache
+	 */
+	FrequencySketch( int capacity ) {
+		int size = 1;
+		while ( size < Math.max( capacity, 16 ) ) size <<= 1;
+		// one long (16 counters) per expected entry keeps collisions rare
+		table = new long[size];
+		mask = size - 1;
+		sampleSize = 10 * Math.max( capacity, 16 );
+	}
+
+	/**
+	 * Records one access to the key.
+	 * @param hashCode hash code of the key
+	 */
+	void increment( int hashCode ) {
+		int h = spread( hashCode );
+		boolean added = false;
+		for ( int i=0; i<SEEDS.length; i++ ) {
+			added |= incrementAt( indexOf( h, i ), counterOf( h, i ) );
+		}
+		if ( added && ++additions >= sampleSize ) {
+			reset();
+		}
+	}
+
+	/**
+	 * @param hashCode hash code of the key
+	 * @return estimated number of recent accesses (0-15)
+	 */
+	int frequency( int hashCode ) {
+		int h = spread( hashCode );
+		int min = MAX_COUNT;
+		for ( int i=0; i<SEEDS.length; i++ ) {
+			int index = indexOf( h, i );
+			int shift = counterOf( h, i ) << 2;
+			int count = (int) ( ( table[index] >>> shift ) & 0xfL );
+			if ( count < min ) min = count;
+		}
+		return min;
+	}
+
+	private boolean incrementAt( int index, int counter ) {
+		int shift = counter << 2;
+		long m = 0xfL << shift;
+		if ( ( table[index] & m ) != m ) {
+			table[index] += 1L << shift;
+			return true;
+		}
+		return false;
+	}
+
+	private void reset() {
+		for ( int i=0; i<table.length; i++ ) {
+			// halve every 4-bit counter at once
+			table[i] = ( table[i] >>> 1 ) & 0x7777777777777777L;
+		}
+		additions >>>= 1;
+	}
+
+	private int indexOf( int h, int i ) {
+		int x = ( h ^ SEEDS[i] ) * 0x9e3779b9;
+		x ^= x >>> 16;
+		return x & mask;
+	}
+
+	private int counterOf( int h, int i ) {
+		return ( ( h >>> ( i << 3 ) ) ^ ( h >>> 28 ) ) & 0xf;
+	}
+
+	private static int spread( int x ) {
+		x = ( ( x >>> 16 ) ^ x ) * 0x45d9f3b;
+		x = ( ( x >>> 16 ) ^ x ) * 0x45d9f3b;
+		return ( x >>> 16 ) ^ x;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A {@link Cache} front that coalesces concurrent misses: while a key is 
+ * being loaded, other threads asking for the same key wait for that one
+ * load instead of running the same query again. Without this, a cache 
+ * flush or a popular new key makes every request thread hit the database
+ * at once.
+ */
+public class LoadingCache<K, V> {
+
+	private final Cache<K, V> cache;
+	private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+	public LoadingCache( Cache<K, V> cache ) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the cached value, loading it at most once per key at a time.
+	 * @param key key
+	 * @param loader computes the value on a miss
+	 * @return value, or null if the loader found nothing
+	 */
+	public V get( final K key, final CacheLoader<K, V> loader ) {
+		V value = cache.get( key );
+		if ( value != null ) return value;
+
+		FutureTask<V> task = new FutureTask<V>( new Callable<V>() {
+			public V call() {
+				// another thread may have finished loading the key since the miss above;
+				// peek so that the re-check is not counted as a second access
+				V cached = cache.peek( key );
+				if ( cached != null ) return cached;
+				V loaded = loader.load( key );
+				if ( loaded != null ) cache.put( key, loaded );
+				return loaded;
+			}
+		});
+		FutureTask<V> running = inFlight.putIfAbsent( key, task );
+		if ( running == null ) {
+			running = task;
+			try {
+				task.run();
+			} finally {
+				inFlight.remove( key, task );
+			}
+		}
+		return await( running );
+	}
+
+	/**
+	 * @param key key
+	 * @return cached value without loading, or null
+	 */
+	public V getIfPresent( K key ) {
+		return cache.get( key );
+	}
+
+	/**
+	 * @param key key
+	 * @param value value to cache
+	 */
+	public void put( K key, V value ) {
+		cache.put( key, value );
+	}
+
+	/**
+	 * Discards all cached values. Loads in progress are not affected.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * @return the underlying cache
+	 */
+	public Cache<K, V> getCache() {
+		return cache;
+	}
+
+	private V await( FutureTask<V> task ) {
+		boolean interrupted = false;
+		try {
+			while ( true ) {
+				try {
+					return task.get();
+				} catch ( InterruptedException e ) {
+					interrupted = true;
+				} catch ( ExecutionException e ) {
+					Throwable cause = e.getCause();
+					if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+					if ( cause instanceof Error ) throw (Error) cause;
+					throw new IllegalStateException( cause );
+				}
+			}
+		} finally {
+			if ( interrupted ) Thread.currentThread().interrupt();
+		}
+	}
+}
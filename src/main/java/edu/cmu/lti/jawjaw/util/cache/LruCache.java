@@ -0,0 +1,73 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plain least-recently-used cache. Cheaper than {@link TinyLfuCache} 
+ * but lets one-hit wonders push out frequently used entries.
+ */
+public class LruCache<K, V> implements Cache<K, V> {
+
+	private final int capacity;
+	private final LinkedHashMap<K, V> map;
+
+	public LruCache( int capacity ) {
+		if ( capacity < 1 ) throw new IllegalArgumentException( "capacity must be positive: "+capacity );
+		this.capacity = capacity;
+		// insertion-ordered so that peek() does not promote; get() re-inserts hits
+		this.map = new LinkedHashMap<K, V>( 16, 0.75f, false ) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<K, V> eldest ) {
+				return size() > LruCache.this.capacity;
+			}
+		};
+	}
+
+	public synchronized V get( K key ) {
+		V value = map.remove( key );
+		if ( value != null ) map.put( key, value );
+		return value;
+	}
+
+	public synchronized V peek( K key ) {
+		return map.get( key );
+	}
+
+	public synchronized void put( K key, V value ) {
+		map.remove( key );
+		map.put( key, value );
+	}
+
+	public synchronized void remove( K key ) {
+		map.remove( key );
+	}
+
+	public synchronized void clear() {
+		map.clear();
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+}
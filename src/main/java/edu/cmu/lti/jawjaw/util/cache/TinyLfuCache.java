@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * W-TinyLFU cache. New entries go to a small LRU window (1% of the 
+ * capacity); entries leaving the window compete with the least recently 
+ * used entry of the main segmented LRU, and only the one accessed more 
+ * often recently (according to a {@link FrequencySketch}) is kept. 
+ * Entries hit again in the main probation segment are promoted to the
+ * protected segment (80% of the main space).
+ * <p>
+ * This keeps hot keys such as common hypernym synsets resident under 
+ * skewed traffic, while scans of rarely used keys cannot flush the cache.
+ * All operations are O(1) and the size bound is exact.
+ */
+public class TinyLfuCache<K, V> implements Cache<K, V> {
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private final int capacity;
+	private final int windowCapacity;
+	private final int protectedCapacity;
+
+	private final Map<K, Node<K, V>> data;
+	private final FrequencySketch sketch;
+	private final AccessOrder<K, V> window = new AccessOrder<K, V>();
+	private final AccessOrder<K, V> probation = new AccessOrder<K, V>();
+	private final AccessOrder<K, V> protectedSegment = new AccessOrder<K, V>();
+
+	public TinyLfuCache( int capacity ) {
+		if ( capacity < 1 ) throw new IllegalArgumentException( "capacity must be positive: "+capacity );
+		this.capacity = capacity;
+		this.windowCapacity = Math.max( 1, capacity / 100 );
+		this.protectedCapacity = ( capacity - windowCapacity ) * 4 / 5;
+		this.data = new HashMap<K, Node<K, V>>( capacity * 4 / 3 + 1 );
+		this.sketch = new FrequencySketch( capacity );
+	}
+
+	public synchronized V get( K key ) {
+		sketch.increment( key.hashCode() );
+		Node<K, V> node = data.get( key );
+		if ( node == null ) return null;
+		onHit( node );
+		return node.value;
+	}
+
+	public synchronized V peek( K key ) {
+		Node<K, V> node = data.get( key );
+		return node == null ? null : node.value;
+	}
+
+	public synchronized void put( K key, V value ) {
+		if ( value == null ) throw new NullPointerException( "null value for "+key );
+		Node<K, V> node = data.get( key );
+		if ( node != null ) {
+			node.value = value;
+			onHit( node );
+			return;
+		}
+		// the access was counted by the get() that missed; loads are not reads
+		node = new Node<K, V>( key, value );
+		data.put( key, node );
+		node.queue = WINDOW;
+		window.addLast( node );
+		if ( window.size > windowCapacity ) {
+			Node<K, V> candidate = window.removeFirst();
+			candidate.queue = PROBATION;
+			probation.addLast( candidate );
+			if ( data.size() > capacity ) {
+				evict( candidate );
+			}
+		}
+	}
+
+	public synchronized void remove( K key ) {
+		Node<K, V> node = data.remove( key );
+		if ( node != null ) queueOf( node ).remove( node );
+	}
+
+	public synchronized void clear() {
+		data.clear();
+		window.clear();
+		probation.clear();
+		protectedSegment.clear();
+	}
+
+	public synchronized int size() {
+		return data.size();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	private void onHit( Node<K, V> node ) {
+		switch ( node.queue ) {
+		case WINDOW:
+			window.moveToLast( node );
+			break;
+		case PROBATION:
+			probation.remove( node );
+			node.queue = PROTECTED;
+			protectedSegment.addLast( node );
+			if ( protectedSegment.size > protectedCapacity ) {
+				Node<K, V> demoted = protectedSegment.removeFirst();
+				demoted.queue = PROBATION;
+				probation.addLast( demoted );
+			}
+			break;
+		default:
+			protectedSegment.moveToLast( node );
+		}
+	}
+
+	/**
+	 * Lets the candidate that just left the window compete against the 
+	 * main segment's eviction victim; the less frequently used one goes.
+	 */
+	private void evict( Node<K, V> candidate ) {
+		Node<K, V> victim = probation.first();
+		if ( victim == candidate ) victim = null; // the candidate is alone in probation
+		if ( victim == null ) victim = protectedSegment.first();
+		if ( victim == null 
+				|| sketch.frequency( candidate.key.hashCode() ) <= sketch.frequency( victim.key.hashCode() ) ) {
+			victim = candidate;
+		}
+		queueOf( victim ).remove( victim );
+		data.remove( victim.key );
+	}
+
+	private AccessOrder<K, V> queueOf( Node<K, V> node ) {
+		switch ( node.queue ) {
+		case WINDOW: return window;
+		case PROBATION: return probation;
+		default: return protectedSegment;
+		}
+	}
+
+	private static final class Node<K, V> {
+		final K key;
+		V value;
+		int queue;
+		Node<K, V> prev;
+		Node<K, V> next;
+		Node( K key, V value ) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Doubly linked list with a sentinel; first is least recently used.
+	 */
+	private static final class AccessOrder<K, V> {
+		final Node<K, V> head = new Node<K, V>( null, null );
+		int size;
+
+		AccessOrder() {
+			head.prev = head;
+			head.next = head;
+		}
+
+		Node<K, V> first() {
+			return head.next == head ? null : head.next;
+		}
+
+		void addLast( Node<K, V> node ) {
+			node.prev = head.prev;
+			node.next = head;
+			head.prev.next = node;
+			head.prev = node;
+			size++;
+		}
+
+		void remove( Node<K, V> node ) {
+			node.prev.next = node.next;
+			node.next.prev = node.prev;
+			node.prev = null;
+			node.next = null;
+			size--;
+		}
+
+		Node<K, V> removeFirst() {
+			Node<K, V> node = head.next;
+			remove( node );
+			return node;
+		}
+
+		void moveToLast( Node<K, V> node ) {
+			if ( head.prev == node ) return;
+			remove( node );
+			addLast( node );
+		}
+
+		void clear() {
+			head.prev = head;
+			head.next = head;
+			size = 0;
+		}
+	}
+}
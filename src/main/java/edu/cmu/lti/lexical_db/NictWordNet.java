@@ -0,0 +1,269 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.lexical_db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.cmu.lti.jawjaw.db.SenseDAO;
+import edu.cmu.lti.jawjaw.db.SynlinkDAO;
+import edu.cmu.lti.jawjaw.db.SynsetDAO;
+import edu.cmu.lti.jawjaw.db.SynsetDefDAO;
+import edu.cmu.lti.jawjaw.db.WordDAO;
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.pobj.Word;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+import edu.cmu.lti.jawjaw.util.WordNetUtil;
+import edu.cmu.lti.jawjaw.util.cache.CacheFactory;
+import edu.cmu.lti.jawjaw.util.cache.CacheLoader;
+import edu.cmu.lti.jawjaw.util.cache.LoadingCache;
+import edu.cmu.lti.lexical_db.data.Concept;
+
+/**
+ * {@link ILexicalDatabase} on top of the jawjaw DAOs, for similarity measures 
+ * that ask for the same words and synsets over and over.
+ * <p>
+ * The concepts of a word are looked up once and kept, most frequent first; 
+ * hypernyms come from the {@link Taxonomy} and are kept per synset. 
+ * All returned collections and concepts are shared and read-only 
+ * (concepts are frozen, use {@link Concept#clone()} for a mutable copy), 
+ * so repeated calls do not allocate. Instances are thread-safe.
+ */
+public class NictWordNet implements ILexicalDatabase {
+
+	/** Glosses are only available in English. */
+	private static final Lang GLOSS_LANG = Lang.eng;
+
+	/** Most frequent first, then by rank; ties keep the DB order. */
+	private static final Comparator<Sense> BY_FREQUENCY = new Comparator<Sense>() {
+		public int compare( Sense s1, Sense s2 ) {
+			if ( s1.getFreq() != s2.getFreq() ) return s1.getFreq() > s2.getFreq() ? -1 : 1;
+			return s1.getRank() < s2.getRank() ? -1 : ( s1.getRank() == s2.getRank() ? 0 : 1 );
+		}
+	};
+
+	private final Map<POS, LoadingCache<String, List<Concept>>> conceptsByPos;
+	private final Map<POS, CacheLoader<String, List<Concept>>> loadersByPos;
+	private final LoadingCache<Integer, Concept> synsets;
+	private final LoadingCache<Long, List<String>> glosses;
+
+	private final Taxonomy taxonomy;
+	/** Synset id strings by taxonomy node, so hypernym lists share them */
+	private final AtomicReferenceArray<String> offsets;
+	private final AtomicReferenceArray<List<String>> hypernyms;
+
+	private static final CacheLoader<Integer, Concept> BY_SYNSET = new CacheLoader<Integer, Concept>() {
+		public Concept load( Integer synsetId ) {
+			Synset synset = SynsetDAO.findSynsetBySynset( synsetId.intValue() );
+			if ( synset == null ) return null;
+			return new Concept( synset.getSynset(), synset.getPos(), 
+					synset.getName(), synset.getSrc() ).freeze();
+		}
+	};
+
+	private static final CacheLoader<Long, List<String>> GLOSSES = new CacheLoader<Long, List<String>>() {
+		public List<String> load( Long key ) {
+			return loadGlosses( key.longValue() );
+		}
+	};
+
+	public NictWordNet() {
+		this( Taxonomy.getInstance() );
+	}
+
+	/**
+	 * @param taxonomy hierarchy that hypernyms are read from
+	 */
+	public NictWordNet( Taxonomy taxonomy ) {
+		this.taxonomy = taxonomy;
+		offsets = new AtomicReferenceArray<String>( taxonomy.size() );
+		hypernyms = new AtomicReferenceArray<List<String>>( taxonomy.size() );
+		conceptsByPos = new EnumMap<POS, LoadingCache<String, List<Concept>>>( POS.class );
+		loadersByPos = new EnumMap<POS, CacheLoader<String, List<Concept>>>( POS.class );
+		for ( final POS pos : POS.values() ) {
+			conceptsByPos.put( pos, CacheFactory.<String, List<Concept>>newLoadingCache() );
+			loadersByPos.put( pos, new CacheLoader<String, List<Concept>>() {
+				public List<Concept> load( String word ) {
+					return loadConcepts( word, pos );
+				}
+			});
+		}
+		synsets = CacheFactory.newLoadingCache();
+		glosses = CacheFactory.newLoadingCache();
+	}
+
+	public Concept getMostFrequentConcept( String word, String pos ) {
+		List<Concept> concepts = getAllConcepts( word, pos );
+		return concepts.isEmpty() ? null : concepts.get(0);
+	}
+
+	/**
+	 * @param word lemma in English or Japanese
+	 * @param pos part of speech, one of "a", "n", "r", "v"
+	 * @return concepts of the word, most frequent first; empty for an unknown pos
+	 */
+	public List<Concept> getAllConcepts( String word, String pos ) {
+		POS p = toPOS( pos );
+		if ( p == null || word == null ) return Collections.emptyList();
+		return conceptsByPos.get( p ).get( word, loadersByPos.get( p ) );
+	}
+
+	private List<Concept> loadConcepts( String word, POS pos ) {
+		List<Word> words = WordDAO.findWordsByLemmaAndPos( word, pos );
+		if ( words.isEmpty() ) return Collections.emptyList();
+		int[] wordids = new int[words.size()];
+		for ( int i = 0; i < wordids.length; i++ ) {
+			wordids[i] = words.get(i).getWordid();
+		}
+		List<Sense> senses = new ArrayList<Sense>();
+		for ( List<Sense> s : SenseDAO.findSensesByWordids( wordids ).values() ) {
+			senses.addAll( s );
+		}
+		Collections.sort( senses, BY_FREQUENCY );
+		// the first (most frequent) sense of a synset decides its position
+		Map<String, Concept> concepts = new LinkedHashMap<String, Concept>();
+		for ( Sense sense : senses ) {
+			if ( concepts.containsKey( sense.getSynset() ) ) continue;
+			Concept concept = findSynsetBySynset( sense.getSynset() );
+			if ( concept == null ) concept = new Concept( sense.getSynset(), pos ).freeze();
+			concepts.put( sense.getSynset(), concept );
+		}
+		return Collections.unmodifiableList( new ArrayList<Concept>( concepts.values() ) );
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return synset ids of the hypernyms and classes of instances, 
+	 * empty if there are none
+	 */
+	public List<String> getHypernyms( String synset ) {
+		int node = taxonomy.nodeOf( synset );
+		if ( node < 0 ) return Collections.emptyList();
+		List<String> result = hypernyms.get( node );
+		if ( result == null ) {
+			int start = taxonomy.parentStart( node );
+			int end = taxonomy.parentEnd( node );
+			List<String> parents = new ArrayList<String>( end - start );
+			for ( int i = start; i < end; i++ ) {
+				parents.add( offsetOf( taxonomy.parent(i) ) );
+			}
+			result = Collections.unmodifiableList( parents );
+			// racing threads compute equal lists; keep the first
+			if ( !hypernyms.compareAndSet( node, null, result ) ) result = hypernyms.get( node );
+		}
+		return result;
+	}
+
+	private String offsetOf( int node ) {
+		String offset = offsets.get( node );
+		if ( offset == null ) {
+			offset = SynsetId.toString( taxonomy.synsetOf( node ) );
+			if ( !offsets.compareAndSet( node, null, offset ) ) offset = offsets.get( node );
+		}
+		return offset;
+	}
+
+	/**
+	 * @param synset synset id e.g. 06142412-n
+	 * @return concept of the synset, or null if there is no such synset
+	 */
+	public Concept findSynsetBySynset( String synset ) {
+		int id = SynsetId.pack( synset );
+		if ( id == SynsetId.NONE ) return null;
+		return synsets.get( Integer.valueOf( id ), BY_SYNSET );
+	}
+
+	/**
+	 * @param synset synset id
+	 * @return the synset id in its "offset-pos" form e.g. 06142412-n, 
+	 * or null if it is malformed
+	 */
+	public String conceptToString( String synset ) {
+		int node = taxonomy.nodeOf( synset );
+		if ( node >= 0 ) return offsetOf( node );
+		return SynsetId.pack( synset ) == SynsetId.NONE ? null : synset;
+	}
+
+	/**
+	 * Finds glosses (definitions without the examples) in English.
+	 * 
+	 * @param synset concept
+	 * @param linkString name of a {@link Link}, for the glosses of the synsets
+	 * linked that way; anything else (e.g. "syns" or null) for the gloss of 
+	 * the synset itself
+	 * @return glosses
+	 */
+	public List<String> getGloss( Concept synset, String linkString ) {
+		int id = SynsetId.pack( synset.getSynset() );
+		if ( id == SynsetId.NONE ) return Collections.emptyList();
+		Link link = toLink( linkString );
+		long key = link != null ? SynsetId.key( id, link ) : id;
+		List<String> result = glosses.get( Long.valueOf( key ), GLOSSES );
+		return result != null ? result : Collections.<String>emptyList();
+	}
+
+	private static List<String> loadGlosses( long key ) {
+		int id = SynsetId.idOf( key );
+		int ordinal = SynsetId.ordinalOf( key );
+		List<String> targets = new ArrayList<String>();
+		if ( ordinal < 0 ) {
+			targets.add( SynsetId.toString( id ) );
+		} else {
+			for ( Synlink synlink : SynlinkDAO.findSynlinksBySynsetAndLink( id, Link.values()[ordinal] ) ) {
+				targets.add( synlink.getSynset2() );
+			}
+		}
+		List<String> result = new ArrayList<String>( targets.size() );
+		for ( SynsetDef def : SynsetDefDAO.findSynsetDefsBySynsets( targets, GLOSS_LANG ).values() ) {
+			result.add( WordNetUtil.getGloss( def ) );
+		}
+		return Collections.unmodifiableList( result );
+	}
+
+	private static POS toPOS( String pos ) {
+		if ( pos == null || pos.length() != 1 ) return null;
+		switch ( pos.charAt(0) ) {
+		case 'a': return POS.a;
+		case 'n': return POS.n;
+		case 'r': return POS.r;
+		case 'v': return POS.v;
+		default: return null;
+		}
+	}
+
+	private static Link toLink( String link ) {
+		if ( link == null ) return null;
+		try {
+			return Link.valueOf( link );
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+}
@@ -15,6 +15,7 @@
  */
 package edu.cmu.lti.lexical_db.data;
 
+import edu.cmu.lti.jawjaw.pobj.Freezable;
 import edu.cmu.lti.jawjaw.pobj.POS;
 
 
@@ -23,12 +24,13 @@ import edu.cmu.lti.jawjaw.pobj.POS;
  * @author Hideki Shima
  *
  */
-public class Concept implements Cloneable {
+public class Concept implements Freezable<Concept> {
 
 	private String synset;
 	private POS pos;
 	private String name;
 	private String src;
+	private boolean frozen;
 	
 	public Concept( String synset ) {
 		this.synset = synset; 
@@ -72,6 +74,7 @@ public class Concept implements Cloneable {
 	 * @param synset the synset to set
 	 */
 	public void setSynset(String synset) {
+		checkMutable();
 		this.synset = synset;
 	}
 
@@ -92,6 +95,7 @@ public class Concept implements Cloneable {
 	 * @param pos the pos to set
 	 */
 	public void setPos(POS pos) {
+		checkMutable();
 		this.pos = pos;
 	}
 
@@ -113,6 +117,7 @@ public class Concept implements Cloneable {
 	 * @param name the name to set
 	 */
 	public void setName(String name) {
+		checkMutable();
 		this.name = name;
 	}
 
@@ -127,11 +132,25 @@ public class Concept implements Cloneable {
 	 * @param src the src to set
 	 */
 	public void setSrc(String src) {
+		checkMutable();
 		this.src = src;
 	}
 
 	@Override
 	public Concept clone() {
-		return new Concept( synset, POS.valueOf(pos.toString()), name, src );
+		return new Concept( synset, pos, name, src );
+	}
+
+	public Concept freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if ( frozen ) throw new UnsupportedOperationException( "frozen object; use clone() for a mutable copy" );
 	}
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+
+/**
+ * Checks that the asynchronous lookups return what the synchronous ones do, 
+ * and what happens when the executor is saturated.
+ */
+public class AsyncJAWJAWTest {
+
+	private String word = "dog";
+	private POS pos = POS.n;
+
+	@Test
+	public void testResultsMatchJAWJAW() throws Exception {
+		AsyncJAWJAW async = new AsyncJAWJAW();
+		Assert.assertEquals( JAWJAW.findHypernyms( word, pos ), async.findHypernymsAsync( word, pos ).get() );
+		Assert.assertEquals( JAWJAW.findAllHypernyms( word, pos, 3 ), async.findAllHypernymsAsync( word, pos, 3 ).get() );
+		Assert.assertEquals( JAWJAW.findMeronyms( word, pos ), async.findMeronymsAsync( word, pos ).get() );
+		Assert.assertEquals( JAWJAW.findSynonyms( word, pos ), async.findSynonymsAsync( word, pos ).get() );
+		Assert.assertEquals( JAWJAW.findTranslations( word, pos ), async.findTranslationsAsync( word, pos ).get() );
+		Assert.assertEquals( JAWJAW.findDefinitions( word, pos ), async.findDefinitionsAsync( word, pos ).get() );
+		EnumSet<Link> links = EnumSet.of( Link.hype, Link.hypo );
+		Assert.assertEquals( JAWJAW.findRelated( word, pos, links ), async.findRelatedAsync( word, pos, links ).get() );
+	}
+
+	@Test
+	public void testSaturatedExecutorRunsInCaller() throws Exception {
+		ThreadPoolExecutor executor = AsyncJAWJAW.newExecutor( 1, 1 );
+		CountDownLatch release = saturate( executor );
+		try {
+			Future<Set<String>> hypernyms = new AsyncJAWJAW( executor ).findHypernymsAsync( word, pos );
+			// ran on the calling thread, so it is done before the pool frees up
+			Assert.assertTrue( hypernyms.isDone() );
+			Assert.assertEquals( JAWJAW.findHypernyms( word, pos ), hypernyms.get() );
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSaturatedExecutorRejects() throws Exception {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor( 1, 1, 0, TimeUnit.SECONDS, 
+				new ArrayBlockingQueue<Runnable>( 1 ), new ThreadPoolExecutor.AbortPolicy() );
+		CountDownLatch release = saturate( executor );
+		try {
+			new AsyncJAWJAW( executor ).findHypernymsAsync( word, pos );
+			Assert.fail( "saturated executor accepted a lookup" );
+		} catch ( RejectedExecutionException e ) {
+			// expected
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Occupies the only thread and the only queue slot of an executor.
+	 * @return latch that frees the executor
+	 */
+	private static CountDownLatch saturate( ThreadPoolExecutor executor ) throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch( 1 );
+		final CountDownLatch release = new CountDownLatch( 1 );
+		Runnable blocker = new Runnable() {
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		executor.execute( blocker );
+		started.await();
+		executor.execute( blocker );
+		return release;
+	}
+}
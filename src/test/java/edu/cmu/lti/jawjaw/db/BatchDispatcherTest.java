@@ -0,0 +1,89 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks that concurrent lookups are coalesced into batches.
+ */
+public class BatchDispatcherTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private final BatchDispatcher.Loader<Integer, String> loader = new BatchDispatcher.Loader<Integer, String>() {
+		public Map<Integer, String> loadAll( Collection<Integer> keys ) {
+			calls.incrementAndGet();
+			Map<Integer, String> values = new HashMap<Integer, String>();
+			for ( Integer key : keys ) {
+				if ( key >= 0 ) values.put( key, "v"+key );
+			}
+			return values;
+		}
+	};
+
+	@Test
+	public void testSingleLookupWaitsForWindow() throws Exception {
+		BatchDispatcher<Integer, String> dispatcher = new BatchDispatcher<Integer, String>( loader, 1000, 10 );
+		Assert.assertEquals( "v1", dispatcher.get( 1 ) );
+		Assert.assertNull( dispatcher.get( -1 ) );
+		Assert.assertEquals( 2, calls.get() );
+	}
+
+	@Test
+	public void testFullBatchIsLoadedOnce() throws Exception {
+		final int threads = 8;
+		// a window long enough that only the size can close the batch
+		final BatchDispatcher<Integer, String> dispatcher = new BatchDispatcher<Integer, String>( loader, 60*1000*1000, threads );
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final String[] results = new String[threads];
+		List<Thread> workers = new ArrayList<Thread>();
+		for ( int i = 0; i < threads; i++ ) {
+			final int key = i;
+			Thread worker = new Thread() {
+				public void run() {
+					try {
+						start.await();
+					} catch ( InterruptedException e ) {
+						return;
+					}
+					results[key] = dispatcher.get( key );
+				}
+			};
+			worker.start();
+			workers.add( worker );
+		}
+		start.countDown();
+		for ( Thread worker : workers ) {
+			worker.join( 10*1000 );
+			Assert.assertFalse( worker.isAlive() );
+		}
+		for ( int i = 0; i < threads; i++ ) {
+			Assert.assertEquals( "v"+i, results[i] );
+		}
+		Assert.assertEquals( 1, calls.get() );
+	}
+}
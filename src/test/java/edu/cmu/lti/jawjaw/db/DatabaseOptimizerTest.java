@@ -0,0 +1,129 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Optimizes a tiny WordNet-shaped DB and checks that the fingerprint lets 
+ * {@link SQL} skip its index DDL.
+ */
+public class DatabaseOptimizerTest {
+
+	private static File createSource() throws Exception {
+		File file = File.createTempFile( "jawjaw-source", ".db" );
+		file.deleteOnExit();
+		Connection c = DriverManager.getConnection( "jdbc:sqlite:"+file.getPath() );
+		Statement s = c.createStatement();
+		try {
+			s.execute( "CREATE TABLE word (wordid INTEGER, lang TEXT, lemma TEXT, pron TEXT, pos TEXT)" );
+			s.execute( "CREATE TABLE sense (synset TEXT, wordid INTEGER, lang TEXT, rank TEXT, lexid INTEGER, freq INTEGER, src TEXT)" );
+			s.execute( "CREATE TABLE synset (synset TEXT, pos TEXT, name TEXT, src TEXT)" );
+			s.execute( "CREATE TABLE synset_def (synset TEXT, lang TEXT, def TEXT, sid TEXT)" );
+			s.execute( "CREATE TABLE synlink (synset1 TEXT, synset2 TEXT, link TEXT, src TEXT)" );
+			s.execute( "INSERT INTO word VALUES (1, 'eng', 'dog', NULL, 'n')" );
+			s.execute( "INSERT INTO sense VALUES ('02084071-n', 1, 'eng', '1', 0, 42, 'eng-30')" );
+			s.execute( "INSERT INTO synset VALUES ('02084071-n', 'n', 'dog', 'eng-30')" );
+			s.execute( "INSERT INTO synset_def VALUES ('02084071-n', 'eng', 'a member of the genus Canis', '0')" );
+			s.execute( "INSERT INTO synlink VALUES ('02084071-n', '02083346-n', 'hype', 'eng-30')" );
+		} finally {
+			s.close();
+			c.close();
+		}
+		return file;
+	}
+
+	private static Connection optimizedCopy( File source ) throws Exception {
+		File target = File.createTempFile( "jawjaw-optimized", ".db" );
+		target.delete();
+		target.deleteOnExit();
+		Connection c = DriverManager.getConnection( "jdbc:sqlite:"+target.getPath() );
+		DatabaseOptimizer.optimize( c, source );
+		return c;
+	}
+
+	private static boolean hasIndex( Connection c, String name ) throws SQLException {
+		Statement s = c.createStatement();
+		try {
+			ResultSet rs = s.executeQuery( "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND name = '"+name+"'" );
+			return rs.next() && rs.getInt(1) > 0;
+		} finally {
+			s.close();
+		}
+	}
+
+	@Test
+	public void testFingerprintIsWritten() throws Exception {
+		Class.forName( "org.sqlite.JDBC" );
+		Connection c = optimizedCopy( createSource() );
+		try {
+			Statement s = c.createStatement();
+			ResultSet rs = s.executeQuery( "SELECT value FROM "+DatabaseOptimizer.META_TABLE+" WHERE key = 'schema'" );
+			Assert.assertTrue( rs.next() );
+			Assert.assertEquals( DatabaseOptimizer.SCHEMA_FINGERPRINT, rs.getString(1) );
+			s.close();
+			Assert.assertTrue( DatabaseOptimizer.isOptimized( c ) );
+		} finally {
+			c.close();
+		}
+	}
+
+	@Test
+	public void testMatchingFingerprintSkipsIndexDDL() throws Exception {
+		Class.forName( "org.sqlite.JDBC" );
+		Connection c = optimizedCopy( createSource() );
+		try {
+			Assert.assertFalse( SQL.createIndexIfNotExists( c ) );
+			Assert.assertFalse( hasIndex( c, "word_wordid_idx" ) );
+		} finally {
+			c.close();
+		}
+	}
+
+	@Test
+	public void testOtherFingerprintRunsIndexDDL() throws Exception {
+		Class.forName( "org.sqlite.JDBC" );
+		Connection c = optimizedCopy( createSource() );
+		try {
+			Statement s = c.createStatement();
+			s.execute( "UPDATE "+DatabaseOptimizer.META_TABLE+" SET value = 'v0-stale' WHERE key = 'schema'" );
+			s.close();
+			Assert.assertFalse( DatabaseOptimizer.isOptimized( c ) );
+			Assert.assertTrue( SQL.createIndexIfNotExists( c ) );
+			Assert.assertTrue( hasIndex( c, "word_wordid_idx" ) );
+		} finally {
+			c.close();
+		}
+		
+		c = DriverManager.getConnection( "jdbc:sqlite:"+createSource().getPath() );
+		try {
+			Assert.assertFalse( DatabaseOptimizer.isOptimized( c ) );
+			Assert.assertTrue( SQL.createIndexIfNotExists( c ) );
+			Assert.assertTrue( hasIndex( c, "word_wordid_idx" ) );
+		} finally {
+			c.close();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks the row grouping used by the heap lexicon engine.
+ */
+public class GroupIndexTest {
+
+	private static final String[] TABLE = { "a1", "b1", "a2", "c1", "b2", "a3" };
+
+	@Test
+	public void testByStringKeepsRowOrder() {
+		String[] keys = { "a", "b", "a", "c", "b", "a" };
+		GroupIndex index = GroupIndex.byString( keys );
+		Assert.assertEquals( 3, index.groups() );
+		List<String> a = index.list( TABLE, index.group("a") );
+		Assert.assertEquals( 3, a.size() );
+		Assert.assertEquals( "a1", a.get(0) );
+		Assert.assertEquals( "a2", a.get(1) );
+		Assert.assertEquals( "a3", a.get(2) );
+		Assert.assertEquals( "c1", index.list( TABLE, index.group("c") ).get(0) );
+		Assert.assertEquals( -1, index.group("d") );
+		Assert.assertEquals( 0, index.list( TABLE, index.group("d") ).size() );
+	}
+
+	@Test
+	public void testByIntSkipsRowsWithoutGroup() {
+		int[] groups = { 1, -1, 1, 0, -1, 1 };
+		GroupIndex index = GroupIndex.byInt( groups, 3 );
+		Assert.assertEquals( "c1", index.list( TABLE, 0 ).get(0) );
+		Assert.assertEquals( 3, index.list( TABLE, 1 ).size() );
+		Assert.assertEquals( 0, index.list( TABLE, 2 ).size() );
+	}
+
+	@Test
+	public void testSortGroupsIsStable() {
+		String[] keys = { "a", "b", "a", "c", "b", "a" };
+		int[] ranks = { 2, 0, 1, 0, 0, 1 };
+		GroupIndex index = GroupIndex.byString( keys );
+		index.sortGroups( ranks );
+		List<String> a = index.list( TABLE, index.group("a") );
+		Assert.assertEquals( "a2", a.get(0) );
+		Assert.assertEquals( "a3", a.get(1) );
+		Assert.assertEquals( "a1", a.get(2) );
+	}
+
+	@Test
+	public void testManyKeys() {
+		String[] keys = new String[10000];
+		for ( int i=0; i<keys.length; i++ ) keys[i] = "k"+(i%5000);
+		GroupIndex index = GroupIndex.byString( keys );
+		Assert.assertEquals( 5000, index.groups() );
+		for ( int i=0; i<5000; i++ ) {
+			int g = index.group( "k"+i );
+			Assert.assertEquals( 2, index.end(g) - index.start(g) );
+			Assert.assertEquals( i, index.row( index.start(g) ) );
+			Assert.assertEquals( i+5000, index.row( index.start(g)+1 ) );
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+public class LemmaPrefixIndexTest {
+
+	@Test
+	public void testFindWordsByPrefix() {
+		List<Word> words = new ArrayList<Word>();
+		words.add( new Word( 1, Lang.eng, "dog", null, POS.n ) );
+		words.add( new Word( 2, Lang.eng, "dog", null, POS.v ) );
+		words.add( new Word( 3, Lang.eng, "dogma", null, POS.n ) );
+		words.add( new Word( 4, Lang.eng, "do", null, POS.v ) );
+		words.add( new Word( 5, Lang.eng, "cat", null, POS.n ) );
+		words.add( new Word( 6, Lang.jpn, "犬", null, POS.n ) );
+		LemmaPrefixIndex index = new LemmaPrefixIndex( words, new int[]{ 10, 2, 2, 30, 5, 1 } );
+		
+		Assert.assertEquals( Arrays.asList( 4, 1, 2, 3 ), wordids( index.findWordsByPrefix( "do", null, 10 ) ) );
+		Assert.assertEquals( Arrays.asList( 1, 3 ), wordids( index.findWordsByPrefix( "do", POS.n, 10 ) ) );
+		Assert.assertEquals( Arrays.asList( 4, 1 ), wordids( index.findWordsByPrefix( "do", null, 2 ) ) );
+		Assert.assertEquals( Arrays.asList( 3 ), wordids( index.findWordsByPrefix( "dogm", null, 10 ) ) );
+		Assert.assertEquals( Arrays.asList( 6 ), wordids( index.findWordsByPrefix( "犬", null, 10 ) ) );
+		Assert.assertEquals( 6, index.findWordsByPrefix( "", null, Integer.MAX_VALUE ).size() );
+		Assert.assertEquals( 0, index.findWordsByPrefix( "dogs", null, 10 ).size() );
+		Assert.assertEquals( 0, index.findWordsByPrefix( "do", POS.a, 10 ).size() );
+		Assert.assertEquals( 0, index.findWordsByPrefix( "do", null, 0 ).size() );
+		Assert.assertTrue( words.get(0).isFrozen() );
+	}
+
+	@Test
+	public void testAgainstScan() {
+		Random random = new Random( 3 );
+		final List<Word> words = new ArrayList<Word>();
+		final int[] freqs = new int[2000];
+		for ( int i = 0; i < freqs.length; i++ ) {
+			StringBuilder lemma = new StringBuilder();
+			for ( int j = 1 + random.nextInt( 5 ); j > 0; j-- ) {
+				lemma.append( (char)( 'a' + random.nextInt( 3 ) ) );
+			}
+			words.add( new Word( i, Lang.eng, lemma.toString(), null, POS.values()[random.nextInt( 4 )] ) );
+			freqs[i] = random.nextInt( 20 );
+		}
+		LemmaPrefixIndex index = new LemmaPrefixIndex( words, freqs );
+		for ( int trial = 0; trial < 300; trial++ ) {
+			String prefix = words.get( random.nextInt( words.size() ) ).getLemma();
+			prefix = prefix.substring( 0, random.nextInt( prefix.length() + 1 ) );
+			POS pos = random.nextBoolean() ? null : POS.values()[random.nextInt( 4 )];
+			int limit = 1 + random.nextInt( 30 );
+			
+			List<Integer> expected = new ArrayList<Integer>();
+			for ( Word word : words ) {
+				if ( word.getLemma().startsWith( prefix ) && ( pos == null || word.getPos() == pos ) ) {
+					expected.add( word.getWordid() );
+				}
+			}
+			Collections.sort( expected, new Comparator<Integer>() {
+				public int compare( Integer a, Integer b ) {
+					if ( freqs[a] != freqs[b] ) return freqs[b] - freqs[a];
+					int c = words.get(a).getLemma().compareTo( words.get(b).getLemma() );
+					return c != 0 ? c : a - b;
+				}
+			});
+			expected = expected.subList( 0, Math.min( limit, expected.size() ) );
+			Assert.assertEquals( expected, wordids( index.findWordsByPrefix( prefix, pos, limit ) ) );
+		}
+	}
+
+	private static List<Integer> wordids( List<Word> words ) {
+		List<Integer> wordids = new ArrayList<Integer>();
+		for ( Word word : words ) {
+			wordids.add( word.getWordid() );
+		}
+		return wordids;
+	}
+}
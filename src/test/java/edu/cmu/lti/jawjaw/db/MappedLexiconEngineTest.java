@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Lang;
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.Sense;
+import edu.cmu.lti.jawjaw.pobj.Synlink;
+import edu.cmu.lti.jawjaw.pobj.Synset;
+import edu.cmu.lti.jawjaw.pobj.SynsetDef;
+import edu.cmu.lti.jawjaw.pobj.Word;
+
+/**
+ * Compiles a small lexicon and reads it back through the mapped engine.
+ */
+public class MappedLexiconEngineTest {
+
+	private static File compile() throws Exception {
+		LexiconCompiler compiler = new LexiconCompiler();
+		compiler.addWord( new Word( 2, Lang.jpn, "犬", null, POS.n ) );
+		compiler.addWord( new Word( 1, Lang.eng, "dog", null, POS.n ) );
+		compiler.addWord( new Word( 3, Lang.eng, "dog", null, POS.v ) );
+		compiler.addSense( new Sense( "02084071-n", 1, Lang.eng, 0, 1, 42, "eng-30" ) );
+		compiler.addSense( new Sense( "02084071-n", 2, Lang.jpn, 0, 0, 0, "hand" ) );
+		compiler.addSense( new Sense( "01950798-v", 3, Lang.eng, 0, 0, 3, "eng-30" ) );
+		compiler.addSynset( "02084071-n", "n", "dog", "eng-30" );
+		compiler.addSynset( "01950798-v", "v", "dog", "eng-30" );
+		compiler.addSynlink( new Synlink( "02084071-n", "02083346-n", Link.hype, "eng-30" ) );
+		compiler.addSynlink( new Synlink( "02084071-n", "01317541-n", Link.hype, "eng-30" ) );
+		compiler.addSynlink( new Synlink( "02084071-n", "02085998-n", Link.hypo, "eng-30" ) );
+		compiler.addSynlink( new Synlink( "01317541-n", null, Link.hype, "eng-30" ) );
+		compiler.addSynsetDef( new SynsetDef( "02084071-n", Lang.eng, "a member of the genus Canis", 0 ) );
+		File file = File.createTempFile( "jawjaw", ".lex" );
+		file.deleteOnExit();
+		compiler.write( file );
+		return file;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		MappedLexiconEngine engine = MappedLexiconEngine.open( compile() );
+		
+		List<Word> words = engine.findWordsByLemma( "dog" );
+		Assert.assertEquals( 2, words.size() );
+		Assert.assertEquals( 1, words.get(0).getWordid() );
+		Assert.assertEquals( 3, engine.findWordsByLemmaAndPos( "dog", POS.v ).get(0).getWordid() );
+		Assert.assertEquals( "犬", engine.findWordByWordid( 2 ).getLemma() );
+		Assert.assertNull( engine.findWordByWordid( 4 ) );
+		Assert.assertEquals( 0, engine.findWordsByLemma( "cat" ).size() );
+		
+		Assert.assertEquals( 2, engine.findSensesBySynset( "02084071-n" ).size() );
+		Assert.assertEquals( 2, engine.findSensesBySynsetAndLang( "02084071-n", Lang.jpn ).get(0).getWordid() );
+		Sense sense = engine.findSensesByWordid( 1 ).get(0);
+		Assert.assertEquals( "02084071-n", sense.getSynset() );
+		Assert.assertEquals( 42, sense.getFreq() );
+		
+		Synset synset = engine.findSynsetBySynset( "01950798-v" );
+		Assert.assertEquals( POS.v, synset.getPos() );
+		Assert.assertEquals( 2, engine.findSynsetsByName( "dog" ).size() );
+		Assert.assertEquals( "02084071-n", engine.findSynsetsByNameAndPos( "dog", POS.n ).get(0).getSynset() );
+		Assert.assertNull( engine.findSynsetBySynset( "00000000-n" ) );
+		
+		Assert.assertEquals( "a member of the genus Canis", 
+				engine.findSynsetDefBySynsetAndLang( "02084071-n", Lang.eng ).getDef() );
+		Assert.assertNull( engine.findSynsetDefBySynsetAndLang( "02084071-n", Lang.jpn ) );
+		
+		Assert.assertEquals( 3, engine.findSynlinksBySynset( "02084071-n" ).size() );
+		List<Synlink> hypernyms = engine.findSynlinksBySynsetAndLink( "02084071-n", Link.hype );
+		Assert.assertEquals( 2, hypernyms.size() );
+		Assert.assertEquals( "02083346-n", hypernyms.get(0).getSynset2() );
+		Assert.assertEquals( 1, engine.findSynlinksBySynsetAndLink( "02084071-n", Link.hypo ).size() );
+		Assert.assertEquals( 0, engine.findSynlinksBySynsetAndLink( "02084071-n", Link.inst ).size() );
+		List<Synlink> incoming = engine.findSynlinksByTargetSynset( "02083346-n" );
+		Assert.assertEquals( 1, incoming.size() );
+		Assert.assertEquals( "02084071-n", incoming.get(0).getSynset1() );
+		Assert.assertEquals( Link.hype, incoming.get(0).getLink() );
+		Assert.assertEquals( 1, engine.findSynlinksByTargetSynsetAndLink( "02085998-n", Link.hypo ).size() );
+		Assert.assertEquals( 0, engine.findSynlinksByTargetSynsetAndLink( "02083346-n", Link.hypo ).size() );
+		Assert.assertEquals( 0, engine.findSynlinksByTargetSynset( "02084071-n" ).size() );
+	}
+
+	@Test
+	public void testCorruptedFileIsRejected() throws Exception {
+		File file = compile();
+		RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+		raf.seek( raf.length() - 1 );
+		raf.write( raf.read() ^ 0xff );
+		raf.close();
+		try {
+			MappedLexiconEngine.open( file );
+			Assert.fail( "corrupted lexicon was opened" );
+		} catch ( IOException e ) {
+			// expected
+		}
+	}
+}
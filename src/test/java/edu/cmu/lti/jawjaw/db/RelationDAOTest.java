@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+
+/**
+ * Very simple test to verify if something returns from DB, in a single query.
+ */
+public class RelationDAOTest {
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.RelationDAO#findLinkedLemmas(String, POS, Link)}.
+	 */
+	@Test
+	public void testFindLinkedLemmas() {
+		QueryStats.reset();
+		List<String> lemmas = RelationDAO.findLinkedLemmas( "dog", POS.n, Link.hype );
+		Assert.assertTrue( lemmas.size() > 0 );
+		Assert.assertTrue( QueryStats.getQueryCount() <= 1 );
+	}
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.RelationDAO#findSynonymLemmas(String, POS, boolean)}.
+	 */
+	@Test
+	public void testFindSynonymLemmas() {
+		QueryStats.reset();
+		List<String> lemmas = RelationDAO.findSynonymLemmas( "dog", POS.n, true );
+		Assert.assertTrue( lemmas.size() > 0 );
+		Assert.assertTrue( QueryStats.getQueryCount() <= 1 );
+	}
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.RelationDAO#findRelatedLemmas(String, POS, java.util.Set)}.
+	 */
+	@Test
+	public void testFindRelatedLemmas() {
+		QueryStats.reset();
+		Map<Link, List<String>> lemmas = RelationDAO.findRelatedLemmas( "dog", POS.n, EnumSet.of( Link.hype, Link.hypo, Link.ants ) );
+		Assert.assertEquals( 3, lemmas.size() );
+		Assert.assertTrue( lemmas.get( Link.hype ).size() > 0 );
+		Assert.assertTrue( lemmas.get( Link.hypo ).size() > 0 );
+		Assert.assertTrue( QueryStats.getQueryCount() <= 1 );
+		Assert.assertEquals( lemmas.get( Link.hype ), RelationDAO.findLinkedLemmas( "dog", POS.n, Link.hype ) );
+	}
+
+}
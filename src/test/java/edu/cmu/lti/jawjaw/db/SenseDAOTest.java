@@ -15,7 +15,9 @@
  */
 package edu.cmu.lti.jawjaw.db; 
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.Assert;
 
@@ -61,4 +63,24 @@ public class SenseDAOTest {
 		Assert.assertTrue(senses.size()>0);
 	}
 
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.SenseDAO#findSensesBySynsets(java.util.Collection)}.
+	 */
+	@Test
+	public void testFindSensesBySynsets() {
+		Map<String, List<Sense>> senses = SenseDAO.findSensesBySynsets( Arrays.asList( synset, "00000000-x" ) );
+		Assert.assertEquals( SenseDAO.findSensesBySynset( synset ).size(), senses.get( synset ).size() );
+		Assert.assertTrue( senses.get( "00000000-x" ).isEmpty() );
+	}
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.SenseDAO#findSensesByWordids(int[])}.
+	 */
+	@Test
+	public void testFindSensesByWordids() {
+		Map<Integer, List<Sense>> senses = SenseDAO.findSensesByWordids( new int[]{ wordid } );
+		Assert.assertEquals( SenseDAO.findSensesByWordid( wordid ).size(), senses.get( wordid ).size() );
+	}
+
+
 }
@@ -51,4 +51,17 @@ public class SynlinkDAOTest {
 		Assert.assertTrue( synlinks.size() > 0 );
 	}
 
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.SynlinkDAO#findSynlinksByTargetSynsetAndLink(java.lang.String, edu.cmu.lti.jawjaw.pobj.Link)}.
+	 */
+	@Test
+	public void testFindSynlinksByTargetSynsetAndLink() {
+		List<Synlink> synlinks = SynlinkDAO.findSynlinksByTargetSynsetAndLink( synset, Link.hypo );
+		Assert.assertTrue( synlinks.size() > 0 );
+		for ( Synlink synlink : synlinks ) {
+			Assert.assertEquals( synset, synlink.getSynset2() );
+		}
+		Assert.assertTrue( SynlinkDAO.findSynlinksByTargetSynset( synset ).size() >= synlinks.size() );
+	}
+
 }
@@ -15,6 +15,9 @@
  */
 package edu.cmu.lti.jawjaw.db;
 
+import java.util.Collections;
+import java.util.Map;
+
 import junit.framework.Assert;
 
 import org.junit.Test;
@@ -40,4 +43,14 @@ public class SynsetDefDAOTest {
 		Assert.assertTrue( synsetDef != null );
 	}
 
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.SynsetDefDAO#findSynsetDefsBySynsets(java.util.Collection, edu.cmu.lti.jawjaw.pobj.Lang)}.
+	 */
+	@Test
+	public void testFindSynsetDefsBySynsets() {
+		Map<String, SynsetDef> synsetDefs = SynsetDefDAO.findSynsetDefsBySynsets( Collections.singleton( synset ), Lang.eng );
+		Assert.assertTrue( synsetDefs.get( synset ) != null );
+	}
+
+
 }
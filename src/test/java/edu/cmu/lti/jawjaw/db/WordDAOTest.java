@@ -16,6 +16,7 @@
 package edu.cmu.lti.jawjaw.db;
 
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.Assert;
 
@@ -23,6 +24,7 @@ import org.junit.Test;
 
 import edu.cmu.lti.jawjaw.pobj.POS;
 import edu.cmu.lti.jawjaw.pobj.Word;
+import edu.cmu.lti.jawjaw.util.Configuration;
 
 /**
  * Very simple test to verify if something returns from DB. The content is not checked.
@@ -70,4 +72,62 @@ public class WordDAOTest {
 		Assert.assertTrue( word != null );
 	}
 
+	/**
+	 * Cache hits share frozen records unless copyOnRead is set.
+	 */
+	@Test
+	public void testCachedWordsAreShared() {
+		if ( !Configuration.getInstance().useCache() || Configuration.getInstance().copyOnRead() ) return;
+		List<Word> words1 = WordDAO.findWordsByLemmaAndPos( word1, POS.n );
+		List<Word> words2 = WordDAO.findWordsByLemmaAndPos( word1, POS.n );
+		Assert.assertSame( words1, words2 );
+		Assert.assertTrue( words1.get(0).isFrozen() );
+		Word copy = words1.get(0).clone();
+		copy.setLemma( word2a );
+		Assert.assertFalse( copy.isFrozen() );
+		try {
+			words1.get(0).setLemma( word2a );
+			Assert.fail( "frozen word was modified" );
+		} catch ( UnsupportedOperationException e ) {
+			// expected
+		}
+	}
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.WordDAO#findWordsByWordids(int[])}.
+	 */
+	@Test
+	public void testFindWordsByWordids() {
+		Map<Integer, Word> words = WordDAO.findWordsByWordids( new int[]{ wordid, -1, wordid } );
+		Assert.assertEquals( 1, words.size() );
+		Assert.assertEquals( WordDAO.findWordByWordid( wordid ).getLemma(), words.get( wordid ).getLemma() );
+	}
+
+	/**
+	 * A numeric lemma cached first must not be returned for the same word id.
+	 */
+	@Test
+	public void testNumericLemmaDoesNotShadowWordid() {
+		WordDAO.findWordsByLemma( "1" );
+		Word word = WordDAO.findWordsByWordids( new int[]{ 1 } ).get( 1 );
+		Assert.assertTrue( word == null || word.getWordid() == 1 );
+		word = WordDAO.findWordByWordid( 1 );
+		Assert.assertTrue( word == null || word.getWordid() == 1 );
+	}
+
+	/**
+	 * Test method for {@link edu.cmu.lti.jawjaw.db.WordDAO#findWordsByPrefix(java.lang.String, edu.cmu.lti.jawjaw.pobj.POS, int)}.
+	 */
+	@Test
+	public void testFindWordsByPrefix() {
+		List<Word> words = WordDAO.findWordsByPrefix( "Natural Lang", POS.n, 5 );
+		Assert.assertTrue( words.size() > 0 && words.size() <= 5 );
+		for ( Word word : words ) {
+			Assert.assertTrue( word.getLemma().startsWith( "natural_lang" ) );
+			Assert.assertEquals( POS.n, word.getPos() );
+		}
+		Assert.assertTrue( WordDAO.findWordsByPrefix( "自然言語", null, 5 ).size() > 0 );
+	}
+
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.db.datamover;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import edu.cmu.lti.jawjaw.util.Configuration;
+
+/**
+ * Compares the ways of loading the WordNet DB into memory:
+ * the old row-by-row copy in autocommit mode, the batched 
+ * transactional copy, and restoring with the backup API.
+ * <pre>
+ * java edu.cmu.lti.jawjaw.db.datamover.MemoryDBLoadBenchmark [sourceURL] [-skipLegacy]
+ * </pre>
+ */
+public class MemoryDBLoadBenchmark {
+
+	private static final String DRIVER = "org.sqlite.JDBC";
+	private static final String TARGET = "jdbc:sqlite::memory:";
+
+	public static void main( String[] args ) throws Exception {
+		String sourceURL = "jdbc:sqlite::resource:"+Configuration.getInstance().getWordnet();
+		boolean legacy = true;
+		for ( String arg : args ) {
+			if ( arg.equals("-skipLegacy") ) legacy = false;
+			else sourceURL = arg;
+		}
+		
+		double legacyTime = -1;
+		if ( legacy ) {
+			System.out.println( "Row-by-row copy (autocommit):" );
+			long t0 = System.currentTimeMillis();
+			legacyTime = time( DataMoverUtility.copyMemoryDB( DRIVER, sourceURL, TARGET, new Properties(), false ), t0 );
+		}
+		System.out.println( "Batched copy (one transaction per table):" );
+		long t0 = System.currentTimeMillis();
+		double batchTime = time( DataMoverUtility.copyMemoryDB( DRIVER, sourceURL, TARGET, new Properties(), true ), t0 );
+		System.out.println( "Restore (backup API):" );
+		t0 = System.currentTimeMillis();
+		double restoreTime = time( DataMoverUtility.restoreMemoryDB( DRIVER, sourceURL, TARGET, new Properties() ), t0 );
+		
+		System.out.println();
+		if ( legacy ) System.out.println( "row-by-row: "+legacyTime+" sec." );
+		System.out.println( "batched:    "+batchTime+" sec."+speedup( legacyTime, batchTime ) );
+		System.out.println( "restore:    "+restoreTime+" sec."+speedup( legacyTime, restoreTime ) );
+	}
+
+	/**
+	 * @return seconds since t0, after checking and closing the loaded DB
+	 */
+	private static double time( Connection connection, long t0 ) throws SQLException {
+		double seconds = (System.currentTimeMillis() - t0) / 1000D;
+		if ( connection == null ) {
+			System.out.println( "  failed" );
+			return -1;
+		}
+		Statement s = connection.createStatement();
+		ResultSet rs = s.executeQuery( "SELECT count(*) FROM sense" );
+		rs.next();
+		System.out.println( "  "+rs.getInt(1)+" senses loaded in "+seconds+" sec." );
+		rs.close();
+		s.close();
+		connection.close();
+		return seconds;
+	}
+
+	private static String speedup( double base, double time ) {
+		if ( base <= 0 || time <= 0 ) return "";
+		return String.format( " (%.1fx faster)", base / time );
+	}
+}
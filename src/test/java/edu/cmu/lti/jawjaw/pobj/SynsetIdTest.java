@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.pobj;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks the packed synset id codec.
+ */
+public class SynsetIdTest {
+
+	@Test
+	public void testRoundTrip() {
+		String[] synsets = { "06142412-n", "00001740-a", "99999999-v", "00000000-r" };
+		for ( String synset : synsets ) {
+			int id = SynsetId.pack( synset );
+			Assert.assertTrue( id >= 0 );
+			Assert.assertEquals( synset, SynsetId.toString( id ) );
+		}
+		int id = SynsetId.pack( "06142412-n" );
+		Assert.assertEquals( 6142412, SynsetId.offset( id ) );
+		Assert.assertEquals( POS.n, SynsetId.pos( id ) );
+		Assert.assertEquals( id, SynsetId.pack( 6142412, POS.n ) );
+	}
+
+	@Test
+	public void testMalformed() {
+		String[] malformed = { null, "", "06142412", "06142412-s", "0614241x-n", "6142412-n", "06142412_n" };
+		for ( String synset : malformed ) {
+			Assert.assertEquals( SynsetId.NONE, SynsetId.pack( synset ) );
+		}
+	}
+
+	@Test
+	public void testOrderMatchesStrings() {
+		String[] sorted = { "00000001-v", "00000002-a", "00000002-n", "00000002-r", "00000002-v", "10000000-a" };
+		for ( int i = 1; i < sorted.length; i++ ) {
+			Assert.assertTrue( SynsetId.pack( sorted[i-1] ) < SynsetId.pack( sorted[i] ) );
+		}
+	}
+
+	@Test
+	public void testKeys() {
+		int id = SynsetId.pack( "06142412-n" );
+		long hype = SynsetId.key( id, Link.hype );
+		Assert.assertTrue( hype != id );
+		Assert.assertTrue( hype != SynsetId.key( id, Link.hypo ) );
+		Assert.assertEquals( id, SynsetId.idOf( hype ) );
+		Assert.assertEquals( Link.hype.ordinal(), SynsetId.ordinalOf( hype ) );
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+import edu.cmu.lti.jawjaw.taxonomy.TaxonomyTest;
+
+/**
+ * Checks IC and the IC based measures on the hierarchy of 
+ * {@link TaxonomyTest}, where every synset counts 1 after smoothing.
+ */
+public class InformationContentTest {
+
+	static final String ROOT = TaxonomyTest.ROOT;
+	static final String A = TaxonomyTest.A;
+	static final String B = TaxonomyTest.B;
+	static final String C = TaxonomyTest.C;
+	static final String D = TaxonomyTest.D;
+	static final String E = TaxonomyTest.E;
+
+	static final double DELTA = 1e-9;
+
+	static Taxonomy sample() {
+		return TaxonomyTest.sample();
+	}
+
+	static InformationContent uniform() {
+		return InformationContent.fromFrequencies( sample(), new int[0], new int[0] );
+	}
+
+	@Test
+	public void testCorpusIC() {
+		InformationContent ic = uniform();
+		Assert.assertEquals( 0D, ic.getIC( ROOT ), DELTA );
+		// a covers a, c, d, e out of 6
+		Assert.assertEquals( Math.log( 6D / 4 ), ic.getIC( A ), DELTA );
+		// d is counted once although it has two parents
+		Assert.assertEquals( Math.log( 6D / 2 ), ic.getIC( B ), DELTA );
+		Assert.assertEquals( Math.log( 6 ), ic.getIC( E ), DELTA );
+		Assert.assertEquals( 0D, ic.getIC( "09999999-n" ), DELTA );
+	}
+
+	@Test
+	public void testFrequencies() {
+		InformationContent ic = InformationContent.fromFrequencies( sample(), 
+				new int[]{ SynsetId.pack( E ) }, new int[]{ 9 } );
+		Assert.assertEquals( 0D, ic.getIC( ROOT ), DELTA );
+		Assert.assertEquals( -Math.log( 10D / 15 ), ic.getIC( E ), DELTA );
+		Assert.assertEquals( -Math.log( 2D / 15 ), ic.getIC( B ), DELTA );
+	}
+
+	@Test
+	public void testIntrinsicIC() {
+		InformationContent ic = InformationContent.intrinsic( sample() );
+		Assert.assertEquals( 0D, ic.getIC( ROOT ), DELTA );
+		Assert.assertEquals( 1D, ic.getIC( E ), DELTA );
+		Assert.assertEquals( 1 - Math.log( 4 ) / Math.log( 6 ), ic.getIC( A ), DELTA );
+	}
+
+	@Test
+	public void testMeasures() {
+		InformationContent ic = uniform();
+		double lcs = Math.log( 6D / 4 );
+		double c = Math.log( 3 );
+		double d = Math.log( 6D / 1 );
+		Assert.assertEquals( lcs, new Resnik( ic ).similarity( C, D ), DELTA );
+		Assert.assertEquals( 2 * lcs / ( c + d ), new Lin( ic ).similarity( C, D ), DELTA );
+		Assert.assertEquals( 1 / ( c + d - 2 * lcs ), new JiangConrath( ic ).similarity( C, D ), DELTA );
+		Assert.assertEquals( 1D, new Lin( ic ).similarity( E, E ), DELTA );
+		Assert.assertEquals( Double.POSITIVE_INFINITY, new JiangConrath( ic ).similarity( E, E ) );
+		Assert.assertEquals( 0D, new Resnik( ic ).similarity( E, "bogus" ), DELTA );
+	}
+}
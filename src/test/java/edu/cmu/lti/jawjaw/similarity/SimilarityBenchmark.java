@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.util.Random;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+/**
+ * Measures synset pairs per second for the similarity measures on the 
+ * WordNet noun hierarchy, with random pairs from a fixed seed.
+ * <pre>
+ * java edu.cmu.lti.jawjaw.similarity.SimilarityBenchmark [pairs] [threads]
+ * </pre>
+ */
+public class SimilarityBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	public static void main( String[] args ) throws Exception {
+		int pairs = args.length > 0 ? Integer.parseInt( args[0] ) : 1000000;
+		int threads = args.length > 1 ? Integer.parseInt( args[1] ) : 1;
+		
+		long t0 = System.currentTimeMillis();
+		Taxonomy taxonomy = Taxonomy.getInstance();
+		System.out.println( "Taxonomy of "+taxonomy.size()+" synsets loaded in "
+				+(System.currentTimeMillis() - t0)/1000D+" sec." );
+		
+		int[] nouns = new int[taxonomy.size()];
+		int n = 0;
+		for ( int node = 0; node < taxonomy.size(); node++ ) {
+			if ( SynsetId.pos( taxonomy.synsetOf( node ) ) == POS.n ) nouns[n++] = taxonomy.synsetOf( node );
+		}
+		Random random = new Random( 0 );
+		int[] ids1 = new int[pairs];
+		int[] ids2 = new int[pairs];
+		for ( int i = 0; i < pairs; i++ ) {
+			ids1[i] = nouns[random.nextInt( n )];
+			ids2[i] = nouns[random.nextInt( n )];
+		}
+		
+		InformationContent ic = InformationContent.getCorpusInstance();
+		SimilarityMeasure[] measures = { new PathSimilarity( taxonomy ), 
+				new WuPalmer( taxonomy ), new LeacockChodorow( taxonomy ),
+				new Resnik( ic ), new Lin( ic ), new JiangConrath( ic ) };
+		for ( SimilarityMeasure measure : measures ) {
+			for ( int round = 0; round < WARMUP_ROUNDS; round++ ) {
+				run( measure, ids1, ids2, threads );
+			}
+			double seconds = 0;
+			for ( int round = 0; round < ROUNDS; round++ ) {
+				seconds += run( measure, ids1, ids2, threads );
+			}
+			System.out.println( String.format( "%-16s %,12.0f pairs/sec. (%d threads)", 
+					measure.getClass().getSimpleName(), pairs * ROUNDS / seconds, threads ) );
+		}
+	}
+
+	/**
+	 * @return seconds for all pairs
+	 */
+	private static double run( final SimilarityMeasure measure, final int[] ids1, final int[] ids2, 
+			int threads ) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		final double[] sums = new double[threads];
+		long t0 = System.nanoTime();
+		for ( int t = 0; t < threads; t++ ) {
+			final int thread = t;
+			final int from = (int)( (long)ids1.length * t / threads );
+			final int to = (int)( (long)ids1.length * (t+1) / threads );
+			workers[t] = new Thread() {
+				@Override
+				public void run() {
+					double sum = 0;
+					for ( int i = from; i < to; i++ ) {
+						sum += measure.similarity( ids1[i], ids2[i] );
+					}
+					// keep the JIT from dropping the loop
+					sums[thread] = sum;
+				}
+			};
+			workers[t].start();
+		}
+		for ( Thread worker : workers ) {
+			worker.join();
+		}
+		return ( System.nanoTime() - t0 ) / 1e9;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+
+public class SimilarityMatrixTest {
+
+	static int[][] items() {
+		String[][] senses = { 
+				{ StructuralSimilarityTest.E }, 
+				{ StructuralSimilarityTest.C, StructuralSimilarityTest.CHILD_OF_OTHER }, 
+				{}, 
+				{ StructuralSimilarityTest.E }, 
+				{ StructuralSimilarityTest.B, StructuralSimilarityTest.D }, 
+				{ "09999999-n" }, 
+				{ StructuralSimilarityTest.ROOT } };
+		int[][] items = new int[senses.length][];
+		for ( int i = 0; i < senses.length; i++ ) {
+			items[i] = new int[senses[i].length];
+			for ( int k = 0; k < senses[i].length; k++ ) {
+				items[i][k] = SynsetId.pack( senses[i][k] );
+			}
+		}
+		return items;
+	}
+
+	static void check( SimilarityMeasure measure, int[][] items, SimilarityMatrix matrix ) {
+		Assert.assertEquals( items.length, matrix.size() );
+		for ( int i = 0; i < items.length; i++ ) {
+			for ( int j = 0; j < items.length; j++ ) {
+				Assert.assertEquals( (float)measure.similarity( items[i], items[j] ), matrix.get( i, j ), 0f );
+			}
+		}
+	}
+
+	@Test
+	public void testOnHeap() throws Exception {
+		SimilarityMeasure measure = new WuPalmer( StructuralSimilarityTest.sample() );
+		int[][] items = items();
+		check( measure, items, SimilarityMatrix.compute( measure, items, null, 3, null ) );
+	}
+
+	@Test
+	public void testMapped() throws Exception {
+		SimilarityMeasure measure = new PathSimilarity( StructuralSimilarityTest.sample() );
+		int[][] items = items();
+		File file = File.createTempFile( "similarity", ".bin" );
+		file.deleteOnExit();
+		SimilarityMatrix matrix = SimilarityMatrix.compute( measure, items, file, 2, null );
+		matrix.force();
+		check( measure, items, matrix );
+		Assert.assertEquals( 4L * items.length * ( items.length + 1 ) / 2, file.length() );
+	}
+
+	@Test
+	public void testSharedNodesAreScoredOnce() {
+		Taxonomy taxonomy = StructuralSimilarityTest.sample();
+		final int[] calls = new int[1];
+		SimilarityMeasure measure = new PathSimilarity( taxonomy ) {
+			@Override
+			double score( int node1, int node2, AncestorMarks marks ) {
+				calls[0]++;
+				return super.score( node1, node2, marks );
+			}
+		};
+		int c = taxonomy.nodeOf( StructuralSimilarityTest.C );
+		int d = taxonomy.nodeOf( StructuralSimilarityTest.D );
+		int e = taxonomy.nodeOf( StructuralSimilarityTest.E );
+		int[][] nodes = { { e }, { e, d }, { d, c } };
+		float[] scores = new float[nodes.length];
+		measure.scoreAll( new int[]{ e }, nodes, new int[]{ 0, 1, 2 }, 3, scores );
+		Assert.assertEquals( 3, calls[0] );
+		for ( int g = 0; g < nodes.length; g++ ) {
+			double expected = 0;
+			for ( int node : nodes[g] ) {
+				expected = Math.max( expected, new PathSimilarity( taxonomy ).similarity( 
+						taxonomy.synsetOf( e ), taxonomy.synsetOf( node ) ) );
+			}
+			Assert.assertEquals( (float)expected, scores[g], 0f );
+		}
+	}
+
+	@Test
+	public void testProgressAndCancel() throws Exception {
+		SimilarityMeasure measure = new PathSimilarity( StructuralSimilarityTest.sample() );
+		int[][] items = items();
+		final long[] last = new long[2];
+		SimilarityMatrix.compute( measure, items, null, 1, new SimilarityMatrix.ProgressListener() {
+			public boolean progress( long done, long total ) {
+				last[0] = done;
+				last[1] = total;
+				return true;
+			}
+		});
+		Assert.assertEquals( 28L, last[1] );
+		Assert.assertEquals( 28L, last[0] );
+		try {
+			SimilarityMatrix.compute( measure, items, null, 1, new SimilarityMatrix.ProgressListener() {
+				public boolean progress( long done, long total ) {
+					return false;
+				}
+			});
+			Assert.fail( "listener should have cancelled" );
+		} catch ( CancellationException e ) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.similarity;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+import edu.cmu.lti.jawjaw.taxonomy.TaxonomyTest;
+
+/**
+ * Checks path, Wu-Palmer and Leacock-Chodorow on the hierarchy of 
+ * {@link TaxonomyTest} plus a second root "other" with one child.
+ */
+public class StructuralSimilarityTest {
+
+	static final String ROOT = TaxonomyTest.ROOT;
+	static final String A = TaxonomyTest.A;
+	static final String B = TaxonomyTest.B;
+	static final String C = TaxonomyTest.C;
+	static final String D = TaxonomyTest.D;
+	static final String E = TaxonomyTest.E;
+	static final String OTHER = "00000007-n";
+	static final String CHILD_OF_OTHER = "00000008-n";
+
+	static final double DELTA = 1e-9;
+
+	static Taxonomy sample() {
+		return TaxonomyTest.sample( new String[]{ CHILD_OF_OTHER, OTHER } );
+	}
+
+	@Test
+	public void testPath() {
+		SimilarityMeasure path = new PathSimilarity( sample() );
+		Assert.assertEquals( 1D, path.similarity( E, E ), DELTA );
+		Assert.assertEquals( 1D / 3, path.similarity( C, D ), DELTA );
+		Assert.assertEquals( 1D / 4, path.similarity( E, D ), DELTA );
+		Assert.assertEquals( 1D / 4, path.similarity( D, E ), DELTA );
+		Assert.assertEquals( 1D / 2, path.similarity( E, C ), DELTA );
+	}
+
+	@Test
+	public void testWuPalmer() {
+		SimilarityMeasure wup = new WuPalmer( sample() );
+		Assert.assertEquals( 1D, wup.similarity( E, E ), DELTA );
+		// lcs a at depth 2, one edge down on either side
+		Assert.assertEquals( 4D / 6, wup.similarity( C, D ), DELTA );
+		// lcs root at depth 1
+		Assert.assertEquals( 2D / 4, wup.similarity( A, B ), DELTA );
+	}
+
+	@Test
+	public void testLeacockChodorow() {
+		SimilarityMeasure lch = new LeacockChodorow( sample() );
+		// longest root path of nouns has 4 nodes
+		Assert.assertEquals( Math.log( 8 ), lch.similarity( E, E ), DELTA );
+		Assert.assertEquals( -Math.log( 3D / 8 ), lch.similarity( C, D ), DELTA );
+	}
+
+	@Test
+	public void testNoCommonSubsumer() {
+		Taxonomy taxonomy = sample();
+		SimilarityMeasure[] measures = { new PathSimilarity( taxonomy ), 
+				new WuPalmer( taxonomy ), new LeacockChodorow( taxonomy ) };
+		for ( SimilarityMeasure measure : measures ) {
+			Assert.assertEquals( 0D, measure.similarity( E, CHILD_OF_OTHER ), DELTA );
+			Assert.assertEquals( 0D, measure.similarity( E, "09999999-n" ), DELTA );
+			Assert.assertEquals( 0D, measure.similarity( E, "bogus" ), DELTA );
+		}
+	}
+
+	@Test
+	public void testMaxOverSenses() {
+		SimilarityMeasure path = new PathSimilarity( sample() );
+		int[] senses1 = { SynsetId.pack( CHILD_OF_OTHER ), SynsetId.pack( E ) };
+		int[] senses2 = { SynsetId.pack( B ), SynsetId.pack( C ) };
+		Assert.assertEquals( 1D / 2, path.similarity( senses1, senses2 ), DELTA );
+		Assert.assertEquals( 0D, path.similarity( senses1, new int[0] ), DELTA );
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+public class LowestCommonAncestorsTest {
+
+	@Test
+	public void testSample() {
+		Taxonomy taxonomy = TaxonomyTest.sample();
+		LowestCommonAncestors lca = new LowestCommonAncestors( taxonomy );
+		LowestCommonHypernyms result = lca.lowestCommonHypernyms( TaxonomyTest.E, TaxonomyTest.D );
+		Assert.assertEquals( Arrays.asList( TaxonomyTest.A ), result.getSynsets() );
+		Assert.assertEquals( 1, result.getDepth() );
+		// an ancestor is its own lowest common hypernym
+		Assert.assertEquals( Arrays.asList( TaxonomyTest.C ), 
+				lca.lowestCommonHypernyms( TaxonomyTest.E, TaxonomyTest.C ).getSynsets() );
+		// d is below both a and b
+		Assert.assertEquals( Arrays.asList( TaxonomyTest.B ), 
+				lca.lowestCommonHypernyms( TaxonomyTest.B, TaxonomyTest.D ).getSynsets() );
+		Assert.assertTrue( lca.lowestCommonHypernyms( TaxonomyTest.E, "09999999-n" ).getSynsets().isEmpty() );
+		Assert.assertEquals( -1, lca.lowestCommonHypernyms( TaxonomyTest.E, "bogus" ).getDepth() );
+	}
+
+	@Test
+	public void testSeveralLowestCommonAncestors() {
+		// x and y both have parents p and q
+		int p = SynsetId.pack( 1, POS.n );
+		int q = SynsetId.pack( 2, POS.n );
+		int x = SynsetId.pack( 3, POS.n );
+		int y = SynsetId.pack( 4, POS.n );
+		int z = SynsetId.pack( 5, POS.v );
+		Taxonomy taxonomy = Taxonomy.fromEdges( new int[]{ x, x, y, y, z }, new int[]{ p, q, p, q, SynsetId.pack( 6, POS.v ) } );
+		LowestCommonAncestors lca = new LowestCommonAncestors( taxonomy );
+		int[] expected = { taxonomy.nodeOf( p ), taxonomy.nodeOf( q ) };
+		Assert.assertTrue( Arrays.equals( expected, lca.lowestCommonAncestors( taxonomy.nodeOf( x ), taxonomy.nodeOf( y ) ) ) );
+		Assert.assertEquals( taxonomy.nodeOf( p ), lca.lowestCommonAncestor( taxonomy.nodeOf( x ), taxonomy.nodeOf( y ) ) );
+		Assert.assertEquals( -1, lca.lowestCommonAncestor( taxonomy.nodeOf( x ), taxonomy.nodeOf( z ) ) );
+	}
+
+	/**
+	 * Compares with intersecting the closures on a random hierarchy with 
+	 * multiple inheritance and a cycle.
+	 */
+	@Test
+	public void testAgainstClosures() {
+		Random random = new Random( 1 );
+		int n = 400;
+		int[] from = new int[n + n/10 + 2];
+		int[] to = new int[from.length];
+		int m = 0;
+		for ( int i = 5; i < n; i++ ) {
+			from[m] = SynsetId.pack( i, POS.n );
+			to[m++] = SynsetId.pack( random.nextInt( i ), POS.n );
+			if ( i % 10 == 0 ) {
+				from[m] = SynsetId.pack( i, POS.n );
+				to[m++] = SynsetId.pack( random.nextInt( i ), POS.n );
+			}
+		}
+		from[m] = SynsetId.pack( n, POS.n );
+		to[m++] = SynsetId.pack( n+1, POS.n );
+		from[m] = SynsetId.pack( n+1, POS.n );
+		to[m++] = SynsetId.pack( n, POS.n );
+		Taxonomy taxonomy = Taxonomy.fromEdges( Arrays.copyOf( from, m ), Arrays.copyOf( to, m ) );
+		LowestCommonAncestors lca = new LowestCommonAncestors( taxonomy );
+		for ( int node1 = 0; node1 < taxonomy.size(); node1++ ) {
+			for ( int node2 = 0; node2 < taxonomy.size(); node2 ++ ) {
+				int[] expected = bruteForce( taxonomy, node1, node2 );
+				int[] actual = lca.lowestCommonAncestors( node1, node2 );
+				Assert.assertTrue( node1+", "+node2, Arrays.equals( expected, actual ) );
+				Assert.assertEquals( expected.length > 0 ? expected[0] : -1, lca.lowestCommonAncestor( node1, node2 ) );
+			}
+		}
+	}
+
+	private static int[] bruteForce( Taxonomy taxonomy, int node1, int node2 ) {
+		int[] common = new int[taxonomy.size()];
+		int n = 0;
+		int depth = -1;
+		for ( int i = taxonomy.ancestorStart( node1 ); i < taxonomy.ancestorEnd( node1 ); i++ ) {
+			int a = taxonomy.ancestor( i );
+			for ( int j = taxonomy.ancestorStart( node2 ); j < taxonomy.ancestorEnd( node2 ); j++ ) {
+				if ( taxonomy.ancestor( j ) != a ) continue;
+				if ( taxonomy.depth( a ) > depth ) {
+					depth = taxonomy.depth( a );
+					n = 0;
+				}
+				if ( taxonomy.depth( a ) == depth ) common[n++] = a;
+			}
+		}
+		common = Arrays.copyOf( common, n );
+		Arrays.sort( common );
+		return common;
+	}
+}
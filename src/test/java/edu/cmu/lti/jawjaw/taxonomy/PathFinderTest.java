@@ -0,0 +1,133 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+public class PathFinderTest {
+
+	private static final String DOG = SynlinkGraphTest.DOG;
+	private static final String CANINE = SynlinkGraphTest.CANINE;
+	private static final String PUPPY = SynlinkGraphTest.PUPPY;
+	private static final String PACK = SynlinkGraphTest.PACK;
+
+	@Test
+	public void testShortestPath() {
+		PathFinder finder = new PathFinder( SynlinkGraphTest.sample(), 
+				EnumSet.of( Link.hype, Link.hypo, Link.hmem ), 6, 1000 );
+		SynsetPath path = finder.shortestPath( PUPPY, PACK );
+		Assert.assertEquals( 2, path.getLength() );
+		Assert.assertEquals( Arrays.asList( PUPPY, DOG, PACK ), path.getSynsets() );
+		Assert.assertEquals( Arrays.asList( Link.hype, Link.hmem ), path.getLinks() );
+		
+		path = finder.shortestPath( CANINE, PUPPY );
+		Assert.assertEquals( Arrays.asList( CANINE, DOG, PUPPY ), path.getSynsets() );
+		Assert.assertEquals( Arrays.asList( Link.hypo, Link.hypo ), path.getLinks() );
+		
+		Assert.assertEquals( 0, finder.shortestPath( DOG, DOG ).getLength() );
+		// links are followed in their direction only
+		Assert.assertEquals( -1, finder.shortestPath( PACK, DOG ).getLength() );
+		Assert.assertEquals( -1, finder.shortestPath( DOG, "09999999-n" ).getLength() );
+	}
+
+	@Test
+	public void testBounds() {
+		SynlinkGraph graph = SynlinkGraphTest.sample();
+		Assert.assertEquals( -1, new PathFinder( graph, EnumSet.of( Link.hypo, Link.hmem ), 6, 1000 )
+				.shortestPath( PUPPY, PACK ).getLength() );
+		Assert.assertEquals( -1, new PathFinder( graph, EnumSet.allOf( Link.class ), 1, 1000 )
+				.shortestPath( PUPPY, PACK ).getLength() );
+		Assert.assertEquals( -1, new PathFinder( graph, EnumSet.allOf( Link.class ), 6, 1 )
+				.shortestPath( PUPPY, PACK ).getLength() );
+	}
+
+	@Test
+	public void testMultipleEnds() {
+		PathFinder finder = new PathFinder( SynlinkGraphTest.sample(), EnumSet.allOf( Link.class ), 6, 1000 );
+		SynsetPath path = finder.shortestPath( 
+				new int[]{ SynsetId.pack( PACK ), SynsetId.pack( CANINE ) }, 
+				new int[]{ SynsetId.pack( PUPPY ), SynsetId.pack( DOG ) } );
+		Assert.assertEquals( Arrays.asList( CANINE, DOG ), path.getSynsets() );
+	}
+
+	@Test
+	public void testAgainstBreadthFirstSearch() {
+		Random random = new Random( 7 );
+		Link[] links = { Link.hype, Link.hypo, Link.mprt, Link.also };
+		int n = 300;
+		int m = 700;
+		int[] from = new int[m];
+		int[] to = new int[m];
+		Link[] types = new Link[m];
+		for ( int i = 0; i < m; i++ ) {
+			from[i] = SynsetId.pack( random.nextInt( n ), POS.n );
+			to[i] = SynsetId.pack( random.nextInt( n ), POS.n );
+			types[i] = links[random.nextInt( links.length )];
+		}
+		SynlinkGraph graph = SynlinkGraph.fromEdges( from, to, types );
+		EnumSet<Link> allowed = EnumSet.of( Link.hype, Link.hypo, Link.mprt );
+		PathFinder finder = new PathFinder( graph, allowed, Integer.MAX_VALUE, Integer.MAX_VALUE );
+		for ( int trial = 0; trial < 500; trial++ ) {
+			int source = random.nextInt( graph.size() );
+			int target = random.nextInt( graph.size() );
+			SynsetPath path = finder.shortestPath( 
+					new int[]{ graph.synsetOf( source ) }, new int[]{ graph.synsetOf( target ) } );
+			Assert.assertEquals( distance( graph, allowed, source, target ), path.getLength() );
+			for ( int i = 0; i < path.getLength(); i++ ) {
+				Assert.assertTrue( allowed.contains( path.getLinks().get(i) ) );
+				Assert.assertTrue( hasEdge( graph, path.getSynsets().get(i), path.getSynsets().get(i+1), path.getLinks().get(i) ) );
+			}
+		}
+	}
+
+	private static int distance( SynlinkGraph graph, EnumSet<Link> allowed, int source, int target ) {
+		int[] distances = new int[graph.size()];
+		Arrays.fill( distances, -1 );
+		distances[source] = 0;
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		queue.add( source );
+		while ( !queue.isEmpty() ) {
+			int node = queue.poll();
+			for ( int i = graph.outStart( node ); i < graph.outEnd( node ); i++ ) {
+				int next = graph.target( i );
+				if ( distances[next] < 0 && allowed.contains( graph.outLink( i ) ) ) {
+					distances[next] = distances[node] + 1;
+					queue.add( next );
+				}
+			}
+		}
+		return distances[target];
+	}
+
+	private static boolean hasEdge( SynlinkGraph graph, String synset1, String synset2, Link link ) {
+		int node = graph.nodeOf( synset1 );
+		for ( int i = graph.outStart( node, link ); i < graph.outEnd( node, link ); i++ ) {
+			if ( graph.synsetOf( graph.target( i ) ) == SynsetId.pack( synset2 ) ) return true;
+		}
+		return false;
+	}
+}
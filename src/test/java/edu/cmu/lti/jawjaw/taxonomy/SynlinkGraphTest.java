@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.Link;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+public class SynlinkGraphTest {
+
+	static final String DOG = "02084071-n";
+	static final String CANINE = "02083346-n";
+	static final String PUPPY = "01322604-n";
+	static final String PACK = "07994941-n";
+
+	static SynlinkGraph sample() {
+		String[][] edges = { 
+				{ DOG, CANINE, "hype" }, { CANINE, DOG, "hypo" }, { DOG, PUPPY, "hypo" }, 
+				{ PUPPY, DOG, "hype" }, { DOG, PACK, "hmem" }, { DOG, CANINE, "hype" } };
+		int[] from = new int[edges.length];
+		int[] to = new int[edges.length];
+		Link[] links = new Link[edges.length];
+		for ( int i = 0; i < edges.length; i++ ) {
+			from[i] = SynsetId.pack( edges[i][0] );
+			to[i] = SynsetId.pack( edges[i][1] );
+			links[i] = Link.valueOf( edges[i][2] );
+		}
+		return SynlinkGraph.fromEdges( from, to, links );
+	}
+
+	@Test
+	public void testOutgoing() {
+		SynlinkGraph graph = sample();
+		Assert.assertEquals( 4, graph.size() );
+		Assert.assertEquals( 5, graph.getEdgeCount() );
+		int dog = graph.nodeOf( DOG );
+		Assert.assertEquals( 3, graph.outEnd( dog ) - graph.outStart( dog ) );
+		int i = graph.outStart( dog, Link.hype );
+		Assert.assertEquals( i+1, graph.outEnd( dog, Link.hype ) );
+		Assert.assertEquals( CANINE, SynsetId.toString( graph.synsetOf( graph.target( i ) ) ) );
+		Assert.assertEquals( Link.hype, graph.outLink( i ) );
+		Assert.assertEquals( 1, graph.outEnd( dog, Link.hmem ) - graph.outStart( dog, Link.hmem ) );
+		Assert.assertEquals( 0, graph.outEnd( dog, Link.inst ) - graph.outStart( dog, Link.inst ) );
+	}
+
+	@Test
+	public void testIncoming() {
+		SynlinkGraph graph = sample();
+		int dog = graph.nodeOf( DOG );
+		Assert.assertEquals( 2, graph.inEnd( dog ) - graph.inStart( dog ) );
+		int i = graph.inStart( dog, Link.hype );
+		Assert.assertEquals( i+1, graph.inEnd( dog, Link.hype ) );
+		Assert.assertEquals( graph.nodeOf( PUPPY ), graph.source( i ) );
+		Assert.assertEquals( Link.hype, graph.inLink( i ) );
+		int pack = graph.nodeOf( PACK );
+		Assert.assertEquals( 0, graph.outEnd( pack ) - graph.outStart( pack ) );
+		Assert.assertEquals( dog, graph.source( graph.inStart( pack, Link.hmem ) ) );
+		Assert.assertEquals( -1, graph.nodeOf( "09999999-n" ) );
+	}
+}
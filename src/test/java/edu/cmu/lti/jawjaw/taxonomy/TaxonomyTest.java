@@ -0,0 +1,114 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.taxonomy;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.POS;
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+
+/**
+ * Checks the closure and depths on a small hierarchy:
+ * <pre>
+ *        root
+ *       /    \
+ *     a       b
+ *    / \     /
+ *   c   d---+      (d has two parents)
+ *   |
+ *   e
+ * </pre>
+ */
+public class TaxonomyTest {
+
+	public static final String ROOT = "00000001-n";
+	public static final String A = "00000002-n";
+	public static final String B = "00000003-n";
+	public static final String C = "00000004-n";
+	public static final String D = "00000005-n";
+	public static final String E = "00000006-n";
+
+	/**
+	 * @param extraLinks further {hyponym, hypernym} pairs to add to the hierarchy
+	 * @return the hierarchy above, with the duplicate link e-c
+	 */
+	public static Taxonomy sample( String[]... extraLinks ) {
+		String[][] links = { {A, ROOT}, {B, ROOT}, {C, A}, {D, A}, {D, B}, {E, C}, {E, C} };
+		int n = links.length + extraLinks.length;
+		int[] from = new int[n];
+		int[] to = new int[n];
+		for ( int i = 0; i < n; i++ ) {
+			String[] link = i < links.length ? links[i] : extraLinks[i - links.length];
+			from[i] = SynsetId.pack( link[0] );
+			to[i] = SynsetId.pack( link[1] );
+		}
+		return Taxonomy.fromEdges( from, to );
+	}
+
+	@Test
+	public void testDepth() {
+		Taxonomy taxonomy = sample();
+		Assert.assertEquals( 6, taxonomy.size() );
+		Assert.assertEquals( 0, taxonomy.getDepth( ROOT ) );
+		Assert.assertEquals( 1, taxonomy.getDepth( A ) );
+		Assert.assertEquals( 2, taxonomy.getDepth( D ) );
+		Assert.assertEquals( 3, taxonomy.getDepth( E ) );
+		Assert.assertEquals( 0, taxonomy.getDepth( "09999999-n" ) );
+		Assert.assertEquals( 3, taxonomy.getMaxDepth( POS.n ) );
+		Assert.assertEquals( 0, taxonomy.getMaxDepth( POS.v ) );
+	}
+
+	@Test
+	public void testFindAllHypernyms() {
+		Taxonomy taxonomy = sample();
+		List<String> all = taxonomy.findAllHypernyms( E, Integer.MAX_VALUE );
+		Assert.assertEquals( 3, all.size() );
+		Assert.assertEquals( C, all.get(0) );
+		Assert.assertEquals( A, all.get(1) );
+		Assert.assertEquals( ROOT, all.get(2) );
+		Assert.assertEquals( 1, taxonomy.findAllHypernyms( E, 1 ).size() );
+		// multiple inheritance: both parents, the root once
+		List<String> ofD = taxonomy.findAllHypernyms( D, Integer.MAX_VALUE );
+		Assert.assertEquals( 3, ofD.size() );
+		Assert.assertTrue( ofD.contains( A ) && ofD.contains( B ) );
+		Assert.assertEquals( ROOT, ofD.get(2) );
+		Assert.assertTrue( taxonomy.findAllHypernyms( ROOT, Integer.MAX_VALUE ).isEmpty() );
+	}
+
+	@Test
+	public void testClosureStartsWithNode() {
+		Taxonomy taxonomy = sample();
+		int d = taxonomy.nodeOf( D );
+		Assert.assertEquals( d, taxonomy.ancestor( taxonomy.ancestorStart( d ) ) );
+		Assert.assertEquals( 0, taxonomy.ancestorHops( taxonomy.ancestorStart( d ) ) );
+		Assert.assertEquals( 2, taxonomy.parentEnd( d ) - taxonomy.parentStart( d ) );
+		int a = taxonomy.nodeOf( A );
+		Assert.assertEquals( 2, taxonomy.childEnd( a ) - taxonomy.childStart( a ) );
+	}
+
+	@Test
+	public void testCycleTerminates() {
+		int x = SynsetId.pack( A );
+		int y = SynsetId.pack( B );
+		Taxonomy taxonomy = Taxonomy.fromEdges( new int[]{ x, y }, new int[]{ y, x } );
+		Assert.assertEquals( 1, taxonomy.findAllHypernyms( A, Integer.MAX_VALUE ).size() );
+		Assert.assertEquals( 0, taxonomy.getDepth( A ) );
+	}
+}
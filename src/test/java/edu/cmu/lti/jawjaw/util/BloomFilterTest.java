@@ -0,0 +1,53 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks that the Bloom filter has no false negatives and roughly the requested false positive rate.
+ */
+public class BloomFilterTest {
+
+	@Test
+	public void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter( 10000, 0.01, 1024*1024 );
+		for ( int i=0; i<10000; i++ ) filter.add( "lemma"+i );
+		for ( int i=0; i<10000; i++ ) {
+			Assert.assertTrue( filter.mightContain( "lemma"+i ) );
+		}
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter( 10000, 0.01, 1024*1024 );
+		for ( int i=0; i<10000; i++ ) filter.add( "lemma"+i );
+		int falsePositives = 0;
+		for ( int i=0; i<100000; i++ ) {
+			if ( filter.mightContain( "unknown"+i ) ) falsePositives++;
+		}
+		Assert.assertTrue( falsePositives < 2000 );
+		Assert.assertTrue( filter.getExpectedFpp() < 0.02 );
+	}
+
+	@Test
+	public void testSizeLimit() {
+		BloomFilter filter = new BloomFilter( 100000, 0.001, 1024 );
+		Assert.assertEquals( 1024, filter.getSizeInBytes() );
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks that concurrent misses of one key share a single load.
+ */
+public class LoadingCacheTest {
+
+	@Test
+	public void testConcurrentMissesLoadOnce() throws InterruptedException {
+		final LoadingCache<String, String> cache = 
+			new LoadingCache<String, String>( new TinyLfuCache<String, String>( 10 ) );
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch( 1 );
+		final CacheLoader<String, String> slowLoader = new CacheLoader<String, String>() {
+			public String load( String key ) {
+				loads.incrementAndGet();
+				try {
+					Thread.sleep( 200 );
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+				return key.toUpperCase();
+			}
+		};
+		final String[] results = new String[8];
+		Thread[] threads = new Thread[results.length];
+		for ( int i=0; i<threads.length; i++ ) {
+			final int n = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch ( InterruptedException e ) {
+						return;
+					}
+					results[n] = cache.get( "dog", slowLoader );
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for ( Thread t : threads ) t.join();
+		Assert.assertEquals( 1, loads.get() );
+		for ( String result : results ) {
+			Assert.assertEquals( "DOG", result );
+		}
+	}
+
+	@Test
+	public void testNullIsNotCached() {
+		LoadingCache<String, String> cache = 
+			new LoadingCache<String, String>( new TinyLfuCache<String, String>( 10 ) );
+		final AtomicInteger loads = new AtomicInteger();
+		CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+			public String load( String key ) {
+				loads.incrementAndGet();
+				return null;
+			}
+		};
+		Assert.assertNull( cache.get( "unknown", loader ) );
+		Assert.assertNull( cache.get( "unknown", loader ) );
+		Assert.assertEquals( 2, loads.get() );
+	}
+
+	/**
+	 * A thread that missed just before another one finished loading the 
+	 * key must not load it again.
+	 */
+	@Test
+	public void testLateMissDoesNotReload() {
+		final TinyLfuCache<String, String> backing = new TinyLfuCache<String, String>( 10 );
+		backing.put( "dog", "DOG" );
+		final AtomicInteger gets = new AtomicInteger();
+		// the lookup misses as if the other load had not finished yet
+		Cache<String, String> late = new Cache<String, String>() {
+			public String get( String key ) {
+				gets.incrementAndGet();
+				return null;
+			}
+			public String peek( String key ) { return backing.peek( key ); }
+			public void put( String key, String value ) { backing.put( key, value ); }
+			public void remove( String key ) { backing.remove( key ); }
+			public void clear() { backing.clear(); }
+			public int size() { return backing.size(); }
+			public int capacity() { return backing.capacity(); }
+		};
+		final AtomicInteger loads = new AtomicInteger();
+		CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+			public String load( String key ) {
+				loads.incrementAndGet();
+				return key.toUpperCase();
+			}
+		};
+		Assert.assertEquals( "DOG", new LoadingCache<String, String>( late ).get( "dog", loader ) );
+		Assert.assertEquals( 0, loads.get() );
+		// the re-check must not count as a second access
+		Assert.assertEquals( 1, gets.get() );
+	}
+}
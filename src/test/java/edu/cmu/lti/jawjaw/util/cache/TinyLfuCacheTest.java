@@ -0,0 +1,139 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.jawjaw.util.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * Checks the size bound and the frequency-aware admission of the W-TinyLFU cache.
+ */
+public class TinyLfuCacheTest {
+
+	@Test
+	public void testSizeIsBounded() {
+		Cache<Integer, Integer> cache = new TinyLfuCache<Integer, Integer>( 100 );
+		for ( int i=0; i<10000; i++ ) {
+			cache.put( i, i );
+			Assert.assertTrue( cache.size() <= 100 );
+		}
+		Assert.assertEquals( 100, cache.size() );
+	}
+
+	@Test
+	public void testHotKeysSurviveScan() {
+		Cache<String, String> cache = new TinyLfuCache<String, String>( 100 );
+		for ( int round=0; round<5; round++ ) {
+			for ( int i=0; i<20; i++ ) {
+				String key = "hot"+i;
+				if ( cache.get( key ) == null ) cache.put( key, key );
+			}
+		}
+		// a long scan of keys that are never seen again, while the hot keys keep being used
+		// (too rarely for a plain LRU of this size to keep them)
+		for ( int i=0; i<10000; i++ ) {
+			String key = "cold"+i;
+			if ( cache.get( key ) == null ) cache.put( key, key );
+			if ( i % 10 != 0 ) continue;
+			String hot = "hot"+( i / 10 % 20 );
+			if ( cache.get( hot ) == null ) cache.put( hot, hot );
+		}
+		for ( int i=0; i<20; i++ ) {
+			Assert.assertNotNull( cache.get( "hot"+i ) );
+		}
+	}
+
+	/**
+	 * Fills a cache of 10 (window of 1) so that "twice" heads the probation 
+	 * segment, then lets "once" leave the window and compete with it.
+	 */
+	@Test
+	public void testKeySeenOnceLosesToKeySeenTwice() {
+		Cache<String, String> cache = new TinyLfuCache<String, String>( 10 );
+		Assert.assertNull( cache.get( "twice" ) );
+		cache.put( "twice", "2" );
+		Assert.assertNotNull( cache.get( "twice" ) );
+		for ( int i=0; i<8; i++ ) {
+			cache.put( "k"+i, "0" );
+		}
+		Assert.assertNull( cache.get( "once" ) );
+		cache.put( "once", "1" );
+		cache.put( "next", "0" );
+		Assert.assertEquals( 10, cache.size() );
+		Assert.assertNull( cache.get( "once" ) );
+		Assert.assertNotNull( cache.get( "twice" ) );
+	}
+
+	/**
+	 * Storing a value is not an access: a key stored four times without 
+	 * being read still loses to a key that was read twice.
+	 */
+	@Test
+	public void testPutIsNotCounted() {
+		Cache<String, String> cache = new TinyLfuCache<String, String>( 10 );
+		Assert.assertNull( cache.get( "read" ) );
+		cache.put( "read", "1" );
+		Assert.assertNotNull( cache.get( "read" ) );
+		for ( int i=0; i<8; i++ ) {
+			cache.put( "k"+i, "0" );
+		}
+		for ( int i=0; i<3; i++ ) {
+			cache.put( "stored", "0" );
+			cache.remove( "stored" );
+		}
+		cache.put( "stored", "0" );
+		cache.put( "next", "0" );
+		Assert.assertNull( cache.get( "stored" ) );
+		Assert.assertNotNull( cache.get( "read" ) );
+	}
+
+	/**
+	 * Peeking neither counts nor promotes: a key that was only peeked at 
+	 * loses to a key that was read once more.
+	 */
+	@Test
+	public void testPeekIsNotCounted() {
+		Cache<String, String> cache = new TinyLfuCache<String, String>( 10 );
+		Assert.assertNull( cache.get( "peeked" ) );
+		cache.put( "peeked", "1" );
+		for ( int i=0; i<8; i++ ) {
+			cache.put( "k"+i, "0" );
+		}
+		for ( int i=0; i<3; i++ ) {
+			Assert.assertEquals( "1", cache.peek( "peeked" ) );
+		}
+		Assert.assertNull( cache.get( "read" ) );
+		cache.put( "read", "2" );
+		Assert.assertNotNull( cache.get( "read" ) );
+		cache.put( "next", "0" );
+		Assert.assertNull( cache.peek( "peeked" ) );
+		Assert.assertEquals( "2", cache.peek( "read" ) );
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		Cache<String, String> cache = new TinyLfuCache<String, String>( 1 );
+		cache.put( "a", "1" );
+		cache.put( "a", "2" );
+		Assert.assertEquals( "2", cache.get( "a" ) );
+		cache.put( "b", "3" );
+		Assert.assertEquals( 1, cache.size() );
+		cache.remove( "a" );
+		cache.remove( "b" );
+		Assert.assertEquals( 0, cache.size() );
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2009 Carnegie Mellon University
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package edu.cmu.lti.lexical_db;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import edu.cmu.lti.jawjaw.pobj.SynsetId;
+import edu.cmu.lti.jawjaw.taxonomy.Taxonomy;
+import edu.cmu.lti.lexical_db.data.Concept;
+
+public class NictWordNetTest {
+
+	static final String ROOT = "00001740-n";
+	static final String A = "00002137-n";
+	static final String B = "00002452-n";
+
+	static NictWordNet sample() {
+		int[] from = { SynsetId.pack( A ), SynsetId.pack( B ) };
+		int[] to = { SynsetId.pack( ROOT ), SynsetId.pack( A ) };
+		return new NictWordNet( Taxonomy.fromEdges( from, to ) );
+	}
+
+	@Test
+	public void testGetHypernyms() {
+		NictWordNet db = sample();
+		List<String> hypernyms = db.getHypernyms( B );
+		Assert.assertEquals( 1, hypernyms.size() );
+		Assert.assertEquals( A, hypernyms.get(0) );
+		// memoized
+		Assert.assertSame( hypernyms, db.getHypernyms( B ) );
+		Assert.assertSame( hypernyms.get(0), db.conceptToString( A ) );
+		Assert.assertTrue( db.getHypernyms( ROOT ).isEmpty() );
+		Assert.assertTrue( db.getHypernyms( "bogus" ).isEmpty() );
+		try {
+			hypernyms.clear();
+			Assert.fail( "hypernyms must be read-only" );
+		} catch ( UnsupportedOperationException e ) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConceptToString() {
+		NictWordNet db = sample();
+		Assert.assertEquals( "01234567-v", db.conceptToString( "01234567-v" ) );
+		Assert.assertNull( db.conceptToString( "1234567-v" ) );
+	}
+
+	@Test
+	public void testUnknownPos() {
+		NictWordNet db = sample();
+		Assert.assertTrue( db.getAllConcepts( "dog", "x" ).isEmpty() );
+		Assert.assertNull( db.getMostFrequentConcept( "dog", null ) );
+	}
+
+	@Test
+	public void testFrozenConcept() {
+		Concept concept = new Concept( A ).freeze();
+		try {
+			concept.setName( "entity" );
+			Assert.fail( "frozen concept must reject setters" );
+		} catch ( UnsupportedOperationException e ) {
+			// expected
+		}
+		Concept copy = concept.clone();
+		copy.setName( "entity" );
+		Assert.assertFalse( copy.isFrozen() );
+	}
+}